@@ -0,0 +1,210 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * ARF output file shared by several producer threads.
+ *
+ * Each producer appends lines to its own {@link Batch}; full batches are
+ * handed to a single writer thread through a bounded queue, so lines from one
+ * batch are never interleaved with another and producers do not contend on the
+ * underlying writer. Lines from one producer are written in the order they
+ * were appended.
+ */
+public class ArfBatchWriter implements Closeable {
+
+    private static final int BATCH_SIZE = 1 << 16; // chars
+    private static final String END_OF_QUEUE = new String("END_OF_QUEUE");
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(64);
+    private final File file;
+    private final Writer writer;
+    private final Thread writerThread;
+    private volatile Throwable failure;
+    private boolean closed;
+
+    public ArfBatchWriter(File f) throws IOException {
+        this.file = f;
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f), "UTF-8"));
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "arf-writer-" + f.getName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    private void drain() {
+        while (true) {
+            String s;
+            try {
+                s = queue.take();
+            } catch (InterruptedException ex) {
+                fail(new InterruptedIOException("ARF writer interrupted: " + file));
+                continue;
+            }
+            if (s == END_OF_QUEUE) {
+                return;
+            }
+            if (failure == null) {
+                try {
+                    writer.write(s);
+                } catch (Throwable ex) {
+                    // keep taking so producers do not block on a full queue
+                    fail(ex);
+                }
+            }
+        }
+    }
+
+    private void fail(Throwable ex) {
+        if (failure == null) {
+            failure = ex;
+        }
+    }
+
+    private void put(String s) throws IOException {
+        if (failure != null) {
+            throw new IOException("FAILED: writing " + file, failure);
+        }
+        try {
+            queue.put(s);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted queueing ARF lines for " + file);
+        }
+    }
+
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Flushes queued batches and closes the file. Batches must be flushed by
+     * their producers before calling close. The file is only closed once the
+     * writer thread has stopped, even if the calling thread is interrupted.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        try {
+            // the drain keeps taking after a failure, so the marker always gets through
+            while (true) {
+                try {
+                    queue.put(END_OF_QUEUE);
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = abort(interrupted);
+                }
+            }
+            while (writerThread.isAlive()) {
+                try {
+                    writerThread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = abort(interrupted);
+                }
+            }
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                // report the first write failure rather than the flush it caused
+                fail(ex);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted closing " + file);
+        }
+        if (failure != null) {
+            throw new IOException("FAILED: writing " + file, failure);
+        }
+    }
+
+    /**
+     * Makes the writer thread skip the batches still queued.
+     *
+     * @return true
+     */
+    private boolean abort(boolean interrupted) {
+        if (!interrupted) {
+            fail(new InterruptedIOException("interrupted closing " + file));
+        }
+        return true;
+    }
+
+    /**
+     * Per producer line buffer. Not thread safe, each thread uses its own.
+     */
+    public class Batch implements Appendable {
+
+        private final StringBuilder sb = new StringBuilder(BATCH_SIZE + 1024);
+
+        @Override
+        public Batch append(CharSequence csq) throws IOException {
+            sb.append(csq);
+            checkFull();
+            return this;
+        }
+
+        @Override
+        public Batch append(CharSequence csq, int start, int end) throws IOException {
+            sb.append(csq, start, end);
+            checkFull();
+            return this;
+        }
+
+        @Override
+        public Batch append(char c) throws IOException {
+            sb.append(c);
+            checkFull();
+            return this;
+        }
+
+        private void checkFull() throws IOException {
+            if (sb.length() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        public void flush() throws IOException {
+            if (sb.length() > 0) {
+                put(sb.toString());
+                sb.setLength(0);
+            }
+        }
+    }
+}
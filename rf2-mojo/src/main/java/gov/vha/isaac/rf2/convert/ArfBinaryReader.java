@@ -0,0 +1,118 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * Reads a binary ARF file written by {@link ArfBinaryWriter}. Columns are
+ * read in the order they were written, after {@link #next()} returned true.
+ * Coded values are returned as the same <code>String</code> instance for
+ * every record.
+ */
+public class ArfBinaryReader implements Closeable {
+
+    private final File file;
+    private final DataInputStream in;
+    private final byte kind;
+    private final ArrayList<String> values = new ArrayList<>();
+    private byte[] textBuf = new byte[256];
+
+    public ArfBinaryReader(File f) throws IOException {
+        this.file = f;
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 1 << 16));
+        if (in.readLong() != ArfBinaryWriter.MAGIC) {
+            in.close();
+            throw new IOException("Not a binary ARF file: " + f);
+        }
+        this.kind = in.readByte();
+    }
+
+    /**
+     * @return true if f has the file extension of binary ARF files
+     */
+    public static boolean isArfBinary(File f) {
+        return f.getName().endsWith(ArfBinaryWriter.FILE_EXTENSION);
+    }
+
+    /**
+     * @return {@link ArfBinaryWriter#CONCEPTS},
+     * {@link ArfBinaryWriter#DESCRIPTIONS} or
+     * {@link ArfBinaryWriter#RELATIONSHIPS}
+     */
+    public byte getKind() {
+        return kind;
+    }
+
+    /**
+     * @return false at the end of the records
+     */
+    public boolean next() throws IOException {
+        byte tag = in.readByte();
+        if (tag == ArfBinaryWriter.RECORD) {
+            return true;
+        } else if (tag == ArfBinaryWriter.END) {
+            return false;
+        }
+        throw new IOException("Corrupt binary ARF file: " + file);
+    }
+
+    public UUID readUuid() throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    public String readCoded() throws IOException {
+        int code = in.readInt();
+        if (code == values.size()) {
+            values.add(in.readUTF());
+        }
+        return values.get(code);
+    }
+
+    public String readText() throws IOException {
+        int length = in.readInt();
+        if (length > textBuf.length) {
+            textBuf = new byte[Math.max(length, textBuf.length * 2)];
+        }
+        in.readFully(textBuf, 0, length);
+        return new String(textBuf, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    public int readInt() throws IOException {
+        return in.readInt();
+    }
+
+    public long readTime() throws IOException {
+        return in.readLong();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
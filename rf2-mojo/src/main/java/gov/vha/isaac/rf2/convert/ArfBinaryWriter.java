@@ -0,0 +1,199 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * Binary form of an ARF concepts, descriptions or relationships file, read by
+ * sct1-arf-to-econcepts with {@link ArfBinaryReader}.
+ *
+ * The file holds the same columns as the ARF text file, in the same order,
+ * but UUIDs are written as two <code>long</code>s and dates as time
+ * milliseconds, so the reader parses no UUID or date strings. Columns with few
+ * distinct values (status, type, path, author, module) are written as codes;
+ * the first occurrence of a code is followed by its value.
+ *
+ * <pre>
+ * file   = MAGIC kind { RECORD column... } END
+ * uuid   = msb lsb
+ * coded  = code [ UTF value, if code is new ]
+ * text   = length UTF-8 bytes
+ * </pre>
+ */
+public class ArfBinaryWriter implements Closeable {
+
+    public static final String FILE_EXTENSION = ".arfb";
+    public static final byte CONCEPTS = 1;
+    public static final byte DESCRIPTIONS = 2;
+    public static final byte RELATIONSHIPS = 3;
+    static final long MAGIC = 0x41524642494e3031L; // "ARFBIN01"
+    static final byte RECORD = 1;
+    static final byte END = 0;
+    private final File file;
+    private final DataOutputStream out;
+    private final HashMap<String, Integer> codes = new HashMap<>();
+    private final HashMap<Long, Integer> sctIdCodes = new HashMap<>();
+
+    public ArfBinaryWriter(File f, byte kind) throws IOException {
+        this.file = f;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16));
+        out.writeLong(MAGIC);
+        out.writeByte(kind);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void beginRecord() throws IOException {
+        out.writeByte(RECORD);
+    }
+
+    public void writeUuid(UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Writes a UUID given as a string. The 36 character form of
+     * <code>UUID.toString()</code> is decoded without creating a UUID.
+     */
+    public void writeUuid(String uuidStr) throws IOException {
+        if (uuidStr.length() == 36 && uuidStr.charAt(8) == '-' && uuidStr.charAt(13) == '-'
+                && uuidStr.charAt(18) == '-' && uuidStr.charAt(23) == '-') {
+            long p0 = parseHex(uuidStr, 0, 8);
+            long p1 = parseHex(uuidStr, 9, 13);
+            long p2 = parseHex(uuidStr, 14, 18);
+            long p3 = parseHex(uuidStr, 19, 23);
+            long p4 = parseHex(uuidStr, 24, 36);
+            if (p0 >= 0 && p1 >= 0 && p2 >= 0 && p3 >= 0 && p4 >= 0) {
+                out.writeLong(p0 << 32 | p1 << 16 | p2);
+                out.writeLong(p3 << 48 | p4);
+                return;
+            }
+        }
+        writeUuid(UUID.fromString(uuidStr));
+    }
+
+    /**
+     * @return value of the hex digits, -1 if any character is not a hex digit
+     */
+    private static long parseHex(String s, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(s.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Writes the UUID of the SCTID as resolved by the id resolver.
+     */
+    public void writeSctId(long sctId, IdResolver ids) throws IOException {
+        Sct2_IdLookUp lookUp = ids.getIdLookUp();
+        int idx = lookUp.indexOf(sctId);
+        if (idx < 0) {
+            writeUuid(ids.convertNotCachedSctIdToUuid(sctId));
+        } else {
+            out.writeLong(lookUp.getUuidMsb(idx));
+            out.writeLong(lookUp.getUuidLsb(idx));
+        }
+    }
+
+    /**
+     * Writes a column value with few distinct values as a code.
+     * <code>null</code> is written as "null", the same as in ARF text.
+     */
+    public void writeCoded(String value) throws IOException {
+        if (value == null) {
+            value = "null";
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = codes.size();
+            codes.put(value, code);
+            out.writeInt(code);
+            out.writeUTF(value);
+        } else {
+            out.writeInt(code);
+        }
+    }
+
+    /**
+     * Writes the UUID string of a SCTID with few distinct values, such as a
+     * relationship type, as a code. The UUID is resolved once per SCTID.
+     */
+    public void writeCodedSctId(long sctId, IdResolver ids) throws IOException {
+        Integer code = sctIdCodes.get(sctId);
+        if (code == null) {
+            String value = ids.convertSctIdToUuidStr(sctId);
+            code = codes.get(value);
+            if (code == null) {
+                writeCoded(value);
+                sctIdCodes.put(sctId, codes.get(value));
+                return;
+            }
+            sctIdCodes.put(sctId, code);
+        }
+        out.writeInt(code);
+    }
+
+    /**
+     * Writes free text, such as a description term, UTF-8 encoded.
+     */
+    public void writeText(String text) throws IOException {
+        byte[] b = String.valueOf(text).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    public void writeInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    /**
+     * Writes a date as time milliseconds.
+     */
+    public void writeTime(long time) throws IOException {
+        out.writeLong(time);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.writeByte(END);
+        } finally {
+            out.close();
+        }
+    }
+}
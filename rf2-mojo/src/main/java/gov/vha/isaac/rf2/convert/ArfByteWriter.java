@@ -0,0 +1,294 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * ARF output file written as UTF-8 bytes.
+ *
+ * Fields are encoded straight into one reusable byte buffer which is flushed
+ * to a {@link FileChannel} when full. UUIDs are hex encoded from their two
+ * <code>long</code> halves, dates from their digits and constant values are
+ * appended as pre-encoded bytes, so writing a line creates no
+ * <code>String</code>. The bytes are the
+ * same as those of a <code>BufferedWriter</code> over a UTF-8
+ * <code>OutputStreamWriter</code>. Not thread safe.
+ */
+public class ArfByteWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20; // bytes
+    private static final int UUID_LENGTH = 36;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = encode("null");
+    private static final byte[] ACTIVE_STATUS = encode(Rf2x.ACTIVE_STATUS_UUID_STR);
+    private static final byte[] INACTIVE_STATUS = encode(Rf2x.INACTIVE_STATUS_UUID_STR);
+    private static final byte[] AUTHOR = encode(Rf2Defaults.getAuthorUuidStr());
+    private final File file;
+    private final FileOutputStream out;
+    private final FileChannel channel;
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private final ByteBuffer byteBuffer = ByteBuffer.wrap(buf);
+    private int pos;
+
+    public ArfByteWriter(File f) throws IOException {
+        this.file = f;
+        this.out = new FileOutputStream(f);
+        this.channel = out.getChannel();
+    }
+
+    /**
+     * @return UTF-8 encoding of a constant field value
+     */
+    public static byte[] encode(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public ArfByteWriter append(byte[] b) throws IOException {
+        if (b.length > buf.length - pos) {
+            flushBuffer();
+            if (b.length > buf.length) {
+                channelWrite(ByteBuffer.wrap(b));
+                return this;
+            }
+        }
+        System.arraycopy(b, 0, buf, pos, b.length);
+        pos += b.length;
+        return this;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of the string, "null" for
+     * <code>null</code>.
+     */
+    public ArfByteWriter append(String s) throws IOException {
+        if (s == null) {
+            return append(NULL);
+        }
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            if (buf.length - pos < 4) {
+                flushBuffer();
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xf0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = '?'; // unpaired, replaced as the UTF-8 encoder does
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends the decimal digits of the value.
+     */
+    public ArfByteWriter append(long value) throws IOException {
+        if (buf.length - pos < 20) {
+            flushBuffer();
+        }
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return append(Long.toString(value));
+            }
+            buf[pos++] = '-';
+            value = -value;
+        }
+        int end = pos + digitCount(value);
+        int i = end;
+        do {
+            buf[--i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        pos = end;
+        return this;
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Appends the UUID in the lower case form of <code>UUID.toString()</code>.
+     */
+    public ArfByteWriter appendUuid(UUID uuid) throws IOException {
+        return appendUuid(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public ArfByteWriter appendUuid(long msb, long lsb) throws IOException {
+        if (buf.length - pos < UUID_LENGTH) {
+            flushBuffer();
+        }
+        hex(msb >>> 32, 8);
+        buf[pos++] = '-';
+        hex(msb >>> 16, 4);
+        buf[pos++] = '-';
+        hex(msb, 4);
+        buf[pos++] = '-';
+        hex(lsb >>> 48, 4);
+        buf[pos++] = '-';
+        hex(lsb, 12);
+        return this;
+    }
+
+    private void hex(long value, int digits) {
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            buf[i] = HEX[(int) value & 0xf];
+            value >>>= 4;
+        }
+        pos += digits;
+    }
+
+    /**
+     * Appends the UUID of the SCTID as resolved by the id resolver.
+     */
+    public ArfByteWriter appendSctId(long sctId, IdResolver ids) throws IOException {
+        Sct2_IdLookUp lookUp = ids.getIdLookUp();
+        int idx = lookUp.indexOf(sctId);
+        if (idx < 0) {
+            return appendUuid(ids.convertNotCachedSctIdToUuid(sctId));
+        }
+        return appendUuid(lookUp.getUuidMsb(idx), lookUp.getUuidLsb(idx));
+    }
+
+    /**
+     * Appends the RF2 active or inactive status UUID.
+     */
+    public ArfByteWriter appendStatus(boolean active) throws IOException {
+        return append(active ? ACTIVE_STATUS : INACTIVE_STATUS);
+    }
+
+    /**
+     * Appends the default author UUID, see {@link Rf2Defaults}.
+     */
+    public ArfByteWriter appendAuthor() throws IOException {
+        return append(AUTHOR);
+    }
+
+    /**
+     * Appends the time as "yyyy-MM-dd HH:mm:ss".
+     */
+    public ArfByteWriter appendDate(long time) throws IOException {
+        Rf2EffectiveTime.Fields f = Rf2EffectiveTime.fields(time);
+        if (!f.plain) {
+            return append(f.date);
+        }
+        if (buf.length - pos < 19) {
+            flushBuffer();
+        }
+        digits(f.year, 4);
+        buf[pos++] = '-';
+        digits(f.month, 2);
+        buf[pos++] = '-';
+        digits(f.day, 2);
+        buf[pos++] = ' ';
+        digits(f.hour, 2);
+        buf[pos++] = ':';
+        digits(f.minute, 2);
+        buf[pos++] = ':';
+        digits(f.second, 2);
+        return this;
+    }
+
+    private void digits(int value, int count) {
+        for (int i = pos + count - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += count;
+    }
+
+    /**
+     * Appends the value of a code of the dictionary.
+     */
+    public ArfByteWriter appendUuidCode(Rf2Dictionary uuids, int code) throws IOException {
+        if (code == Rf2Dictionary.NULL_CODE) {
+            return append(NULL);
+        }
+        return append(uuids.getBytes(code));
+    }
+
+    public ArfByteWriter tab() throws IOException {
+        if (pos == buf.length) {
+            flushBuffer();
+        }
+        buf[pos++] = '\t';
+        return this;
+    }
+
+    public ArfByteWriter endLine() throws IOException {
+        if (buf.length - pos < 2) {
+            flushBuffer();
+        }
+        buf[pos++] = '\r';
+        buf[pos++] = '\n';
+        return this;
+    }
+
+    private void flushBuffer() throws IOException {
+        byteBuffer.clear().limit(pos);
+        channelWrite(byteBuffer);
+        pos = 0;
+    }
+
+    private void channelWrite(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) {
+            channel.write(b);
+        }
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * ARF concepts, descriptions or relationships output of the RF2 mojos,
+ * written either as ARF text or as a binary ARF file for sct1-arf-to-econcepts.
+ */
+public class ArfComponentWriter implements Closeable {
+
+    private final ArfByteWriter text;
+    private final ArfBinaryWriter binary;
+    private final IdResolver ids;
+
+    /**
+     * @param baseName file name without extension, ".txt" or
+     * {@link ArfBinaryWriter#FILE_EXTENSION} is appended. A file of the other
+     * format left by an earlier run is removed, as sct1-arf-to-econcepts reads
+     * both.
+     * @param kind the {@link ArfBinaryWriter} component kind of the file
+     */
+    public ArfComponentWriter(File dir, String baseName, byte kind, boolean binaryArf, IdResolver ids)
+            throws IOException {
+        File textFile = new File(dir, baseName + ".txt");
+        File binaryFile = new File(dir, baseName + ArfBinaryWriter.FILE_EXTENSION);
+        if (binaryArf) {
+            deleteStale(textFile);
+            this.text = null;
+            this.binary = new ArfBinaryWriter(binaryFile, kind);
+        } else {
+            deleteStale(binaryFile);
+            this.text = new ArfByteWriter(textFile);
+            this.binary = null;
+        }
+        this.ids = ids;
+    }
+
+    private static void deleteStale(File f) throws IOException {
+        if (f.exists() && !f.delete()) {
+            throw new IOException("FAILED: removing stale ARF file " + f);
+        }
+    }
+
+    public File getFile() {
+        return binary != null ? binary.getFile() : text.getFile();
+    }
+
+    public void write(Sct2_ConRecord c) throws IOException, ParseException {
+        if (binary != null) {
+            c.writeArfBinary(binary, ids);
+        } else {
+            c.writeArf(text, ids);
+        }
+    }
+
+    public void write(Sct2_DesRecord d) throws IOException, ParseException {
+        if (binary != null) {
+            d.writeArfBinary(binary, ids);
+        } else {
+            d.writeArf(text, ids);
+        }
+    }
+
+    public void write(Sct2_RelTable rels, int row) throws IOException, ParseException {
+        if (binary != null) {
+            rels.writeArfBinary(row, binary, ids);
+        } else {
+            rels.writeArf(row, text, ids);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (binary != null) {
+            binary.close();
+        } else {
+            text.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SCTID/UUID resolution for one conversion.
+ *
+ * Each mojo execution opens its own resolver and passes it to the record
+ * parsers and writers, so conversions in different reactor modules do not
+ * share state. Lookups are read only and counters are lock free; one
+ * resolver may be used from several converting threads.
+ */
+public class IdResolver {
+
+    // SCTIDs not in the cache whose computed UUIDs are remembered
+    private static final int GENERATED_UUID_CACHE_SIZE = 1 << 20;
+    private final Sct2_IdLookUp idLookUp;
+    private final LongAdder notMappedCounter = new LongAdder();
+    private final UuidT3Cache generatedUuids = new UuidT3Cache(GENERATED_UUID_CACHE_SIZE);
+    private final Rf2Dictionary uuids = new Rf2Dictionary();
+    private final ConcurrentHashMap<Long, Integer> moduleCodes = new ConcurrentHashMap<>();
+
+    public IdResolver(Sct2_IdLookUp idLookUp) {
+        this.idLookUp = idLookUp;
+    }
+
+    /**
+     * Opens the SCTID/UUID cache file, an empty cache is used if the file
+     * does not exist.
+     */
+    public static IdResolver open(File idCacheFile, boolean enableUUIDtoSCTIDMap)
+            throws IOException {
+
+        System.out.println(":::      " + idCacheFile.getAbsolutePath());
+        if (!idCacheFile.exists()) {
+            System.out.println(":::      SCTID/UUID cache file does not exist!!!@!");
+            // Initialize with an empty id list
+            return new IdResolver(new Sct2_IdLookUp(new ArrayList<Sct2_IdCompact>(), enableUUIDtoSCTIDMap));
+        } else {
+            System.out.println(":::      SCTID/UUID cache file exists!!!@!");
+            return new IdResolver(new Sct2_IdLookUp(idCacheFile, enableUUIDtoSCTIDMap));
+        }
+    }
+
+    public Sct2_IdLookUp getIdLookUp() {
+        return idLookUp;
+    }
+
+    /**
+     * @return module and path UUID strings of the records parsed with this
+     * resolver
+     */
+    public Rf2Dictionary getUuidDictionary() {
+        return uuids;
+    }
+
+    public String convertSctIdToUuidStr(long id) {
+        return convertSctIdToUuid(id).toString();
+    }
+
+    /**
+     * @return the cached UUID, or the computed type 3 UUID if the SCTID is
+     * not in the cache
+     */
+    public UUID convertSctIdToUuid(long id) {
+        UUID uuid = idLookUp.getUuid(id);
+        if (uuid == null) {
+            return convertNotCachedSctIdToUuid(id);
+        }
+        return uuid;
+    }
+
+    /**
+     * Resolves an SCTID already known not to be in the cache, see
+     * {@link Sct2_IdLookUp#indexOf(long)}.
+     *
+     * @return the computed type 3 UUID
+     */
+    public UUID convertNotCachedSctIdToUuid(long id) {
+        notMappedCounter.increment();
+        return generatedUuids.get(id);
+    }
+
+    /**
+     * @return code in {@link #getUuidDictionary()} of the UUID string of the
+     * module, the UUID is resolved once per module
+     */
+    public int getModuleCode(long moduleSctId) {
+        Integer code = moduleCodes.get(moduleSctId);
+        if (code == null) {
+            code = uuids.getCode(convertSctIdToUuidStr(moduleSctId));
+            moduleCodes.put(moduleSctId, code);
+        }
+        return code;
+    }
+
+    /**
+     * @return interned UUID string of the module
+     */
+    public String getModuleUuidStr(long moduleSctId) {
+        return uuids.get(getModuleCode(moduleSctId));
+    }
+
+    public boolean isSctIdInUuidCache(long sctId) {
+        return idLookUp.getUuid(sctId) != null;
+    }
+
+    public Long getSCTIDforUUID(UUID uuid) {
+        return idLookUp.getSCTId(uuid);
+    }
+
+    /**
+     * @return number of lookups of SCTIDs not in the cache
+     */
+    public long getNotMappedCount() {
+        return notMappedCounter.sum();
+    }
+
+    /**
+     * @return not mapped lookups answered from the generated UUID cache
+     */
+    public long getGeneratedUuidHits() {
+        return generatedUuids.getHits();
+    }
+
+    /**
+     * @return not mapped lookups which computed a type 3 UUID
+     */
+    public long getGeneratedUuidMisses() {
+        return generatedUuids.getMisses();
+    }
+
+    /**
+     * @return one line summary of the lookup counters for the build log
+     */
+    public String getStatistics() {
+        return "UUID notMappedCounter=" + getNotMappedCount()
+                + " generated UUID cache hits=" + getGeneratedUuidHits()
+                + " misses=" + getGeneratedUuidMisses();
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Output file whose records are produced by a pool of worker threads and
+ * written in submission order.
+ *
+ * Each submitted task returns the serialized bytes of one record. A single
+ * writer thread takes the pending results from a bounded queue in the order
+ * they were submitted and appends them to the file, so the output does not
+ * depend on which worker finishes first. The bounded queue keeps the
+ * submitting thread at most a few records per worker ahead of the writer.
+ *
+ * A record may carry a tag, which is passed with the record's position in the
+ * file to the optional {@link RecordListener}, for example to index the file.
+ */
+public class OrderedByteWriter implements Closeable {
+
+    public interface RecordListener {
+
+        /**
+         * Called on the writer thread after each non empty record.
+         *
+         * @param tag the tag the record was queued with
+         * @param offset file position of the record's first byte
+         * @param length record size in bytes
+         */
+        void recordWritten(Object tag, long offset, int length) throws IOException;
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16; // bytes
+    private static final int QUEUE_PER_THREAD = 16;
+    private final Pending endOfQueue = new Pending(null, null);
+    private final File file;
+    private final OutputStream out;
+    private final RecordListener listener;
+    private final ExecutorService workers;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writerThread;
+    private volatile Throwable failure;
+    private volatile long writtenCount;
+    private long writtenBytes;
+    private boolean closed;
+
+    /**
+     * @param threads number of worker threads building records
+     */
+    public OrderedByteWriter(File f, int threads) throws IOException {
+        this(f, threads, null);
+    }
+
+    /**
+     * @param threads number of worker threads building records
+     * @param listener notified of each record written, may be <code>null</code>
+     */
+    public OrderedByteWriter(File f, int threads, RecordListener listener) throws IOException {
+        this.file = f;
+        this.listener = listener;
+        this.out = new BufferedOutputStream(new FileOutputStream(f), BUFFER_SIZE);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "ordered-worker-" + file.getName());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, threads) * QUEUE_PER_THREAD);
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "ordered-writer-" + f.getName());
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    private void drain() {
+        while (true) {
+            Pending pending;
+            try {
+                pending = queue.take();
+            } catch (InterruptedException ex) {
+                fail(new InterruptedIOException("ordered writer interrupted: " + file));
+                continue;
+            }
+            if (pending == endOfQueue) {
+                return;
+            }
+            if (failure != null) {
+                // keep taking so the submitter does not block on a full queue
+                pending.record.cancel(true);
+                continue;
+            }
+            try {
+                byte[] record = pending.record.get();
+                if (record != null && record.length > 0) {
+                    out.write(record);
+                    if (listener != null) {
+                        listener.recordWritten(pending.tag, writtenBytes, record.length);
+                    }
+                    writtenBytes += record.length;
+                    writtenCount++;
+                }
+            } catch (ExecutionException ex) {
+                fail(ex.getCause());
+            } catch (InterruptedException ex) {
+                fail(new InterruptedIOException("ordered writer interrupted: " + file));
+            } catch (Throwable ex) {
+                // cancelled records, listener and output errors, the thread
+                // must outlive them or the submitter blocks for ever
+                fail(ex);
+            }
+        }
+    }
+
+    private void fail(Throwable ex) {
+        if (failure == null) {
+            failure = ex;
+        }
+    }
+
+    /**
+     * Queues a task building the bytes of the next record. Blocks while the
+     * queue of unwritten records is full. A task may return <code>null</code>
+     * or an empty array to write nothing.
+     */
+    public void submit(Callable<byte[]> task) throws IOException {
+        submit(null, task);
+    }
+
+    /**
+     * Queues a task building the bytes of the next record, which is passed
+     * to the listener with <code>tag</code>.
+     */
+    public void submit(Object tag, Callable<byte[]> task) throws IOException {
+        checkFailure();
+        enqueue(new Pending(tag, workers.submit(task)));
+    }
+
+    /**
+     * Queues the bytes of a record which need no building, after the records
+     * already queued.
+     */
+    public void write(Object tag, final byte[] record) throws IOException {
+        checkFailure();
+        FutureTask<byte[]> done = new FutureTask<byte[]>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return record;
+            }
+        });
+        done.run();
+        enqueue(new Pending(tag, done));
+    }
+
+    private void enqueue(Pending pending) throws IOException {
+        try {
+            queue.put(pending);
+        } catch (InterruptedException ex) {
+            pending.record.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted queueing records for " + file);
+        }
+    }
+
+    /**
+     * @return the number of non empty records written so far
+     */
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("FAILED: writing " + file, failure);
+        }
+    }
+
+    /**
+     * Waits for the queued records to be written and closes the file. If the
+     * calling thread is interrupted the records not yet written are cancelled,
+     * but the file is only closed once the writer thread has stopped.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    queue.put(endOfQueue);
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = abort(interrupted);
+                }
+            }
+            while (writerThread.isAlive()) {
+                try {
+                    writerThread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = abort(interrupted);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+            out.close();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted closing " + file);
+        }
+        checkFailure();
+    }
+
+    /**
+     * Makes the writer thread cancel the records still queued.
+     *
+     * @return true
+     */
+    private boolean abort(boolean interrupted) {
+        if (!interrupted) {
+            fail(new InterruptedIOException("interrupted closing " + file));
+            // tasks which never start must still complete for the writer
+            for (Runnable task : workers.shutdownNow()) {
+                ((Future<?>) task).cancel(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A queued record and its tag.
+     */
+    private static class Pending {
+
+        final Object tag;
+        final Future<byte[]> record;
+
+        Pending(Object tag, Future<byte[]> record) {
+            this.tag = tag;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses one RF2 file as several line aligned byte range chunks on a
+ * {@link ForkJoinPool}.
+ *
+ * Chunk results are concatenated in file order, so the returned list is
+ * identical to the one a sequential {@link Rf2Reader} pass would produce and
+ * the later stable sort and status merge in attachStatus see the same input.
+ * Files smaller than two chunks are parsed on the calling thread.
+ */
+public class Rf2ChunkedParser {
+
+    private static final long CHUNK_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Converts the current record of the reader to a record object. Must not
+     * keep state between calls, it is called concurrently for different
+     * chunks.
+     */
+    public interface RowParser<T> {
+
+        T parseRow(Rf2Reader r) throws IOException, ParseException;
+    }
+
+    /**
+     * Converts all records of one chunk, for parsers which fill column
+     * stores rather than building an object per record. Called concurrently
+     * for different chunks.
+     */
+    public interface ChunkParser<C> {
+
+        C parseChunk(Rf2Reader r) throws IOException, ParseException;
+    }
+
+    public static <T> ArrayList<T> parse(Rf2File f, final RowParser<T> rowParser)
+            throws IOException, ParseException {
+        List<ArrayList<T>> chunks = parseChunks(f, new ChunkParser<ArrayList<T>>() {
+            @Override
+            public ArrayList<T> parseChunk(Rf2Reader r) throws IOException, ParseException {
+                ArrayList<T> a = new ArrayList<>();
+                while (r.next()) {
+                    a.add(rowParser.parseRow(r));
+                }
+                return a;
+            }
+        });
+        if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+
+        int total = 0;
+        for (ArrayList<T> chunk : chunks) {
+            total += chunk.size();
+        }
+        ArrayList<T> a = new ArrayList<>(total);
+        for (ArrayList<T> chunk : chunks) {
+            a.addAll(chunk);
+        }
+        return a;
+    }
+
+    /**
+     * @return the chunk results in file order
+     */
+    public static <C> List<C> parseChunks(Rf2File f, ChunkParser<C> chunkParser)
+            throws IOException, ParseException {
+        long[] bounds = computeChunkBounds(f, CHUNK_SIZE);
+        List<C> chunks = new ArrayList<>();
+        if (bounds.length <= 2) {
+            chunks.add(parseChunk(f, 0, -1, chunkParser));
+            return chunks;
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        List<ForkJoinTask<C>> tasks = new ArrayList<>();
+        for (int i = 0; i < bounds.length - 1; i++) {
+            final long start = bounds[i];
+            final long end = bounds[i + 1];
+            final Rf2File rf2File = f;
+            final ChunkParser<C> parser = chunkParser;
+            tasks.add(pool.submit(new Callable<C>() {
+                @Override
+                public C call() throws Exception {
+                    return parseChunk(rf2File, start, end, parser);
+                }
+            }));
+        }
+
+        try {
+            for (ForkJoinTask<C> task : tasks) {
+                chunks.add(task.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted parsing " + f.getFile(), ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof ParseException) {
+                throw (ParseException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("FAILED: parsing " + f.getFile(), cause);
+        }
+        return chunks;
+    }
+
+    private static <C> C parseChunk(Rf2File f, long start, long end, ChunkParser<C> chunkParser)
+            throws IOException, ParseException {
+        try (Rf2Reader r = new Rf2Reader(f, start, end)) {
+            return chunkParser.parseChunk(r);
+        }
+    }
+
+    /**
+     * @return ascending file positions where each chunk starts, the last
+     * entry is the file size. Every position except 0 follows a line feed.
+     */
+    static long[] computeChunkBounds(Rf2File f, long chunkSize) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(f.getFile(), "r")) {
+            long size = raf.length();
+            int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+            long[] bounds = new long[chunks + 1];
+            int count = 1; // bounds[0] == 0
+            byte[] buf = new byte[8192];
+            for (int i = 1; i < chunks; i++) {
+                long pos = nextLineStart(raf, Math.max(i * chunkSize, bounds[count - 1]), buf);
+                if (pos >= size) {
+                    break;
+                }
+                if (pos > bounds[count - 1]) {
+                    bounds[count++] = pos;
+                }
+            }
+            bounds[count++] = size;
+            long[] result = new long[count];
+            System.arraycopy(bounds, 0, result, 0, count);
+            return result;
+        }
+    }
+
+    private static long nextLineStart(RandomAccessFile raf, long from, byte[] buf) throws IOException {
+        raf.seek(from);
+        long pos = from;
+        int n;
+        while ((n = raf.read(buf)) > 0) {
+            for (int i = 0; i < n; i++) {
+                if (buf[i] == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return pos;
+    }
+}
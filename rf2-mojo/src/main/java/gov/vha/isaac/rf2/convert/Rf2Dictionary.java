@@ -0,0 +1,85 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the few distinct values of a column, such as module or path UUID
+ * strings, as small int codes. Codes are assigned in order of first use and
+ * each value is also kept UTF-8 encoded for byte level output.
+ *
+ * Lookups of known values and of codes do not lock, so records can be
+ * parsed and written from several threads against one dictionary.
+ */
+public class Rf2Dictionary {
+
+    /**
+     * Code of a <code>null</code> value.
+     */
+    public static final int NULL_CODE = -1;
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[0];
+    private volatile byte[][] bytes = new byte[0][];
+
+    public int getCode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            return add(value);
+        }
+        return code;
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int newCode = values.length;
+        byte[][] newBytes = Arrays.copyOf(bytes, newCode + 1);
+        newBytes[newCode] = value.getBytes(StandardCharsets.UTF_8);
+        String[] newValues = Arrays.copyOf(values, newCode + 1);
+        newValues[newCode] = value;
+        // arrays are published before the code can be found
+        bytes = newBytes;
+        values = newValues;
+        codes.put(value, newCode);
+        return newCode;
+    }
+
+    /**
+     * @return the interned value, the same instance for every lookup
+     */
+    public String get(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    /**
+     * @return UTF-8 encoding of the value, shared and not to be modified
+     */
+    public byte[] getBytes(int code) {
+        return bytes[code];
+    }
+
+    public int size() {
+        return values.length;
+    }
+}
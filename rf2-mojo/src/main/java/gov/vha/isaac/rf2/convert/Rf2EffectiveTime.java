@@ -0,0 +1,247 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Codec between RF2 yyyyMMdd effective times, ARF "yyyy-MM-dd HH:mm:ss" date
+ * strings and <code>long</code> time milliseconds.
+ *
+ * A release only uses a few hundred distinct effective times, so results are
+ * cached in tables keyed on the yyyyMMdd <code>int</code>; after the first
+ * record of a date every conversion is a table lookup. Times are local
+ * midnight in the default time zone, the same values the former
+ * <code>SimpleDateFormat</code> conversion produced. All methods are thread
+ * safe.
+ */
+public final class Rf2EffectiveTime {
+
+    private static final int FIRST_YEAR = 1900;
+    private static final int LAST_YEAR = 2199;
+    private static final int SLOTS = (LAST_YEAR - FIRST_YEAR + 1) * 12 * 31;
+    private static final long NOT_CACHED = Long.MIN_VALUE;
+    private static final AtomicLongArray times = new AtomicLongArray(SLOTS);
+    private static final AtomicReferenceArray<String> dates = new AtomicReferenceArray<>(SLOTS);
+    // time -> date string, direct mapped
+    private static final int FORMAT_CACHE_SIZE = 1024;
+    private static final AtomicReferenceArray<Fields> formatted = new AtomicReferenceArray<>(FORMAT_CACHE_SIZE);
+    // fallback for date strings which are not "yyyy-MM-dd 00:00:00"
+    private static final ThreadLocal<SimpleDateFormat> formatter = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        }
+    };
+
+    static {
+        for (int i = 0; i < SLOTS; i++) {
+            times.set(i, NOT_CACHED);
+        }
+    }
+
+    private Rf2EffectiveTime() {
+    }
+
+    /**
+     * Calendar fields of a time in the default time zone, with its
+     * "yyyy-MM-dd HH:mm:ss" string.
+     */
+    public static final class Fields {
+
+        final long time;
+        public final String date;
+        public final int year;
+        public final int month; // 1 to 12
+        public final int day;
+        public final int hour;
+        public final int minute;
+        public final int second;
+        // AD year of four digits, date is exactly the fields
+        public final boolean plain;
+
+        Fields(long time) {
+            Calendar c = new GregorianCalendar();
+            c.setTimeInMillis(time);
+            this.time = time;
+            this.date = formatter.get().format(new Date(time));
+            this.year = c.get(Calendar.YEAR);
+            this.month = c.get(Calendar.MONTH) + 1;
+            this.day = c.get(Calendar.DAY_OF_MONTH);
+            this.hour = c.get(Calendar.HOUR_OF_DAY);
+            this.minute = c.get(Calendar.MINUTE);
+            this.second = c.get(Calendar.SECOND);
+            this.plain = c.get(Calendar.ERA) == GregorianCalendar.AD && year >= 1000 && year <= 9999;
+        }
+    }
+
+    /**
+     * @return table slot of a yyyyMMdd value, -1 if outside the cached range
+     */
+    private static int slot(int effectiveTime) {
+        int year = effectiveTime / 10000;
+        int month = (effectiveTime / 100) % 100;
+        int day = effectiveTime % 100;
+        if (year < FIRST_YEAR || year > LAST_YEAR || month < 1 || month > 12 || day < 1 || day > 31) {
+            return -1;
+        }
+        return ((year - FIRST_YEAR) * 12 + month - 1) * 31 + day - 1;
+    }
+
+    /**
+     * Convert yyyyMMdd effective time to <code>long</code> time milliseconds.
+     */
+    public static long toTime(int effectiveTime) {
+        int slot = slot(effectiveTime);
+        if (slot < 0) {
+            return computeTime(effectiveTime);
+        }
+        long time = times.get(slot);
+        if (time == NOT_CACHED) {
+            time = computeTime(effectiveTime);
+            times.set(slot, time);
+        }
+        return time;
+    }
+
+    private static long computeTime(int effectiveTime) {
+        // lenient calendar in the default zone, as SimpleDateFormat.parse
+        Calendar c = new GregorianCalendar();
+        c.clear();
+        c.set(effectiveTime / 10000, (effectiveTime / 100) % 100 - 1, effectiveTime % 100);
+        return c.getTimeInMillis();
+    }
+
+    /**
+     * Convert yyyyMMdd effective time to "yyyy-MM-dd 00:00:00". Repeated calls
+     * for the same date return the same <code>String</code> instance.
+     */
+    public static String toDate(int effectiveTime) {
+        int slot = slot(effectiveTime);
+        if (slot < 0) {
+            return computeDate(effectiveTime);
+        }
+        String date = dates.get(slot);
+        if (date == null) {
+            date = computeDate(effectiveTime);
+            if (!dates.compareAndSet(slot, null, date)) {
+                date = dates.get(slot);
+            }
+        }
+        return date;
+    }
+
+    private static String computeDate(int effectiveTime) {
+        int year = effectiveTime / 10000;
+        int month = (effectiveTime / 100) % 100;
+        int day = effectiveTime % 100;
+        StringBuilder sb = new StringBuilder(19);
+        sb.append(year).append('-');
+        if (month < 10) {
+            sb.append('0');
+        }
+        sb.append(month).append('-');
+        if (day < 10) {
+            sb.append('0');
+        }
+        sb.append(day).append(" 00:00:00");
+        return sb.toString();
+    }
+
+    /**
+     * Parse an 8 digit "yyyyMMdd" effective time.
+     *
+     * @return the yyyyMMdd value, -1 if not 8 digits
+     */
+    public static int parseEffectiveTime(CharSequence s) {
+        if (s.length() != 8) {
+            return -1;
+        }
+        return parseDigits(s, 0, 8);
+    }
+
+    /**
+     * Parse a "yyyy-MM-dd 00:00:00" date.
+     *
+     * @return the yyyyMMdd value, -1 if the string has any other form
+     */
+    public static int parseDate(CharSequence s) {
+        if (s.length() != 19 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != ' '
+                || s.charAt(13) != ':' || s.charAt(16) != ':'
+                || s.charAt(11) != '0' || s.charAt(12) != '0'
+                || s.charAt(14) != '0' || s.charAt(15) != '0'
+                || s.charAt(17) != '0' || s.charAt(18) != '0') {
+            return -1;
+        }
+        int year = parseDigits(s, 0, 4);
+        int month = parseDigits(s, 5, 7);
+        int day = parseDigits(s, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return -1;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    private static int parseDigits(CharSequence s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Convert "yyyy-MM-dd HH:mm:ss" date to <code>long</code> time
+     * milliseconds.
+     */
+    public static long parseDateTime(String date) throws ParseException {
+        int effectiveTime = parseDate(date);
+        if (effectiveTime >= 0) {
+            return toTime(effectiveTime);
+        }
+        return formatter.get().parse(date).getTime();
+    }
+
+    /**
+     * Convert <code>long</code> time milliseconds to "yyyy-MM-dd HH:mm:ss".
+     */
+    public static String format(long time) {
+        return fields(time).date;
+    }
+
+    /**
+     * @return the calendar fields of the time, cached like {@link #format}
+     */
+    public static Fields fields(long time) {
+        int idx = (int) ((time ^ (time >>> 32)) * 0x9E3779B97F4A7C15L >>> 54) & (FORMAT_CACHE_SIZE - 1);
+        Fields f = formatted.get(idx);
+        if (f == null || f.time != time) {
+            f = new Fields(time);
+            formatted.set(idx, f);
+        }
+        return f;
+    }
+}
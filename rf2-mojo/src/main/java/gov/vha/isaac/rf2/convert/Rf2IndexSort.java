@@ -0,0 +1,64 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+/**
+ * Stable sort of row indexes for column stores. Rows are compared through a
+ * {@link RowComparator} on the columns, so no record objects are built.
+ * Rows which compare equal keep their input order, the same as
+ * <code>Arrays.sort</code> of record objects.
+ */
+public class Rf2IndexSort {
+
+    public interface RowComparator {
+
+        int compare(int x, int y);
+    }
+
+    /**
+     * @return rows 0 to n - 1 in sorted order
+     */
+    public static int[] sort(int n, RowComparator c) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[n], 0, n, c);
+        return order;
+    }
+
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, RowComparator c) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, c);
+        mergeSort(a, tmp, mid, to, c);
+        if (c.compare(a[mid - 1], a[mid]) <= 0) {
+            return; // already in order
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && c.compare(tmp[i], tmp[j]) <= 0)) {
+                a[k] = tmp[i++];
+            } else {
+                a[k] = tmp[j++];
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.util.Arrays;
+
+/**
+ * Growable primitive long array, used to gather SCTIDs while streaming an RF2
+ * file without knowing the record count up front.
+ */
+public class Rf2LongBuffer {
+
+    private long[] values;
+    private int size;
+
+    public Rf2LongBuffer() {
+        this(1024);
+    }
+
+    public Rf2LongBuffer(int initialCapacity) {
+        this.values = new long[Math.max(16, initialCapacity)];
+        this.size = 0;
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1));
+        }
+        values[size++] = value;
+    }
+
+    public long get(int idx) {
+        if (idx >= size) {
+            throw new ArrayIndexOutOfBoundsException(idx);
+        }
+        return values[idx];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return a copy trimmed to the number of values added
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
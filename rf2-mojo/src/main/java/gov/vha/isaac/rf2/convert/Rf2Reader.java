@@ -0,0 +1,252 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Single pass reader over a tab delimited RF2 release file.
+ *
+ * The file is memory mapped and tokenized in place. Column boundaries are
+ * recorded as byte offsets so SCTIDs, effective times and active flags are
+ * parsed directly from the mapped bytes; a <code>String</code> is only
+ * created when {@link #getString(int)} is called, e.g. for description terms.
+ *
+ * The header row is skipped on open. Each call to {@link #next()} advances to
+ * the next record. Records are counted as they are read so callers do not
+ * need to scan the file beforehand to size their arrays.
+ */
+public class Rf2Reader implements Closeable {
+
+    // Mapped window size. Files larger than this are mapped one window at a
+    // time, re-mapped at the start of the first line crossing the window end.
+    private static final int WINDOW_SIZE = 1 << 28;
+    private final Rf2File rf2File;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer buf;
+    private ByteBuffer view; // for bulk copies out of buf
+    private long bufStart; // file position of buf index 0
+    private int pos; // buf index of the next line
+    private int[] colStart = new int[16];
+    private int[] colEnd = new int[16];
+    private int colCount;
+    private byte[] scratch = new byte[256];
+    private int lineNumber;
+    private final int headerLines;
+
+    public Rf2Reader(Rf2File f) throws IOException {
+        this(f, 0, -1);
+    }
+
+    /**
+     * Reader over the byte range <code>[start, end)</code> of the file, used
+     * to parse one chunk of a large file. The range must begin at the start of
+     * a line. The header row is only skipped when <code>start</code> is 0.
+     *
+     * @param end file position to stop at, -1 for end of file
+     */
+    public Rf2Reader(Rf2File f, long start, long end) throws IOException {
+        this.rf2File = f;
+        this.raf = new RandomAccessFile(f.getFile(), "r");
+        this.channel = raf.getChannel();
+        this.fileSize = (end < 0) ? channel.size() : Math.min(end, channel.size());
+        this.headerLines = (start == 0) ? 1 : 0;
+        map(start);
+        this.lineNumber = 0;
+        if (headerLines > 0) {
+            next(); // Header row
+        }
+    }
+
+    private void map(long start) throws IOException {
+        this.bufStart = start;
+        this.buf = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                Math.max(0, Math.min(WINDOW_SIZE, fileSize - start)));
+        this.view = buf.duplicate();
+        this.pos = 0;
+    }
+
+    /**
+     * @return false when there are no more records in the file
+     */
+    public boolean next() throws IOException {
+        if (bufStart + pos >= fileSize) {
+            colCount = 0;
+            return false;
+        }
+
+        int lineEnd = findLineEnd(pos);
+        if (lineEnd < 0) {
+            // line crosses the mapped window
+            map(bufStart + pos);
+            lineEnd = findLineEnd(pos);
+            if (lineEnd < 0) {
+                throw new IOException("FAILED: line longer than mapped window in "
+                        + rf2File.getFile() + " at line " + (lineNumber + 1));
+            }
+        }
+
+        int nextPos = lineEnd + 1;
+        if (lineEnd > pos && buf.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+
+        colCount = 0;
+        int start = pos;
+        for (int i = pos; i < lineEnd; i++) {
+            if (buf.get(i) == '\t') {
+                addColumn(start, i);
+                start = i + 1;
+            }
+        }
+        addColumn(start, lineEnd);
+
+        pos = nextPos;
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * @return buf index of the '\n' ending the line, buf limit at end of
+     * file, or -1 if the line continues beyond the mapped window
+     */
+    private int findLineEnd(int from) {
+        int limit = buf.limit();
+        for (int i = from; i < limit; i++) {
+            if (buf.get(i) == '\n') {
+                return i;
+            }
+        }
+        if (bufStart + limit >= fileSize) {
+            return limit;
+        }
+        return -1;
+    }
+
+    private void addColumn(int start, int end) {
+        if (colCount == colStart.length) {
+            colStart = Arrays.copyOf(colStart, colCount * 2);
+            colEnd = Arrays.copyOf(colEnd, colCount * 2);
+        }
+        colStart[colCount] = start;
+        colEnd[colCount] = end;
+        colCount++;
+    }
+
+    private void checkColumn(int column) {
+        if (column >= colCount) {
+            throw new ArrayIndexOutOfBoundsException("column " + column + " not present in "
+                    + rf2File.getFile().getName() + " line " + lineNumber);
+        }
+    }
+
+    public int getColumnCount() {
+        return colCount;
+    }
+
+    public String getString(int column) {
+        checkColumn(column);
+        int len = colEnd[column] - colStart[column];
+        if (scratch.length < len) {
+            scratch = new byte[Math.max(len, scratch.length * 2)];
+        }
+        view.position(colStart[column]);
+        view.get(scratch, 0, len);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    public long getLong(int column) {
+        checkColumn(column);
+        int i = colStart[column];
+        int end = colEnd[column];
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"\"");
+        }
+        boolean negative = false;
+        if (buf.get(i) == '-') {
+            negative = true;
+            i++;
+            if (i == end) {
+                throw new NumberFormatException("For input string: \"-\"");
+            }
+        }
+        if (end - i > 18) {
+            // may overflow, let the JDK decide
+            return Long.parseLong(getString(column));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(column) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public int getInt(int column) {
+        long value = getLong(column);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + getString(column) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return true if the column starts with "1"
+     */
+    public boolean getBoolean(int column) {
+        checkColumn(column);
+        return colEnd[column] > colStart[column] && buf.get(colStart[column]) == '1';
+    }
+
+    /**
+     * @return line number of the current record within the range read, header
+     * row is line 1
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return number of records read so far, header row excluded
+     */
+    public int getRecordCount() {
+        return Math.max(0, lineNumber - headerLines);
+    }
+
+    public Rf2File getRf2File() {
+        return rf2File;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buf = null;
+        view = null;
+        channel.close();
+        raf.close();
+    }
+}
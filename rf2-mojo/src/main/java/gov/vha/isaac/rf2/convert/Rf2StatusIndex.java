@@ -0,0 +1,241 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Extended status of the AttributeValue refset in columns, sorted by
+ * referencedComponentId and time.
+ *
+ * The index is parsed once and written as statusIndex.idx next to the
+ * SCTID/UUID cache, together with the path, length and modification time of
+ * each AttributeValue file it was built from. Later mojo executions load the
+ * columns from that file instead of parsing and sorting the refset again.
+ * Effective times are stored as yyyyMMdd, so the file does not depend on the
+ * time zone of the JVM which wrote it.
+ */
+public class Rf2StatusIndex {
+
+    private static final Logger LOG = LogManager.getLogger();
+    private static final long MAGIC = 0x5354415449445830L; // "STATIDX0"
+    // DATA COLUMNS
+    private static final int EFFECTIVE_TIME = 1; // effectiveTime
+    private static final int ACTIVE = 2; // active
+    private static final int REFERENCED_COMPONENT_ID = 5; // referencedComponentId
+    private static final int VALUE_ID = 6; // valueId
+    private final long[] referencedComponentId;
+    private final int[] effectiveTime;
+    private final long[] time;
+    private final long[] valueId;
+    private final BitSet active;
+
+    Rf2StatusIndex(long[] referencedComponentId, int[] effectiveTime, long[] valueId, BitSet active) {
+        this.referencedComponentId = referencedComponentId;
+        this.effectiveTime = effectiveTime;
+        this.valueId = valueId;
+        this.active = active;
+        this.time = new long[effectiveTime.length];
+        for (int i = 0; i < effectiveTime.length; i++) {
+            time[i] = Rf2x.convertEffectiveTimeToTime(effectiveTime[i]);
+        }
+    }
+
+    /**
+     * @return index file kept next to the serialized SCTID/UUID cache file
+     */
+    public static File getIndexFile(File idCacheFile) {
+        return new File(idCacheFile.getParentFile(), "statusIndex.idx");
+    }
+
+    /**
+     * Loads the index persisted next to the id cache, or parses the
+     * AttributeValue files and persists the index if it is missing or was
+     * built from other files.
+     */
+    public static Rf2StatusIndex open(File idCacheFile, List<Rf2File> statusFiles) throws IOException {
+        File indexFile = getIndexFile(idCacheFile);
+        if (indexFile.exists()) {
+            Rf2StatusIndex index = read(indexFile, statusFiles);
+            if (index != null) {
+                LOG.info("::: status index: " + index.size() + " records loaded from "
+                        + indexFile.getAbsolutePath());
+                return index;
+            }
+        }
+        Rf2StatusIndex index = parse(statusFiles);
+        write(indexFile, statusFiles, index);
+        LOG.info("::: status index: " + index.size() + " records written to " + indexFile.getAbsolutePath());
+        return index;
+    }
+
+    static Rf2StatusIndex parse(List<Rf2File> statusFiles) throws IOException {
+        Rf2LongBuffer refIds = new Rf2LongBuffer();
+        Rf2LongBuffer times = new Rf2LongBuffer();
+        Rf2LongBuffer values = new Rf2LongBuffer();
+        BitSet isActive = new BitSet();
+        for (Rf2File f : statusFiles) {
+            try (Rf2Reader r = new Rf2Reader(f)) {
+                try {
+                    while (r.next()) {
+                        if (r.getBoolean(ACTIVE)) {
+                            isActive.set(refIds.size());
+                        }
+                        refIds.add(r.getLong(REFERENCED_COMPONENT_ID));
+                        times.add(r.getInt(EFFECTIVE_TIME));
+                        values.add(r.getLong(VALUE_ID));
+                    }
+                } catch (NumberFormatException e) {
+                    LOG.error("Error parsing Refset records: File=" + f.getFile().getName() + " Line=" + r.getLineNumber());
+                    throw e;
+                }
+            }
+        }
+
+        // stable sort by referencedComponentId, time; same order as Arrays.sort of Rf2_RefsetCRecord
+        int n = refIds.size();
+        final long[] refs = refIds.toArray();
+        final long[] eTimes = times.toArray();
+        final long[] millis = new long[n];
+        for (int i = 0; i < n; i++) {
+            millis[i] = Rf2x.convertEffectiveTimeToTime((int) eTimes[i]);
+        }
+        int[] order = Rf2IndexSort.sort(n, new Rf2IndexSort.RowComparator() {
+            @Override
+            public int compare(int x, int y) {
+                int c = Long.compare(refs[x], refs[y]);
+                return c != 0 ? c : Long.compare(millis[x], millis[y]);
+            }
+        });
+
+        long[] sortedRefs = new long[n];
+        int[] sortedTimes = new int[n];
+        long[] sortedValues = new long[n];
+        BitSet sortedActive = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            int j = order[i];
+            sortedRefs[i] = refs[j];
+            sortedTimes[i] = (int) eTimes[j];
+            sortedValues[i] = values.get(j);
+            if (isActive.get(j)) {
+                sortedActive.set(i);
+            }
+        }
+        return new Rf2StatusIndex(sortedRefs, sortedTimes, sortedValues, sortedActive);
+    }
+
+    private static void write(File indexFile, List<Rf2File> statusFiles, Rf2StatusIndex index) throws IOException {
+        File tmpFile = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+        try (DataOutputStream dos = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16))) {
+            dos.writeLong(MAGIC);
+            writeSources(dos, statusFiles);
+            int n = index.size();
+            dos.writeInt(n);
+            for (int i = 0; i < n; i++) {
+                dos.writeLong(index.referencedComponentId[i]);
+                dos.writeInt(index.effectiveTime[i]);
+                dos.writeLong(index.valueId[i]);
+            }
+            long[] activeWords = index.active.toLongArray();
+            dos.writeInt(activeWords.length);
+            for (long word : activeWords) {
+                dos.writeLong(word);
+            }
+        }
+        if (indexFile.exists() && !indexFile.delete()) {
+            tmpFile.delete();
+            throw new IOException("FAILED: replacing " + indexFile);
+        }
+        if (!tmpFile.renameTo(indexFile)) {
+            tmpFile.delete();
+            throw new IOException("FAILED: renaming " + tmpFile + " to " + indexFile);
+        }
+    }
+
+    private static void writeSources(DataOutputStream dos, List<Rf2File> statusFiles) throws IOException {
+        dos.writeInt(statusFiles.size());
+        for (Rf2File f : statusFiles) {
+            dos.writeUTF(f.getFile().getAbsolutePath());
+            dos.writeLong(f.getFile().length());
+            dos.writeLong(f.getFile().lastModified());
+        }
+    }
+
+    /**
+     * @return null if the file was built from other AttributeValue files
+     */
+    private static Rf2StatusIndex read(File indexFile, List<Rf2File> statusFiles) throws IOException {
+        try (DataInputStream dis = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile), 1 << 16))) {
+            if (dis.readLong() != MAGIC || dis.readInt() != statusFiles.size()) {
+                return null;
+            }
+            for (Rf2File f : statusFiles) {
+                if (!dis.readUTF().equals(f.getFile().getAbsolutePath())
+                        || dis.readLong() != f.getFile().length()
+                        || dis.readLong() != f.getFile().lastModified()) {
+                    return null;
+                }
+            }
+            int n = dis.readInt();
+            long[] refs = new long[n];
+            int[] eTimes = new int[n];
+            long[] values = new long[n];
+            for (int i = 0; i < n; i++) {
+                refs[i] = dis.readLong();
+                eTimes[i] = dis.readInt();
+                values[i] = dis.readLong();
+            }
+            long[] activeWords = new long[dis.readInt()];
+            for (int i = 0; i < activeWords.length; i++) {
+                activeWords[i] = dis.readLong();
+            }
+            return new Rf2StatusIndex(refs, eTimes, values, BitSet.valueOf(activeWords));
+        }
+    }
+
+    public int size() {
+        return referencedComponentId.length;
+    }
+
+    public long getReferencedComponentId(int idx) {
+        return referencedComponentId[idx];
+    }
+
+    public long getTime(int idx) {
+        return time[idx];
+    }
+
+    public long getValueId(int idx) {
+        return valueId[idx];
+    }
+
+    public boolean isActive(int idx) {
+        return active.get(idx);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * Streaming merge join of component records with the extended status
+ * records of the AttributeValue refset.
+ *
+ * Components must already be sorted by (SCTID, time), the status index is
+ * sorted by (referencedComponentId, time). Components are read one SCTID at
+ * a time, status is attached, records added for status changes are merged in
+ * and duplicates are dropped, then the group is handed to the sink. Only one
+ * SCTID group is held at once, in a buffer reused for every group.
+ *
+ * The result is the record sequence the former array based attachStatus and
+ * removeDuplicates returned for the whole file.
+ *
+ * @param <T> component record type
+ */
+public abstract class Rf2StatusMerge<T> {
+
+    /**
+     * Receives the status attached records in (SCTID, time) order.
+     */
+    public interface Sink<T> {
+
+        void write(T record) throws IOException, ParseException;
+    }
+
+    private final Comparator<T> byTime = new Comparator<T>() {
+        @Override
+        public int compare(T o1, T o2) {
+            return Long.compare(getTime(o1), getTime(o2));
+        }
+    };
+
+    abstract long getSctId(T record);
+
+    abstract long getTime(T record);
+
+    abstract void setStatus(T record, long status);
+
+    /**
+     * @return copy of the record at another time with another status
+     */
+    abstract T copy(T record, long time, long status) throws ParseException;
+
+    /**
+     * @return true if next repeats record and is dropped
+     */
+    abstract boolean isDuplicate(T record, T next);
+
+    /**
+     * @param a components sorted by SCTID and time
+     * @param b status records
+     * @return number of duplicate records dropped
+     */
+    public long merge(Iterator<T> a, Rf2StatusIndex b, Sink<T> out)
+            throws IOException, ParseException {
+        if (!a.hasNext()) {
+            return 0;
+        }
+        // records of one SCTID followed by the records added for status changes
+        ArrayList<T> group = new ArrayList<>();
+        long zeroTime = Rf2x.convertDateToTime("2000-01-01 00:00:00");
+        long dropped = 0;
+
+        T nextA = a.next();
+        int idxB = 0;
+        long currentId = getSctId(nextA);
+        while (nextA != null) {
+            group.clear();
+            while (nextA != null && getSctId(nextA) == currentId) {
+                group.add(nextA);
+                nextA = a.hasNext() ? a.next() : null;
+            }
+            int fromB = idxB;
+            while (idxB < b.size() && b.getReferencedComponentId(idxB) == currentId) {
+                idxB++;
+            }
+
+            if (idxB > fromB) {
+                attachStatus(group, group.size(), b, fromB, idxB, zeroTime);
+                // stable, added records follow originals of the same time
+                group.sort(byTime);
+            }
+            dropped += writeGroup(group, nextA == null, out);
+
+            // NEXT ID
+            if (nextA != null) {
+                currentId = getSctId(nextA);
+            }
+            while (idxB < b.size() && b.getReferencedComponentId(idxB) < currentId) {
+                idxB++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Updates the status of the first sizeA records of listA in place from the
+     * status records fromB to toB, records for status changes between these
+     * versions are appended to listA.
+     *
+     * If the component is older than its first status record an inactive
+     * "zero" status record at zeroTime is put in front of the status records.
+     */
+    private void attachStatus(ArrayList<T> listA, int sizeA, Rf2StatusIndex b, int fromB, int toB,
+            long zeroTime) throws ParseException {
+        boolean zero = getTime(listA.get(0)) < b.getTime(fromB);
+        // position of listB element idxBB in the status index, -1 is the zero record
+        int offsetB = zero ? fromB - 1 : fromB;
+        int sizeB = toB - offsetB;
+        int idxAA = 0;
+        int idxBB = 0;
+        boolean moreToDo = true;
+        while (moreToDo) {
+            int posB = idxBB + offsetB;
+            boolean isZero = zero && idxBB == 0;
+            // determine time range
+            long timeInAA = getTime(listA.get(idxAA));
+            long timeOutAA = Long.MAX_VALUE;
+            if (idxAA + 1 < sizeA) {
+                timeOutAA = getTime(listA.get(idxAA + 1));
+            }
+            long timeInBB = isZero ? zeroTime : b.getTime(posB);
+            long timeOutBB = Long.MAX_VALUE;
+            if (idxBB + 1 < sizeB) {
+                timeOutBB = b.getTime(posB + 1);
+            }
+            boolean activeBB = !isZero && b.isActive(posB);
+
+            // UPDATE VALUES
+            if (timeInAA >= timeInBB) {
+                if (activeBB) {
+                    setStatus(listA.get(idxAA), b.getValueId(posB));
+                }
+            } else {
+                if (activeBB) {
+                    listA.add(copy(listA.get(idxAA), timeInBB, b.getValueId(posB)));
+                } else {
+                    listA.add(copy(listA.get(idxAA), timeInBB, Long.MAX_VALUE));
+                }
+            }
+
+            // DETERMINE NEXT TO PROCESS
+            if (timeOutAA == Long.MAX_VALUE && timeOutBB == Long.MAX_VALUE) {
+                moreToDo = false;
+            } else if (timeOutAA < timeOutBB) {
+                idxAA++;
+            } else if (timeOutAA == timeOutBB) {
+                idxAA++;
+                idxBB++;
+            } else if (timeOutAA > timeOutBB) {
+                idxBB++;
+            }
+        }
+    }
+
+    private long writeGroup(ArrayList<T> group, boolean lastGroup, Sink<T> out)
+            throws IOException, ParseException {
+        // the last pair of the whole input is never compared, as in the former
+        // array removeDuplicates, so the ARF output is unchanged
+        int lastPair = lastGroup ? group.size() - 2 : group.size() - 1;
+        long dropped = 0;
+        boolean drop = false;
+        for (int idx = 0; idx < group.size(); idx++) {
+            if (drop) {
+                dropped++;
+            } else {
+                out.write(group.get(idx));
+            }
+            drop = idx < lastPair && isDuplicate(group.get(idx), group.get(idx + 1));
+        }
+        return dropped;
+    }
+}
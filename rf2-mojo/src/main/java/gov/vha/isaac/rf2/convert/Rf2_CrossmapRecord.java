@@ -15,12 +15,10 @@
  */
 package gov.vha.isaac.rf2.convert;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -67,11 +65,10 @@ public class Rf2_CrossmapRecord {
         this.moduleUuidStr = moduleUuidStr;
     }
 
-    static Rf2_CrossmapRecord[] parseCrossmapFile(Rf2File f)
+    static Rf2_CrossmapRecord[] parseCrossmapFile(Rf2File f, IdResolver ids)
             throws IOException, ParseException {
 
-        int count = Rf2File.countFileLines(f);
-        Rf2_CrossmapRecord[] a = new Rf2_CrossmapRecord[count];
+        ArrayList<Rf2_CrossmapRecord> a = new ArrayList<>();
 
         // DATA COLUMNS
         int ID = 0;// id
@@ -82,26 +79,21 @@ public class Rf2_CrossmapRecord {
         int REFERENCED_COMPONENT_ID = 5; // referencedComponentId
         int MAP_TARGET_ID = 6; // For Language refset VALUE_ID is ACCEPTIBILITY_ID
 
-        BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f.getFile()),
-                "UTF-8"));
         Set<Long> idSet = new HashSet<>();
 
-        int idx = 0;
-        br.readLine(); // Header row
-        while (br.ready()) {
-            String[] line = br.readLine().split(TAB_CHARACTER);
-
-            Long refsetIdL = Long.parseLong(line[REFSET_ID]);
-            idSet.add(refsetIdL);
-
-            a[idx] = new Rf2_CrossmapRecord(line[ID],
-                    Rf2x.convertEffectiveTimeToDate(line[EFFECTIVE_TIME]),
-                    Rf2x.convertStringToBoolean(line[ACTIVE]),
-                    Rf2x.convertSctIdToUuidStr(line[MODULE_ID]),
-                    refsetIdL,
-                    Long.parseLong(line[REFERENCED_COMPONENT_ID]),
-                    line[MAP_TARGET_ID]);
-            idx++;
+        try (Rf2Reader r = new Rf2Reader(f)) {
+            while (r.next()) {
+                Long refsetIdL = r.getLong(REFSET_ID);
+                idSet.add(refsetIdL);
+
+                a.add(new Rf2_CrossmapRecord(r.getString(ID),
+                        Rf2x.convertEffectiveTimeToDate(r.getInt(EFFECTIVE_TIME)),
+                        r.getBoolean(ACTIVE),
+                        ids.getModuleUuidStr(r.getLong(MODULE_ID)),
+                        refsetIdL,
+                        r.getLong(REFERENCED_COMPONENT_ID),
+                        r.getString(MAP_TARGET_ID)));
+            }
         }
 
         Long[] aLongs = (Long[]) idSet.toArray(new Long[0]);
@@ -112,17 +104,17 @@ public class Rf2_CrossmapRecord {
         for (Long l : aLongs) {
             sb.append(l.toString());
             sb.append("\t");
-            sb.append(Rf2x.convertSctIdToUuidStr(l));
+            sb.append(ids.convertSctIdToUuidStr(l));
             sb.append("\r\n");
         }
         Logger.getLogger(Rf2_CrossmapRecord.class.getName()).info(sb.toString());
 
-        return a;
+        return a.toArray(new Rf2_CrossmapRecord[a.size()]);
     }
 
-    public void writeArfRefset(BufferedWriter writer) throws IOException {
+    public void writeArfRefset(BufferedWriter writer, IdResolver ids) throws IOException {
         // Refset UUID
-        writer.append(Rf2x.convertSctIdToUuidStr(refsetIdL) + TAB_CHARACTER);
+        writer.append(ids.convertSctIdToUuidStr(refsetIdL) + TAB_CHARACTER);
 
         // Member UUID
         writer.append(id + TAB_CHARACTER);
@@ -131,7 +123,7 @@ public class Rf2_CrossmapRecord {
         writer.append(Rf2x.convertActiveToStatusUuid(isActive) + TAB_CHARACTER);
 
         // Component UUID
-        writer.append(Rf2x.convertSctIdToUuidStr(referencedComponentIdL) + TAB_CHARACTER);
+        writer.append(ids.convertSctIdToUuidStr(referencedComponentIdL) + TAB_CHARACTER);
 
         // Effective Date
         writer.append(effDateStr + TAB_CHARACTER);
@@ -149,9 +141,9 @@ public class Rf2_CrossmapRecord {
         writer.append(this.moduleUuidStr + LINE_TERMINATOR);
     }
 
-    public void writeArfId(BufferedWriter writer) throws IOException {
+    public void writeArfId(BufferedWriter writer, IdResolver ids) throws IOException {
         // REFERENCED_COMPONENT_ID = 5;
-        writer.append(Rf2x.convertSctIdToUuidStr(referencedComponentIdL) + TAB_CHARACTER);
+        writer.append(ids.convertSctIdToUuidStr(referencedComponentIdL) + TAB_CHARACTER);
         // SOURCE_SYSTEM_UUID = 1;
         // 446608001 ICD-O
         // 900000000000498005 SNOMED RT
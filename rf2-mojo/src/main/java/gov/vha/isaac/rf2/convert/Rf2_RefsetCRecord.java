@@ -15,11 +15,7 @@
  */
 package gov.vha.isaac.rf2.convert;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -29,8 +25,6 @@ import org.apache.logging.log4j.LogManager;
 
 public class Rf2_RefsetCRecord implements Comparable<Rf2_RefsetCRecord> {
 
-	private static final String LINE_TERMINATOR = "\r\n";
-	private static final String TAB_CHARACTER = "\t";
 	// RECORD FIELDS
 	final String id;
 	final String effDateStr;
@@ -62,12 +56,11 @@ public class Rf2_RefsetCRecord implements Comparable<Rf2_RefsetCRecord> {
 		this.moduleUuidStr = moduleUuidStr;
 	}
 
-	public static Rf2_RefsetCRecord[] parseRefset(Rf2File f, Long[] exclusions)
+	public static Rf2_RefsetCRecord[] parseRefset(Rf2File f, Long[] exclusions, IdResolver ids)
 			throws IOException, ParseException {
 
-		int count = Rf2File.countFileLines(f);
 		int countExludedMembers = 0;
-		int currentCount = 0;
+		int count;
 		ArrayList<Rf2_RefsetCRecord> a = new ArrayList<>();
 
 		// DATA COLUMNS
@@ -79,46 +72,41 @@ public class Rf2_RefsetCRecord implements Comparable<Rf2_RefsetCRecord> {
 		int REFERENCED_COMPONENT_ID = 5; // referencedComponentId
 		int VALUE_ID = 6; // For Language refset VALUE_ID is ACCEPTIBILITY_ID
 
-		BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f.getFile()), "UTF-8"));
 		Set<Long> idSet = new HashSet<>();
 
-		br.readLine(); // Header row
-		currentCount++;
-		try {
-			while (br.ready()) {
-				String[] line = br.readLine().split(TAB_CHARACTER);
-				currentCount++;
-
-				Long refsetIdL = Long.parseLong(line[REFSET_ID]);
-				boolean found = false;
-				if (exclusions != null) {
-					for (Long excludedId : exclusions) {
-						if (excludedId.compareTo(refsetIdL) == 0) {
-							found = true;
+		try (Rf2Reader r = new Rf2Reader(f))
+		{
+			try {
+				while (r.next()) {
+					Long refsetIdL = r.getLong(REFSET_ID);
+					boolean found = false;
+					if (exclusions != null) {
+						for (Long excludedId : exclusions) {
+							if (excludedId.compareTo(refsetIdL) == 0) {
+								found = true;
+							}
 						}
+			
 					}
-	
-				}
-				if (found) {
-					countExludedMembers++;
-					continue;
+					if (found) {
+						countExludedMembers++;
+						continue;
+					}
+					idSet.add(refsetIdL);
+
+					a.add(new Rf2_RefsetCRecord(r.getString(ID),
+							Rf2x.convertEffectiveTimeToDate(r.getInt(EFFECTIVE_TIME)),
+							r.getBoolean(ACTIVE),
+							ids.getModuleUuidStr(r.getLong(MODULE_ID)),
+							refsetIdL,
+							r.getLong(REFERENCED_COMPONENT_ID),
+							r.getLong(VALUE_ID)));
 				}
-				idSet.add(refsetIdL);
-
-				a.add(new Rf2_RefsetCRecord(line[ID],
-						Rf2x.convertEffectiveTimeToDate(line[EFFECTIVE_TIME]),
-						Rf2x.convertStringToBoolean(line[ACTIVE]),
-						Rf2x.convertSctIdToUuidStr(line[MODULE_ID]),
-						Long.parseLong(line[REFSET_ID]),
-						Long.parseLong(line[REFERENCED_COMPONENT_ID]),
-						Long.parseLong(line[VALUE_ID])));
+			} catch (NumberFormatException e) {
+				LogManager.getLogger().error("Error parsing Refset recors: File=" + f.getFile().getName() + " Line=" + r.getLineNumber());
+				throw e;
 			}
-		} catch (NumberFormatException e) {
-			LogManager.getLogger().error("Error parsing Refset recors: File=" + f.getFile().getName() + " Line=" + currentCount);
-			throw e;
-		}
-		finally {
-			br.close();
+			count = r.getRecordCount();
 		}
 
 		Long[] aLongs = (Long[]) idSet.toArray(new Long[0]);
@@ -129,7 +117,7 @@ public class Rf2_RefsetCRecord implements Comparable<Rf2_RefsetCRecord> {
 		for (Long l : aLongs) {
 			sb.append(l.toString());
 			sb.append("\t");
-			sb.append(Rf2x.convertSctIdToUuidStr(l));
+			sb.append(ids.convertSctIdToUuidStr(l));
 			sb.append("\r\n");
 		}
 		Logger.getLogger(Rf2_RefsetCRecord.class.getName()).info(sb.toString());
@@ -142,7 +130,7 @@ public class Rf2_RefsetCRecord implements Comparable<Rf2_RefsetCRecord> {
 			for (Long l : exclusions) {
 				sb.append(l.toString());
 				sb.append("\t");
-				sb.append(Rf2x.convertSctIdToUuidStr(l));
+				sb.append(ids.convertSctIdToUuidStr(l));
 				sb.append("\r\n");
 			}
 		} else {
@@ -162,52 +150,45 @@ public class Rf2_RefsetCRecord implements Comparable<Rf2_RefsetCRecord> {
 		sb.append("\r\n");
 		Logger.getLogger(Rf2_RefsetCRecord.class.getName()).info(sb.toString());
 
-		Rf2_RefsetCRecord[] b = new Rf2_RefsetCRecord[a.size()];
-		int idx = 0;
-		for (Rf2_RefsetCRecord rec : a) {
-			b[idx] = rec;
-			idx++;
-		}
-
-		return b;
+		return a.toArray(new Rf2_RefsetCRecord[a.size()]);
 	}
 
-	public void writeArf(BufferedWriter writer) throws IOException {
+	public void writeArf(ArfByteWriter writer, IdResolver ids) throws IOException {
 
 		// Refset UUID
-		writer.append(Rf2x.convertSctIdToUuidStr(refsetIdL) + TAB_CHARACTER);
+		writer.appendSctId(refsetIdL, ids).tab();
 
 		// Member UUID
 		if (id.length() == 36) {
-			writer.append(id + TAB_CHARACTER);
+			writer.append(id).tab();
 		} else {
-			writer.append(id.substring(0,8) + '-');
-			writer.append(id.substring(8,12) + '-');
-			writer.append(id.substring(12,16) + '-');
-			writer.append(id.substring(16,20) + '-');
-			writer.append(id.substring(20,32) + TAB_CHARACTER);
+			writer.append(id.substring(0,8)).append("-");
+			writer.append(id.substring(8,12)).append("-");
+			writer.append(id.substring(12,16)).append("-");
+			writer.append(id.substring(16,20)).append("-");
+			writer.append(id.substring(20,32)).tab();
 		}
 
 		// Status UUID
-		writer.append(Rf2x.convertActiveToStatusUuid(isActive) + TAB_CHARACTER);
+		writer.appendStatus(isActive).tab();
 
 		// Component UUID
-		writer.append(Rf2x.convertSctIdToUuidStr(referencedComponentIdL) + TAB_CHARACTER);
+		writer.appendSctId(referencedComponentIdL, ids).tab();
 
 		// Effective Date
-		writer.append(effDateStr + TAB_CHARACTER);
+		writer.append(effDateStr).tab();
 
 		// Path UUID
-		writer.append(pathUuidStr + TAB_CHARACTER);
+		writer.append(pathUuidStr).tab();
 
 		// Concept Extension Value UUID
-		writer.append(Rf2x.convertSctIdToUuidStr(valueIdL) + TAB_CHARACTER);
+		writer.appendSctId(valueIdL, ids).tab();
 
 		// Author UUID String --> user
-		writer.append(Rf2Defaults.getAuthorUuidStr() + TAB_CHARACTER);
+		writer.appendAuthor().tab();
 
 		// Module UUID String
-		writer.append(this.moduleUuidStr + LINE_TERMINATOR);
+		writer.append(this.moduleUuidStr).endLine();
 	}
 
 	@Override
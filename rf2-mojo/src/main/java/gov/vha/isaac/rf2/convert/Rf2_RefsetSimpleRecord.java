@@ -15,12 +15,10 @@
  */
 package gov.vha.isaac.rf2.convert;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -61,11 +59,10 @@ public class Rf2_RefsetSimpleRecord implements Comparable<Rf2_RefsetSimpleRecord
         this.moduleUuidStr = moduleUuidStr;
     }
 
-    public static Rf2_RefsetSimpleRecord[] parseRefset(Rf2File f, String pathUuid) throws IOException, ParseException, IOException {
+    public static Rf2_RefsetSimpleRecord[] parseRefset(Rf2File f, String pathUuid, IdResolver ids) throws IOException, ParseException, IOException {
         String uuidNormalMember = IsaacMetadataAuxiliaryBinding.NORMAL_MEMBER.getPrimodialUuid().toString();
 
-        int count = Rf2File.countFileLines(f);
-        Rf2_RefsetSimpleRecord[] a = new Rf2_RefsetSimpleRecord[count];
+        ArrayList<Rf2_RefsetSimpleRecord> a = new ArrayList<>();
 
         // DATA COLUMNS
         int ID = 0;// id
@@ -75,28 +72,23 @@ public class Rf2_RefsetSimpleRecord implements Comparable<Rf2_RefsetSimpleRecord
         int REFSET_ID = 4; // refSetId
         int REFERENCED_COMPONENT_ID = 5; // referencedComponentId
 
-        BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f.getFile()), "UTF-8"));
         Set<Long> idSet = new HashSet<>();
 
-        int idx = 0;
-        br.readLine(); // Header row
-        while (br.ready()) {
-            String[] line = br.readLine().split(TAB_CHARACTER);
-
-            Long refsetIdL = Long.parseLong(line[REFSET_ID]);
-            idSet.add(refsetIdL);
-
-            a[idx] = new Rf2_RefsetSimpleRecord(line[ID],
-                    Rf2x.convertEffectiveTimeToDate(line[EFFECTIVE_TIME]),
-                    Rf2x.convertStringToBoolean(line[ACTIVE]),
-                    Rf2x.convertSctIdToUuidStr(line[MODULE_ID]),
-                    Long.parseLong(line[REFSET_ID]),
-                    Long.parseLong(line[REFERENCED_COMPONENT_ID]),
-                    uuidNormalMember,
-                    pathUuid);
-            idx++;
+        try (Rf2Reader r = new Rf2Reader(f)) {
+            while (r.next()) {
+                Long refsetIdL = r.getLong(REFSET_ID);
+                idSet.add(refsetIdL);
+
+                a.add(new Rf2_RefsetSimpleRecord(r.getString(ID),
+                        Rf2x.convertEffectiveTimeToDate(r.getInt(EFFECTIVE_TIME)),
+                        r.getBoolean(ACTIVE),
+                        ids.getModuleUuidStr(r.getLong(MODULE_ID)),
+                        refsetIdL,
+                        r.getLong(REFERENCED_COMPONENT_ID),
+                        uuidNormalMember,
+                        pathUuid));
+            }
         }
-        br.close();
 
         Long[] aLongs = (Long[]) idSet.toArray(new Long[0]);
         StringBuilder sb = new StringBuilder();
@@ -106,18 +98,18 @@ public class Rf2_RefsetSimpleRecord implements Comparable<Rf2_RefsetSimpleRecord
         for (Long l : aLongs) {
             sb.append(l.toString());
             sb.append("\t");
-            sb.append(Rf2x.convertSctIdToUuidStr(l));
+            sb.append(ids.convertSctIdToUuidStr(l));
             sb.append("\r\n");
         }
         Logger.getLogger(Rf2_CrossmapRecord.class.getName()).info(sb.toString());
 
-        return a;
+        return a.toArray(new Rf2_RefsetSimpleRecord[a.size()]);
     }
 
-    public void writeArf(BufferedWriter writer) throws IOException {
+    public void writeArf(BufferedWriter writer, IdResolver ids) throws IOException {
 
         // Refset UUID
-        writer.append(Rf2x.convertSctIdToUuidStr(refsetIdL) + TAB_CHARACTER);
+        writer.append(ids.convertSctIdToUuidStr(refsetIdL) + TAB_CHARACTER);
 
         // Member UUID
         if (id.length() == 36) {
@@ -134,7 +126,7 @@ public class Rf2_RefsetSimpleRecord implements Comparable<Rf2_RefsetSimpleRecord
         writer.append(Rf2x.convertActiveToStatusUuid(isActive) + TAB_CHARACTER);
 
         // Component UUID
-        writer.append(Rf2x.convertSctIdToUuidStr(referencedComponentIdL) + TAB_CHARACTER);
+        writer.append(ids.convertSctIdToUuidStr(referencedComponentIdL) + TAB_CHARACTER);
 
         // Effective Date
         writer.append(effDateStr + TAB_CHARACTER);
@@ -15,40 +15,13 @@
  */
 package gov.vha.isaac.rf2.convert;
 
-import gov.vha.isaac.ochre.util.UuidT3Generator;
-import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.UUID;
 
 public class Rf2x {
 
-    private static final SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-    private static Sct2_IdLookUp sctid2UuidCache = null;
-    private static long notMappedCounter;
-
-    public Rf2x() {
-        sctid2UuidCache = null;
-    }
-
-    public static void setupIdCache(File idCacheFile, boolean enableUUIDtoSCTIDMap) 
-            throws IOException {
-
-        System.out.println(":::      " + idCacheFile.getAbsolutePath());
-        if (!idCacheFile.exists()) {
-            System.out.println(":::      SCTID/UUID cache file does not exist!!!@!");
-            // Initialize with an empty id list
-            sctid2UuidCache = new Sct2_IdLookUp(new ArrayList<Sct2_IdCompact>(), enableUUIDtoSCTIDMap);
-            notMappedCounter = 0;
-        } else {
-            System.out.println(":::      SCTID/UUID cache file exists!!!@!");
-            sctid2UuidCache = new Sct2_IdLookUp(idCacheFile, enableUUIDtoSCTIDMap);
-            notMappedCounter = 0;
-        }
-    }
+    static final String ACTIVE_STATUS_UUID_STR = "d12702ee-c37f-385f-a070-61d56d4d0f1f"; // RF2 Active
+    static final String INACTIVE_STATUS_UUID_STR = "a5daba09-7feb-37f0-8d6d-c3cadfc7f724"; // RF2 Inactive
 
     /**
      * Convert "yyyyMMdd" effective time
@@ -59,12 +32,40 @@ public class Rf2x {
      * @return
      */
     public static String convertEffectiveTimeToDate(String effectiveTimeStr) {
+        int effectiveTime = Rf2EffectiveTime.parseEffectiveTime(effectiveTimeStr);
+        if (effectiveTime >= 0) {
+            return Rf2EffectiveTime.toDate(effectiveTime);
+        }
         return effectiveTimeStr.substring(0, 4) + "-"
                 + effectiveTimeStr.substring(4, 6) + "-"
                 + effectiveTimeStr.substring(6, 8)
                 + " 00:00:00";
     }
 
+    /**
+     * Convert yyyyMMdd effective time
+     * <code>int</code> to "yyyy-MM-dd 00:00:00"
+     * <code>String</code>.
+     *
+     * @param effectiveTime
+     * @return
+     */
+    public static String convertEffectiveTimeToDate(int effectiveTime) {
+        return Rf2EffectiveTime.toDate(effectiveTime);
+    }
+
+    /**
+     * Convert yyyyMMdd effective time
+     * <code>int</code> to
+     * <code>long</code> time milliseconds.
+     *
+     * @param effectiveTime
+     * @return
+     */
+    public static long convertEffectiveTimeToTime(int effectiveTime) {
+        return Rf2EffectiveTime.toTime(effectiveTime);
+    }
+
     /**
      * Convert "yyyy-MM-dd 00:00:00" date
      * <code>String</code> to
@@ -75,7 +76,7 @@ public class Rf2x {
      * @throws ParseException
      */
     static long convertDateToTime(String date) throws ParseException {
-        return formatter.parse(date).getTime();
+        return Rf2EffectiveTime.parseDateTime(date);
     }
 
     /**
@@ -88,7 +89,7 @@ public class Rf2x {
      * @throws ParseException
      */
     static String convertTimeToDate(long time) throws ParseException {
-        return formatter.format(new Date(time));
+        return Rf2EffectiveTime.format(time);
     }
 
     /**
@@ -124,10 +125,10 @@ public class Rf2x {
     public static String convertActiveToStatusUuid(boolean active) throws IOException {
         if (active) {
             // return ArchitectonicAuxiliary.Concept.CURRENT.getPrimoridalUid().toString();
-            return "d12702ee-c37f-385f-a070-61d56d4d0f1f"; // RF2 Active
+            return ACTIVE_STATUS_UUID_STR;
         } else {
             // return ArchitectonicAuxiliary.Concept.RETIRED.getPrimoridalUid().toString();
-            return "a5daba09-7feb-37f0-8d6d-c3cadfc7f724"; // RF2 Inactive
+            return INACTIVE_STATUS_UUID_STR;
         }
     }
 
@@ -152,33 +153,8 @@ public class Rf2x {
         }
     }
 
-    static String convertSctIdToUuidStr(String idStr) 
-            throws IOException {
-        long id = Long.parseLong(idStr);
-        return convertSctIdToUuidStr(id);
-    }
-
-    public static String convertSctIdToUuidStr(long id) 
-            throws IOException {
-        return convertSctIdToUuid(id).toString();
-    }
-
-    static UUID convertSctIdToUuid(long id) 
-            throws IOException {
-        UUID uuid;
-        if (sctid2UuidCache == null) {
-            throw new IOException("Rf2x.setupIdCache(path) needs to be called first");
-        }
-        uuid = sctid2UuidCache.getUuid(id);
-        if (uuid == null) {
-            notMappedCounter++;
-            if (notMappedCounter % 100000 == 1) {
-                System.out.println(":::INFO: UUID notMappedCounter=" + notMappedCounter + " SCTID=" + Long.toString(id));
-            }
-            return UuidT3Generator.fromSNOMED(id);                    
-        } else {
-            return uuid;
-        }
+    static boolean convertDefinitionStatusToIsPrimitive(long defStatusId) {
+        return defStatusId == 900000000000074008L;
     }
 
     static boolean convertCaseSignificanceIdToCapStatus(String caseSignifcanceId) {
@@ -190,26 +166,9 @@ public class Rf2x {
             return false;
         }
     }
-    
-       
-    public static boolean isSctIdInUuidCache(long sctId) throws IOException {
-        UUID uuid;
-        if (sctid2UuidCache == null) {
-            throw new IOException("Rf2x.setupIdCache(path) needs to be called first");
-        }
-        uuid = sctid2UuidCache.getUuid(sctId);
-        if (uuid == null) {
-            return false;
-        } 
-        return true;
-    }
-    
-    public static Long getSCTIDforUUID(UUID uuid)
-    {
-        if (sctid2UuidCache == null) {
-            throw new RuntimeException("Rf2x.setupIdCache(path) needs to be called first");
-        }
-        return sctid2UuidCache.getSCTId(uuid);
+
+    static boolean convertCaseSignificanceIdToCapStatus(long caseSignifcanceId) {
+        return caseSignifcanceId == 900000000000017005L;
     }
 
 }
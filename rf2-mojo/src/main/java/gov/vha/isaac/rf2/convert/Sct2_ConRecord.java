@@ -15,12 +15,7 @@
  */
 package gov.vha.isaac.rf2.convert;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Serializable;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -28,10 +23,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.maven.plugin.MojoFailureException;
 
-public class Sct2_ConRecord implements Comparable<Sct2_ConRecord>, Serializable {
+public class Sct2_ConRecord implements Comparable<Sct2_ConRecord> {
 
-    private static final long serialVersionUID = 1L;
-    private static final String LINE_TERMINATOR = "\r\n";
     private static final String TAB_CHARACTER = "\t";
     // RECORD FIELDS
     private long conSnoIdL; //  id
@@ -41,12 +34,14 @@ public class Sct2_ConRecord implements Comparable<Sct2_ConRecord>, Serializable
     boolean isPrimitiveB; // ISPRIMITIVE
     long statusConceptL; // extended from AttributeValue file
 
-    private String pathUuidStr; // SNOMED Core default
+    private final Rf2Dictionary uuids; // module and path UUIDs of the IdResolver
+    private int pathCode; // uuids code, SNOMED Core default
     // String authorUuidStr; // saved as user
-    private String moduleUuidStr;
+    private int moduleCode; // uuids code
 
     public Sct2_ConRecord(long conIdL, String dateStr, boolean active, String moduleUuidStr,
-            boolean isPrim, long statusConceptL, String pathUuid) throws ParseException {
+            boolean isPrim, long statusConceptL, String pathUuid, IdResolver ids) throws ParseException {
+        this.uuids = ids.getUuidDictionary();
         this.setConSnoIdL(conIdL); // column 0 - id
         this.setEffDateStr(dateStr); // column 1 - effectiveTime
         this.timeL = Rf2x.convertDateToTime(dateStr);
@@ -73,184 +68,95 @@ public class Sct2_ConRecord implements Comparable<Sct2_ConRecord>, Serializable
 
         this.statusConceptL = status;
 
-        this.setPathUuidStr(in.getPathUuidStr());
+        this.uuids = in.uuids;
+        this.pathCode = in.pathCode;
         // this.authorUuidStr = in.authorUuidStr;
-        this.setModuleUuidStr(in.getModuleUuidStr());
+        this.moduleCode = in.moduleCode;
     }
 
-    public static Sct2_ConRecord[] attachStatus(Sct2_ConRecord[] a, Rf2_RefsetCRecord[] b)
-            throws ParseException, MojoFailureException {
-        ArrayList<Sct2_ConRecord> addedRecords = new ArrayList<>();
-        Rf2_RefsetCRecord zeroB = new Rf2_RefsetCRecord("ZERO", "2000-01-01 00:00:00", false,
-                null, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
-
-        Arrays.sort(a);
-        Arrays.sort(b);
-
-        int idxA = 0;
-        int idxB = 0;
-        long currentId = a[0].getConSnoIdL();
-        while (idxA < a.length) {
-            ArrayList<Sct2_ConRecord> listA = new ArrayList<>();
-            ArrayList<Rf2_RefsetCRecord> listB = new ArrayList<>();
-            while (idxA < a.length && a[idxA].getConSnoIdL() == currentId) {
-                listA.add(a[idxA]);
-                idxA++;
-            }
-            while (idxB < b.length && b[idxB].referencedComponentIdL == currentId) {
-                listB.add(b[idxB]);
-                idxB++;
-            }
-
-            // PROCESS ID
-            if (listB.size() > 0) {
-                if (listA.get(0).timeL < listB.get(0).timeL) {
-                    listB.add(0, zeroB);
-                }
-                int idxAA = 0;
-                int idxBB = 0;
-                boolean moreToDo = true;
-                while (moreToDo) {
-                    // determine time range
-                    long timeInAA = listA.get(idxAA).timeL;
-                    long timeOutAA = Long.MAX_VALUE;
-                    if (idxAA + 1 < listA.size()) {
-                        timeOutAA = listA.get(idxAA + 1).timeL;
-                    }
-                    long timeInBB = listB.get(idxBB).timeL;
-                    long timeOutBB = Long.MAX_VALUE;
-                    if (idxBB + 1 < listB.size()) {
-                        timeOutBB = listB.get(idxBB + 1).timeL;
-                    }
-
-                    // UPDATE VALUES
-                    if (timeInAA >= timeInBB) {
-                        if (listB.get(idxBB).isActive) {
-                            listA.get(idxAA).statusConceptL = listB.get(idxBB).valueIdL;
-                        } else {
-                            // no change
-                        }
-                    } else {
-                        if (listB.get(idxBB).isActive) {
-                            addedRecords.add(new Sct2_ConRecord(listA.get(idxAA),
-                                    listB.get(idxBB).timeL, listB.get(idxBB).valueIdL));
-                        } else {
-                            addedRecords.add(new Sct2_ConRecord(listA.get(idxAA),
-                                    listB.get(idxBB).timeL, Long.MAX_VALUE));
-                        }
-                    }
-
-                    // DETERMINE NEXT TO PROCESS
-                    if (timeOutAA == Long.MAX_VALUE && timeOutBB == Long.MAX_VALUE) {
-                        moreToDo = false;
-                    } else if (timeOutAA < timeOutBB) {
-                        idxAA++;
-                    } else if (timeOutAA == timeOutBB) {
-                        idxAA++;
-                        idxBB++;
-                    } else if (timeOutAA > timeOutBB) {
-                        idxBB++;
-                    }
-                }
-            }
-
-            // NEXT ID
-            if (idxA < a.length) {
-                currentId = a[idxA].getConSnoIdL();
-            }
-            if (idxB < b.length) {
-                while (idxB < b.length && b[idxB].referencedComponentIdL < currentId) {
-                    idxB++;
-                }
-            }
+    private static final Rf2StatusMerge<Sct2_ConRecord> STATUS_MERGE = new Rf2StatusMerge<Sct2_ConRecord>() {
+        @Override
+        long getSctId(Sct2_ConRecord record) {
+            return record.getConSnoIdL();
         }
 
-        if (addedRecords.size() > 0) {
-            int offsetI = a.length;
-            a = Arrays.copyOf(a, a.length + addedRecords.size());
-            for (int i = 0; i < addedRecords.size(); i++) {
-                a[offsetI + i] = addedRecords.get(i);
-            }
+        @Override
+        long getTime(Sct2_ConRecord record) {
+            return record.timeL;
         }
 
-        // REMOVE DUPLICATES
-        a = removeDuplicates(a);
-
-        return a;
-    }
+        @Override
+        void setStatus(Sct2_ConRecord record, long status) {
+            record.statusConceptL = status;
+        }
 
-    static private Sct2_ConRecord[] removeDuplicates(Sct2_ConRecord[] a) throws MojoFailureException {
-        Arrays.sort(a);
+        @Override
+        Sct2_ConRecord copy(Sct2_ConRecord record, long time, long status) throws ParseException {
+            return new Sct2_ConRecord(record, time, status);
+        }
 
-        // REMOVE DUPLICATES
-        int lenA = a.length;
-        ArrayList<Integer> duplIdxList = new ArrayList<>();
-        for (int idx = 0; idx < lenA - 2; idx++) {
-            if ((a[idx].getConSnoIdL() == a[idx + 1].getConSnoIdL())
-                    && (a[idx].isPrimitiveB == a[idx + 1].isPrimitiveB)
-                    && (a[idx].statusConceptL == a[idx + 1].statusConceptL)
-                    && a[idx].getModuleUuidStr().equalsIgnoreCase(a[idx + 1].getModuleUuidStr())) {
-                if (a[idx].statusConceptL == Long.MAX_VALUE) {
-                    if (a[idx].isActive == a[idx + 1].isActive) {
-                        duplIdxList.add(Integer.valueOf(idx + 1));
-                    }
-                } else {
-                    duplIdxList.add(Integer.valueOf(idx + 1));
-                }
-            }
+        @Override
+        boolean isDuplicate(Sct2_ConRecord record, Sct2_ConRecord next) {
+            return Sct2_ConRecord.isDuplicate(record, next);
         }
+    };
+
+    /**
+     * Attaches the extended status, the status attached records are written
+     * to out.
+     *
+     * @param a sorted in place
+     * @param b status records
+     * @return number of duplicate records dropped
+     */
+    public static long attachStatus(Sct2_ConRecord[] a, Rf2StatusIndex b, Rf2StatusMerge.Sink<Sct2_ConRecord> out)
+            throws IOException, ParseException {
+        Arrays.sort(a);
+        return STATUS_MERGE.merge(Arrays.asList(a).iterator(), b, out);
+    }
 
-        if (duplIdxList.size()
-                > 0) {
-            Sct2_ConRecord[] b = new Sct2_ConRecord[lenA - duplIdxList.size()];
-            int aPos = 0;
-            int bPos = 0;
-            int len;
-            for (int dropIdx : duplIdxList) {
-                len = dropIdx - aPos;
-                System.arraycopy(a, aPos, b, bPos, len);
-                bPos = bPos + len;
-                aPos = aPos + len + 1;
+    /**
+     * @return true if next repeats r with the same status, next is dropped
+     */
+    static boolean isDuplicate(Sct2_ConRecord r, Sct2_ConRecord next) {
+        if ((r.getConSnoIdL() == next.getConSnoIdL())
+                && (r.isPrimitiveB == next.isPrimitiveB)
+                && (r.statusConceptL == next.statusConceptL)
+                && (r.moduleCode == next.moduleCode
+                || r.getModuleUuidStr().equalsIgnoreCase(next.getModuleUuidStr()))) {
+            if (r.statusConceptL == Long.MAX_VALUE) {
+                return r.isActive == next.isActive;
             }
-            len = lenA - aPos;
-            System.arraycopy(a, aPos, b, bPos, len);
-            return b;
-        } else {
-            return a;
+            return true;
         }
+        return false;
     }
 
-    public static Sct2_ConRecord[] parseConcepts(Rf2File f, String pathUuid) throws MojoFailureException {
+    public static Sct2_ConRecord[] parseConcepts(Rf2File f, String pathUuid, final IdResolver ids) throws MojoFailureException {
         try {
-            int count = Rf2File.countFileLines(f);
-            Sct2_ConRecord[] a = new Sct2_ConRecord[count];
-
             // DATA COLUMNS
-            int ID = 0;// id
-            int EFFECTIVE_TIME = 1; // effectiveTime
-            int ACTIVE = 2; // active
-            int MODULE_ID = 3; // moduleId
-            int DEFINITION_STATUS_ID = 4; // definitionStatusId
-
-            BufferedReader br = new BufferedReader(new InputStreamReader(
-                    new FileInputStream(f.getFile()), "UTF-8"));
-
-            int idx = 0;
-            br.readLine(); // Header row
-            while (br.ready()) {
-                String[] line = br.readLine().split(TAB_CHARACTER);
-
-                a[idx] = new Sct2_ConRecord(Long.parseLong(line[ID]),
-                        Rf2x.convertEffectiveTimeToDate(line[EFFECTIVE_TIME]),
-                        Rf2x.convertStringToBoolean(line[ACTIVE]),
-                        Rf2x.convertSctIdToUuidStr(line[MODULE_ID]),
-                        Rf2x.convertDefinitionStatusToIsPrimitive(line[DEFINITION_STATUS_ID]),
-                        Long.MAX_VALUE,
-                        pathUuid);
-                idx++;
-            }
+            final int ID = 0;// id
+            final int EFFECTIVE_TIME = 1; // effectiveTime
+            final int ACTIVE = 2; // active
+            final int MODULE_ID = 3; // moduleId
+            final int DEFINITION_STATUS_ID = 4; // definitionStatusId
+            final String path = pathUuid;
+
+            ArrayList<Sct2_ConRecord> a = Rf2ChunkedParser.parse(f, new Rf2ChunkedParser.RowParser<Sct2_ConRecord>() {
+                @Override
+                public Sct2_ConRecord parseRow(Rf2Reader r) throws IOException, ParseException {
+                    return new Sct2_ConRecord(r.getLong(ID),
+                            Rf2x.convertEffectiveTimeToDate(r.getInt(EFFECTIVE_TIME)),
+                            r.getBoolean(ACTIVE),
+                            ids.getModuleUuidStr(r.getLong(MODULE_ID)),
+                            Rf2x.convertDefinitionStatusToIsPrimitive(r.getLong(DEFINITION_STATUS_ID)),
+                            Long.MAX_VALUE,
+                            path,
+                            ids);
+                }
+            });
 
-            return a;
+            return a.toArray(new Sct2_ConRecord[a.size()]);
 
         } catch (ParseException | IOException ex) {
             Logger.getLogger(Sct2_ConRecord.class.getName()).log(Level.SEVERE, null, ex);
@@ -269,35 +175,61 @@ public class Sct2_ConRecord implements Comparable<Sct2_ConRecord>, Serializable
         this.setPathUuidStr(pathStr);
     }
     
-    public void writeArf(BufferedWriter writer) throws IOException, ParseException {
+    public void writeArf(ArfByteWriter writer, IdResolver ids) throws IOException, ParseException {
         // Concept UUID
-        writer.append(Rf2x.convertSctIdToUuidStr(getConSnoIdL()) + TAB_CHARACTER);
+        writer.appendSctId(getConSnoIdL(), ids).tab();
 
         // Status UUID
         if (statusConceptL < Long.MAX_VALUE) {
-            writer.append(Rf2x.convertSctIdToUuidStr(statusConceptL) + TAB_CHARACTER);
+            writer.appendSctId(statusConceptL, ids).tab();
         } else {
-            writer.append(Rf2x.convertActiveToStatusUuid(isActive) + TAB_CHARACTER);
+            writer.appendStatus(isActive).tab();
         }
 
         // Primitive string 0 (false == defined) or 1 (true == primitive)
         if (isPrimitiveB) {
-            writer.append("1" + TAB_CHARACTER);
+            writer.append(1).tab();
         } else {
-            writer.append("0" + TAB_CHARACTER);
+            writer.append(0).tab();
         }
 
         // Effective Date yyyy-MM-dd HH:mm:ss
-        writer.append(Rf2x.convertTimeToDate(timeL) + TAB_CHARACTER);
+        writer.appendDate(timeL).tab();
 
         // Path UUID String
-        writer.append(this.getPathUuidStr() + TAB_CHARACTER);
+        writer.appendUuidCode(uuids, pathCode).tab();
 
         // Author UUID String --> user
-        writer.append(Rf2Defaults.getAuthorUuidStr() + TAB_CHARACTER);
+        writer.appendAuthor().tab();
+
+        // Module UUID String
+        writer.appendUuidCode(uuids, moduleCode).endLine();
+    }
 
+    /**
+     * Writes the columns of {@link #writeArf(ArfByteWriter, IdResolver)} to a
+     * binary ARF file.
+     */
+    public void writeArfBinary(ArfBinaryWriter writer, IdResolver ids) throws IOException {
+        writer.beginRecord();
+        // Concept UUID
+        writer.writeSctId(getConSnoIdL(), ids);
+        // Status UUID
+        if (statusConceptL < Long.MAX_VALUE) {
+            writer.writeCodedSctId(statusConceptL, ids);
+        } else {
+            writer.writeCoded(Rf2x.convertActiveToStatusUuid(isActive));
+        }
+        // Primitive
+        writer.writeBoolean(isPrimitiveB);
+        // Effective Date
+        writer.writeTime(timeL);
+        // Path UUID String
+        writer.writeCoded(getPathUuidStr());
+        // Author UUID String --> user
+        writer.writeCoded(Rf2Defaults.getAuthorUuidStr());
         // Module UUID String
-        writer.append(this.getModuleUuidStr() + LINE_TERMINATOR);
+        writer.writeCoded(getModuleUuidStr());
     }
 
     @Override
@@ -318,12 +250,12 @@ public class Sct2_ConRecord implements Comparable<Sct2_ConRecord>, Serializable
 
     public String getPathUuidStr()
     {
-        return pathUuidStr;
+        return uuids.get(pathCode);
     }
 
     public void setPathUuidStr(String pathUuidStr)
     {
-        this.pathUuidStr = pathUuidStr;
+        this.pathCode = uuids.getCode(pathUuidStr);
     }
 
     public String getEffDateStr()
@@ -348,11 +280,11 @@ public class Sct2_ConRecord implements Comparable<Sct2_ConRecord>, Serializable
 
     public String getModuleUuidStr()
     {
-        return moduleUuidStr;
+        return uuids.get(moduleCode);
     }
 
     public void setModuleUuidStr(String moduleUuidStr)
     {
-        this.moduleUuidStr = moduleUuidStr;
+        this.moduleCode = uuids.getCode(moduleUuidStr);
     }
 }
\ No newline at end of file
@@ -15,22 +15,14 @@
  */
 package gov.vha.isaac.rf2.convert;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Serializable;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.UUID;
-import org.apache.maven.plugin.MojoFailureException;
 
-public class Sct2_DesRecord implements Comparable<Sct2_DesRecord>, Serializable {
+public class Sct2_DesRecord implements Comparable<Sct2_DesRecord> {
 
-    private static final long serialVersionUID = 1L;
-    private static final String LINE_TERMINATOR = "\r\n";
     private static final String TAB_CHARACTER = "\t";
     private long desSnoIdL; // DESCRIPTIONID
     private String desUuidStr; // id
@@ -43,18 +35,20 @@ public class Sct2_DesRecord implements Comparable<Sct2_DesRecord>, Serializable
     private boolean capStatus; // INITIALCAPITALSTATUS -- capitalization
     private String descriptionTypeStr; // DESCRIPTIONTYPE
     private String languageCodeStr; // LANGUAGECODE
-    private String pathUuidStr; // SNOMED Core default
+    private final Rf2Dictionary uuids; // module and path UUIDs of the IdResolver
+    private int pathCode; // uuids code, SNOMED Core default
     // String authorUuidStr; // saved as user
-    private String moduleUuidStr;
+    private int moduleCode; // uuids code
 
     public Sct2_DesRecord(long dId, String dateStr, boolean activeB, String moduleUuidStr,
             String conUuidStr, String termStr,
             boolean capitalization, String desTypeStr, String langCodeStr,
-            long statusConceptL, String pathUuid)
+            long statusConceptL, String pathUuid, IdResolver ids)
             throws ParseException, IOException {
+        this.uuids = ids.getUuidDictionary();
         setDesSnoIdL(dId);
         // UUID tmpUUID = Type3UuidFactory.fromSNOMED(desSnoIdL);
-        UUID tmpUUID = Rf2x.convertSctIdToUuid(getDesSnoIdL());
+        UUID tmpUUID = ids.convertSctIdToUuid(getDesSnoIdL());
         this.desUuidStr = tmpUUID.toString();
         this.setEffDateStr(dateStr);
         this.timeL = Rf2x.convertDateToTime(dateStr);
@@ -90,197 +84,110 @@ public class Sct2_DesRecord implements Comparable<Sct2_DesRecord>, Serializable
         this.descriptionTypeStr = in.descriptionTypeStr; // DESCRIPTIONTYPE
         this.languageCodeStr = in.languageCodeStr; // LANGUAGECODE
 
-        this.setPathUuidStr(in.getPathUuidStr());
+        this.uuids = in.uuids;
+        this.pathCode = in.pathCode;
         // this.authorUuidStr = in.authorUuidStr;
-        this.setModuleUuidStr(in.getModuleUuidStr());
+        this.moduleCode = in.moduleCode;
 
         this.statusConceptL = status;
     }
 
-    public static Sct2_DesRecord[] attachStatus(Sct2_DesRecord[] a, Rf2_RefsetCRecord[] b)
-            throws ParseException, MojoFailureException {
-        ArrayList<Sct2_DesRecord> addedRecords = new ArrayList<>();
-        Rf2_RefsetCRecord zeroB = new Rf2_RefsetCRecord("ZERO", "2000-01-01 00:00:00", false,
-                null, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
-
-        Arrays.sort(a);
-        Arrays.sort(b);
-
-        int idxA = 0;
-        int idxB = 0;
-        long currentId = a[0].getDesSnoIdL();
-        while (idxA < a.length) {
-            ArrayList<Sct2_DesRecord> listA = new ArrayList<>();
-            ArrayList<Rf2_RefsetCRecord> listB = new ArrayList<>();
-            while (idxA < a.length && a[idxA].getDesSnoIdL() == currentId) {
-                listA.add(a[idxA]);
-                idxA++;
-            }
-            while (idxB < b.length && b[idxB].referencedComponentIdL == currentId) {
-                listB.add(b[idxB]);
-                idxB++;
-            }
-
-            // PROCESS ID
-            if (listB.size() > 0) {
-                if (listA.get(0).timeL < listB.get(0).timeL) {
-                    listB.add(0, zeroB);
-                }
-                int idxAA = 0;
-                int idxBB = 0;
-                boolean moreToDo = true;
-                while (moreToDo) {
-                    // determine time range
-                    long timeInAA = listA.get(idxAA).timeL;
-                    long timeOutAA = Long.MAX_VALUE;
-                    if (idxAA + 1 < listA.size()) {
-                        timeOutAA = listA.get(idxAA + 1).timeL;
-                    }
-                    long timeInBB = listB.get(idxBB).timeL;
-                    long timeOutBB = Long.MAX_VALUE;
-                    if (idxBB + 1 < listB.size()) {
-                        timeOutBB = listB.get(idxBB + 1).timeL;
-                    }
-
-                    // UPDATE VALUES
-                    if (timeInAA >= timeInBB) {
-                        if (listB.get(idxBB).isActive) {
-                            listA.get(idxAA).statusConceptL = listB.get(idxBB).valueIdL;
-                        } else {
-                            // no change
-                        }
-                    } else {
-                        if (listB.get(idxBB).isActive) {
-                            addedRecords.add(new Sct2_DesRecord(listA.get(idxAA),
-                                    listB.get(idxBB).timeL, listB.get(idxBB).valueIdL));
-                        } else {
-                            addedRecords.add(new Sct2_DesRecord(listA.get(idxAA),
-                                    listB.get(idxBB).timeL, Long.MAX_VALUE));
-                        }
-                    }
-
-                    // DETERMINE NEXT TO PROCESS
-                    if (timeOutAA == Long.MAX_VALUE && timeOutBB == Long.MAX_VALUE) {
-                        moreToDo = false;
-                    } else if (timeOutAA < timeOutBB) {
-                        idxAA++;
-                    } else if (timeOutAA == timeOutBB) {
-                        idxAA++;
-                        idxBB++;
-                    } else if (timeOutAA > timeOutBB) {
-                        idxBB++;
-                    }
-                }
-            }
-
-            // NEXT ID
-            if (idxA < a.length) {
-                currentId = a[idxA].getDesSnoIdL();
-            }
-            if (idxB < b.length) {
-                while (idxB < b.length && b[idxB].referencedComponentIdL < currentId) {
-                    idxB++;
-                }
-            }
+    private static final Rf2StatusMerge<Sct2_DesRecord> STATUS_MERGE = new Rf2StatusMerge<Sct2_DesRecord>() {
+        @Override
+        long getSctId(Sct2_DesRecord record) {
+            return record.getDesSnoIdL();
         }
 
-        if (addedRecords.size() > 0) {
-            int offsetI = a.length;
-            a = Arrays.copyOf(a, a.length + addedRecords.size());
-            for (int i = 0; i < addedRecords.size(); i++) {
-                a[offsetI + i] = addedRecords.get(i);
-            }
+        @Override
+        long getTime(Sct2_DesRecord record) {
+            return record.timeL;
         }
 
-        // REMOVE DUPLICATES
-        a = removeDuplicates(a);
+        @Override
+        void setStatus(Sct2_DesRecord record, long status) {
+            record.statusConceptL = status;
+        }
 
-        return a;
-    }
+        @Override
+        Sct2_DesRecord copy(Sct2_DesRecord record, long time, long status) throws ParseException {
+            return new Sct2_DesRecord(record, time, status);
+        }
 
-    static private Sct2_DesRecord[] removeDuplicates(Sct2_DesRecord[] a)
-            throws MojoFailureException {
+        @Override
+        boolean isDuplicate(Sct2_DesRecord record, Sct2_DesRecord next) {
+            return Sct2_DesRecord.isDuplicate(record, next);
+        }
+    };
+
+    /**
+     * Attaches the extended status, the status attached records are written
+     * to out.
+     *
+     * @param a sorted in place
+     * @param b status records
+     * @return number of duplicate records dropped
+     */
+    public static long attachStatus(Sct2_DesRecord[] a, Rf2StatusIndex b, Rf2StatusMerge.Sink<Sct2_DesRecord> out)
+            throws IOException, ParseException {
         Arrays.sort(a);
+        return STATUS_MERGE.merge(Arrays.asList(a).iterator(), b, out);
+    }
 
-        // REMOVE DUPLICATES
-        int lenA = a.length;
-        ArrayList<Integer> duplIdxList = new ArrayList<>();
-        for (int idx = 0; idx < lenA - 2; idx++) {
-            if ((a[idx].getDesSnoIdL() == a[idx + 1].getDesSnoIdL())
-                    && (a[idx].statusConceptL == a[idx + 1].statusConceptL)
-                    && (a[idx].capStatus == a[idx + 1].capStatus)
-                    && (a[idx].conUuidStr.compareToIgnoreCase(a[idx + 1].conUuidStr) == 0)
-                    && (a[idx].termText.compareTo(a[idx + 1].termText) == 0)
-                    && (a[idx].descriptionTypeStr.compareToIgnoreCase(a[idx + 1].descriptionTypeStr) == 0)
-                    && (a[idx].languageCodeStr.compareTo(a[idx + 1].languageCodeStr) == 0)
-                    && a[idx].getModuleUuidStr().equalsIgnoreCase(a[idx + 1].getModuleUuidStr())) {
-                if (a[idx].statusConceptL == Long.MAX_VALUE) {
-                    if (a[idx].isActive == a[idx + 1].isActive) {
-                        duplIdxList.add(Integer.valueOf(idx + 1));
-                    }
-                } else {
-                    duplIdxList.add(Integer.valueOf(idx + 1));
-                }
-            }
-        }
-        if (duplIdxList.size() > 0) {
-            Sct2_DesRecord[] b = new Sct2_DesRecord[lenA - duplIdxList.size()];
-            int aPos = 0;
-            int bPos = 0;
-            int len;
-            for (int dropIdx : duplIdxList) {
-                len = dropIdx - aPos;
-                System.arraycopy(a, aPos, b, bPos, len);
-                bPos = bPos + len;
-                aPos = aPos + len + 1;
+    /**
+     * @return true if next repeats r with the same status, next is dropped
+     */
+    static boolean isDuplicate(Sct2_DesRecord r, Sct2_DesRecord next) {
+        if ((r.getDesSnoIdL() == next.getDesSnoIdL())
+                && (r.statusConceptL == next.statusConceptL)
+                && (r.capStatus == next.capStatus)
+                && (r.conUuidStr.compareToIgnoreCase(next.conUuidStr) == 0)
+                && (r.termText.compareTo(next.termText) == 0)
+                && (r.descriptionTypeStr.compareToIgnoreCase(next.descriptionTypeStr) == 0)
+                && (r.languageCodeStr.compareTo(next.languageCodeStr) == 0)
+                && (r.moduleCode == next.moduleCode
+                || r.getModuleUuidStr().equalsIgnoreCase(next.getModuleUuidStr()))) {
+            if (r.statusConceptL == Long.MAX_VALUE) {
+                return r.isActive == next.isActive;
             }
-            len = lenA - aPos;
-            System.arraycopy(a, aPos, b, bPos, len);
-            return b;
-        } else {
-            return a;
+            return true;
         }
+        return false;
     }
 
-    public static Sct2_DesRecord[] parseDescriptions(Rf2File f, String pathUuid)
+    public static Sct2_DesRecord[] parseDescriptions(Rf2File f, String pathUuid, final IdResolver ids)
             throws IOException, ParseException {
 
-        int count = Rf2File.countFileLines(f);
-        Sct2_DesRecord[] a = new Sct2_DesRecord[count];
-
         // DATA COLUMNS
-        int ID = 0; // id
-        int EFFECTIVE_TIME = 1; // effectiveTime
-        int ACTIVE = 2; // active
-        int MODULE_ID = 3; // moduleId
-        int CONCEPT_ID = 4; // conceptId
-        int LANGUAGE_CODE = 5; // languageCodeStr
-        int TYPE_ID = 6; // typeId
-        int TERM = 7; // term
-        int CASE_SIGNIFICANCE_ID = 8; // caseSignificanceId
-
-        BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(f.getFile()), "UTF-8"));
-
-        int idx = 0;
-        r.readLine();  // Header row
-        while (r.ready()) {
-            String[] line = r.readLine().split(TAB_CHARACTER);
-
-            a[idx] = new Sct2_DesRecord(Long.parseLong(line[ID]),
-                    Rf2x.convertEffectiveTimeToDate(line[EFFECTIVE_TIME]),
-                    Rf2x.convertStringToBoolean(line[ACTIVE]),
-                    Rf2x.convertSctIdToUuidStr(line[MODULE_ID]),
-                    Rf2x.convertSctIdToUuidStr(line[CONCEPT_ID]),
-                    line[TERM],
-                    Rf2x.convertCaseSignificanceIdToCapStatus(line[CASE_SIGNIFICANCE_ID]),
-                    Rf2x.convertSctIdToUuidStr(line[TYPE_ID]),
-                    line[LANGUAGE_CODE],
-                    Long.MAX_VALUE,
-                    pathUuid);
-            idx++;
-        }
+        final int ID = 0; // id
+        final int EFFECTIVE_TIME = 1; // effectiveTime
+        final int ACTIVE = 2; // active
+        final int MODULE_ID = 3; // moduleId
+        final int CONCEPT_ID = 4; // conceptId
+        final int LANGUAGE_CODE = 5; // languageCodeStr
+        final int TYPE_ID = 6; // typeId
+        final int TERM = 7; // term
+        final int CASE_SIGNIFICANCE_ID = 8; // caseSignificanceId
+        final String path = pathUuid;
+
+        ArrayList<Sct2_DesRecord> a = Rf2ChunkedParser.parse(f, new Rf2ChunkedParser.RowParser<Sct2_DesRecord>() {
+            @Override
+            public Sct2_DesRecord parseRow(Rf2Reader r) throws IOException, ParseException {
+                return new Sct2_DesRecord(r.getLong(ID),
+                        Rf2x.convertEffectiveTimeToDate(r.getInt(EFFECTIVE_TIME)),
+                        r.getBoolean(ACTIVE),
+                        ids.getModuleUuidStr(r.getLong(MODULE_ID)),
+                        ids.convertSctIdToUuidStr(r.getLong(CONCEPT_ID)),
+                        r.getString(TERM),
+                        Rf2x.convertCaseSignificanceIdToCapStatus(r.getLong(CASE_SIGNIFICANCE_ID)),
+                        ids.convertSctIdToUuidStr(r.getLong(TYPE_ID)),
+                        r.getString(LANGUAGE_CODE),
+                        Long.MAX_VALUE,
+                        path,
+                        ids);
+            }
+        });
 
-        return a;
+        return a.toArray(new Sct2_DesRecord[a.size()]);
     }
 
     // Create string to show some input fields for exception reporting
@@ -311,49 +218,82 @@ public class Sct2_DesRecord implements Comparable<Sct2_DesRecord>, Serializable
         this.setPathUuidStr(pathStr);
     }
     
-    public void writeArf(BufferedWriter writer)
+    public void writeArf(ArfByteWriter writer, IdResolver ids)
             throws IOException, ParseException {
         // Description UUID
-        // writer.append(desUuidStr + TAB_CHARACTER);
-        writer.append(Rf2x.convertSctIdToUuidStr(getDesSnoIdL()) + TAB_CHARACTER);
+        writer.appendSctId(getDesSnoIdL(), ids).tab();
 
         // Status UUID
         if (statusConceptL < Long.MAX_VALUE) {
-            writer.append(Rf2x.convertSctIdToUuidStr(statusConceptL) + TAB_CHARACTER);
+            writer.appendSctId(statusConceptL, ids).tab();
         } else {
-            writer.append(Rf2x.convertActiveToStatusUuid(isActive) + TAB_CHARACTER);
+            writer.appendStatus(isActive).tab();
         }
 
         // Concept UUID
-        writer.append(conUuidStr + TAB_CHARACTER);
+        writer.append(conUuidStr).tab();
 
         // Term
-        writer.append(termText + TAB_CHARACTER);
+        writer.append(termText).tab();
 
         // Capitalization Status
         if (capStatus) {
-            writer.append("1" + TAB_CHARACTER);
+            writer.append(1).tab();
         } else {
-            writer.append("0" + TAB_CHARACTER);
+            writer.append(0).tab();
         }
 
         // Description Type UUID
-        writer.append(descriptionTypeStr + TAB_CHARACTER);
+        writer.append(descriptionTypeStr).tab();
 
         // Language Code
-        writer.append(languageCodeStr + TAB_CHARACTER);
+        writer.append(languageCodeStr).tab();
 
         // Effective Date   yyyy-MM-dd HH:mm:ss
-        writer.append(Rf2x.convertTimeToDate(timeL) + TAB_CHARACTER);
+        writer.appendDate(timeL).tab();
 
         // Path UUID String
-        writer.append(this.getPathUuidStr() + TAB_CHARACTER);
+        writer.appendUuidCode(uuids, pathCode).tab();
 
         // Author UUID String --> user
-        writer.append(Rf2Defaults.getAuthorUuidStr() + TAB_CHARACTER);
+        writer.appendAuthor().tab();
 
         // Module UUID String
-        writer.append(this.getModuleUuidStr() + LINE_TERMINATOR);
+        writer.appendUuidCode(uuids, moduleCode).endLine();
+    }
+
+    /**
+     * Writes the columns of {@link #writeArf(ArfByteWriter, IdResolver)} to a
+     * binary ARF file.
+     */
+    public void writeArfBinary(ArfBinaryWriter writer, IdResolver ids) throws IOException {
+        writer.beginRecord();
+        // Description UUID
+        writer.writeSctId(getDesSnoIdL(), ids);
+        // Status UUID
+        if (statusConceptL < Long.MAX_VALUE) {
+            writer.writeCodedSctId(statusConceptL, ids);
+        } else {
+            writer.writeCoded(Rf2x.convertActiveToStatusUuid(isActive));
+        }
+        // Concept UUID
+        writer.writeUuid(conUuidStr);
+        // Term
+        writer.writeText(termText);
+        // Capitalization Status
+        writer.writeBoolean(capStatus);
+        // Description Type UUID
+        writer.writeCoded(descriptionTypeStr);
+        // Language Code
+        writer.writeCoded(languageCodeStr);
+        // Effective Date
+        writer.writeTime(timeL);
+        // Path UUID String
+        writer.writeCoded(getPathUuidStr());
+        // Author UUID String --> user
+        writer.writeCoded(Rf2Defaults.getAuthorUuidStr());
+        // Module UUID String
+        writer.writeCoded(getModuleUuidStr());
     }
 
     @Override
@@ -394,21 +334,21 @@ public class Sct2_DesRecord implements Comparable<Sct2_DesRecord>, Serializable
 
     public String getPathUuidStr()
     {
-        return pathUuidStr;
+        return uuids.get(pathCode);
     }
 
     public void setPathUuidStr(String pathUuidStr)
     {
-        this.pathUuidStr = pathUuidStr;
+        this.pathCode = uuids.getCode(pathUuidStr);
     }
 
     public String getModuleUuidStr()
     {
-        return moduleUuidStr;
+        return uuids.get(moduleCode);
     }
 
     public void setModuleUuidStr(String moduleUuidStr)
     {
-        this.moduleUuidStr = moduleUuidStr;
+        this.moduleCode = uuids.getCode(moduleUuidStr);
     }
 }
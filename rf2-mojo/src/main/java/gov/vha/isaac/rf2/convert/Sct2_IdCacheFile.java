@@ -0,0 +1,335 @@
+/*
+ * Copyright 2012 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Binary SCTID/UUID cache, written next to the serialized
+ * idSctUuidCache.ser and memory mapped by {@link Sct2_IdLookUp}.
+ *
+ * Layout, all values big endian <code>long</code>:
+ * <pre>
+ * header:  MAGIC, record count, additional record count, 0
+ * records: sctId, uuid msb, uuid lsb, time   sorted by sctId, unique sctIds
+ * additional records: same layout            sctIds listed more than once
+ * </pre>
+ * Records are looked up with a binary search directly over the mapped file,
+ * nothing is deserialized when a mojo opens the cache.
+ */
+public class Sct2_IdCacheFile {
+
+    private static final Logger LOG = LogManager.getLogger();
+    private static final long MAGIC = 0x5343544944433031L; // "SCTIDC01"
+    private static final int HEADER_SIZE = 32;
+    private static final int FIELDS = 4;
+    private static final int RECORD_SIZE = FIELDS * 8;
+    private static final int SCTID = 0;
+    private static final int UUID_MSB = 8;
+    private static final int UUID_LSB = 16;
+    private static final int TIME = 24;
+    private final ByteBuffer buf;
+    private final int count;
+    private final int additionalCount;
+
+    private Sct2_IdCacheFile(ByteBuffer buf, String source) throws IOException {
+        if (buf.capacity() < HEADER_SIZE || buf.getLong(0) != MAGIC) {
+            throw new IOException("not an SCTID/UUID cache file: " + source);
+        }
+        long c = buf.getLong(8);
+        long ac = buf.getLong(16);
+        if (c < 0 || ac < 0 || HEADER_SIZE + (c + ac) * RECORD_SIZE != buf.capacity()) {
+            throw new IOException("truncated SCTID/UUID cache file: " + source);
+        }
+        this.buf = buf;
+        this.count = (int) c;
+        this.additionalCount = (int) ac;
+    }
+
+    /**
+     * @return binary cache file kept next to the serialized cache file
+     */
+    public static File getBinaryFile(File serFile) {
+        String name = serFile.getName();
+        if (name.endsWith(".ser")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return new File(serFile.getParentFile(), name + ".idx");
+    }
+
+    /**
+     * Maps the binary cache for the serialized cache file. The binary file is
+     * rebuilt first if it is missing or older than the serialized file.
+     */
+    public static Sct2_IdCacheFile open(File serFile) throws IOException {
+        File binFile = getBinaryFile(serFile);
+        if (!binFile.exists() || binFile.lastModified() < serFile.lastModified()) {
+            LOG.info("::: building binary id cache " + binFile.getAbsolutePath());
+            write(binFile, readSerialized(serFile));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(binFile, "r");
+                FileChannel channel = raf.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("SCTID/UUID cache file too large to map: " + binFile);
+            }
+            // mapping remains valid after the channel is closed
+            return new Sct2_IdCacheFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                    binFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * In memory cache with the same layout as the binary file.
+     */
+    public static Sct2_IdCacheFile fromList(List<Sct2_IdCompact> ids) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + ids.size() * RECORD_SIZE);
+        encode(toRecords(ids), bytes);
+        return new Sct2_IdCacheFile(ByteBuffer.wrap(bytes.toByteArray()), "memory");
+    }
+
+    public static void write(File binFile, List<Sct2_IdCompact> ids) throws IOException {
+        write(binFile, toRecords(ids));
+    }
+
+    /**
+     * @param records consecutive (sctId, msb, lsb, time) values, sorted in
+     * place
+     */
+    public static void write(File binFile, long[] records) throws IOException {
+        File tmpFile = new File(binFile.getParentFile(), binFile.getName() + ".tmp");
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16)) {
+            encode(records, os);
+        }
+        if (binFile.exists() && !binFile.delete()) {
+            throw new IOException("FAILED: replacing " + binFile);
+        }
+        if (!tmpFile.renameTo(binFile)) {
+            throw new IOException("FAILED: renaming " + tmpFile + " to " + binFile);
+        }
+    }
+
+    private static long[] toRecords(List<Sct2_IdCompact> ids) {
+        long[] records = new long[ids.size() * FIELDS];
+        int r = 0;
+        for (Sct2_IdCompact id : ids) {
+            records[r++] = id.getSctId();
+            records[r++] = id.getUuidMsb();
+            records[r++] = id.getUuidLsb();
+            records[r++] = id.getTime();
+        }
+        return records;
+    }
+
+    private static void encode(long[] records, OutputStream out) throws IOException {
+        long startTime = System.nanoTime();
+        int n = records.length / FIELDS;
+        sortRecords(records, 0, n - 1);
+
+        // Single pass: the last record of each SCTID moves down to the unique
+        // section, earlier records of the SCTID are additional ids.
+        Rf2LongBuffer additional = new Rf2LongBuffer();
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            int r = i * FIELDS;
+            if (i + 1 < n && records[r] == records[r + FIELDS]) {
+                for (int f = 0; f < FIELDS; f++) {
+                    additional.add(records[r + f]);
+                }
+            } else {
+                System.arraycopy(records, r, records, unique * FIELDS, FIELDS);
+                unique++;
+            }
+        }
+        int additionalCount = additional.size() / FIELDS;
+        LOG.info("::: id cache: " + unique + " SCTIDs, " + additionalCount
+                + " additional id records, sorted and partitioned in "
+                + (System.nanoTime() - startTime) / 1000000 + " ms");
+
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeLong(MAGIC);
+        dos.writeLong(unique);
+        dos.writeLong(additionalCount);
+        dos.writeLong(0);
+        for (int i = 0; i < unique * FIELDS; i++) {
+            dos.writeLong(records[i]);
+        }
+        for (int i = 0; i < additional.size(); i++) {
+            dos.writeLong(additional.get(i));
+        }
+        dos.flush();
+    }
+
+    /**
+     * Sort records by sctId, msb, lsb; the Sct2_IdCompact order.
+     */
+    private static void sortRecords(long[] a, int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            // median of three to the middle, used as pivot
+            if (compare(a, mid, lo) < 0) {
+                swap(a, mid, lo);
+            }
+            if (compare(a, hi, lo) < 0) {
+                swap(a, hi, lo);
+            }
+            if (compare(a, hi, mid) < 0) {
+                swap(a, hi, mid);
+            }
+            swap(a, mid, hi - 1);
+            int pivot = hi - 1;
+            int i = lo;
+            int j = hi - 1;
+            while (true) {
+                while (compare(a, ++i, pivot) < 0) {
+                }
+                while (compare(a, --j, pivot) > 0) {
+                }
+                if (i >= j) {
+                    break;
+                }
+                swap(a, i, j);
+            }
+            swap(a, i, hi - 1);
+            // recurse into the smaller side, loop on the larger
+            if (i - lo < hi - i) {
+                sortRecords(a, lo, i - 1);
+                lo = i + 1;
+            } else {
+                sortRecords(a, i + 1, hi);
+                hi = i - 1;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && compare(a, j, j - 1) < 0; j--) {
+                swap(a, j, j - 1);
+            }
+        }
+    }
+
+    private static int compare(long[] a, int x, int y) {
+        int rx = x * FIELDS;
+        int ry = y * FIELDS;
+        for (int f = 0; f < 3; f++) {
+            int c = Long.compare(a[rx + f], a[ry + f]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    private static void swap(long[] a, int x, int y) {
+        int rx = x * FIELDS;
+        int ry = y * FIELDS;
+        for (int f = 0; f < FIELDS; f++) {
+            long t = a[rx + f];
+            a[rx + f] = a[ry + f];
+            a[ry + f] = t;
+        }
+    }
+
+    static ArrayList<Sct2_IdCompact> readSerialized(File serFile) throws IOException {
+        ArrayList<Sct2_IdCompact> idList = new ArrayList<>();
+        try (ObjectInputStream ois = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(serFile)))) {
+            Object obj;
+            while ((obj = ois.readObject()) != null) {
+                if (obj instanceof Sct2_IdCompact) {
+                    idList.add((Sct2_IdCompact) obj);
+                }
+            }
+        } catch (ClassNotFoundException ex) {
+            LOG.error(ex);
+        } catch (EOFException ex) {
+            // end of serialized records
+        }
+        return idList;
+    }
+
+    /**
+     * @return number of unique SCTIDs
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return record index of the SCTID, negative if not present
+     */
+    public int indexOf(long sctId) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midVal = getSctId(mid);
+            if (midVal < sctId) {
+                low = mid + 1;
+            } else if (midVal > sctId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int offset(int idx) {
+        return HEADER_SIZE + idx * RECORD_SIZE;
+    }
+
+    public long getSctId(int idx) {
+        return buf.getLong(offset(idx) + SCTID);
+    }
+
+    public long getUuidMsb(int idx) {
+        return buf.getLong(offset(idx) + UUID_MSB);
+    }
+
+    public long getUuidLsb(int idx) {
+        return buf.getLong(offset(idx) + UUID_LSB);
+    }
+
+    public long getTime(int idx) {
+        return buf.getLong(offset(idx) + TIME);
+    }
+
+    public int getAdditionalCount() {
+        return additionalCount;
+    }
+
+    public Sct2_IdCompact getAdditional(int idx) {
+        int off = offset(count + idx);
+        return new Sct2_IdCompact(buf.getLong(off + UUID_MSB), buf.getLong(off + UUID_LSB),
+                buf.getLong(off + SCTID), buf.getLong(off + TIME));
+    }
+}
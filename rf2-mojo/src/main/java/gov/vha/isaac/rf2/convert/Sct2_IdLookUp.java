@@ -15,16 +15,10 @@
  */
 package gov.vha.isaac.rf2.convert;
 
-import java.io.BufferedInputStream;
-import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.UUID;
@@ -38,92 +32,65 @@ import org.apache.logging.log4j.Logger;
 public class Sct2_IdLookUp {
 
     private Logger LOG = LogManager.getLogger();
-    private long sctIdArray[];
-    private long uuidMsbArray[];
-    private long uuidLsbArray[];
-    private HashMap<UUID, Long> UUIDtoSCTMap = null;
-    private HashMap<Long, HashSet<Sct2_IdCompact>> additionalIDs = new HashMap<>();
+    private Sct2_IdCacheFile ids;
+    private boolean enableUUIDtoSCTMap;
+    private Sct2_UuidIndex UUIDtoSCTMap = null;
+    private HashMap<Long, HashSet<Sct2_IdCompact>> additionalIDs = null;
 
+    /**
+     * Opens the binary cache next to the serialized id cache file, see
+     * {@link Sct2_IdCacheFile}.
+     */
     public Sct2_IdLookUp(File idCacheFile, boolean enableUUIDtoSCTMap) throws IOException {
-        
-        ArrayList<Sct2_IdCompact> idList = new ArrayList<>();
-        ObjectInputStream ois;
-        ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(idCacheFile)));
-        try {
-            Object obj;
-            while ((obj = ois.readObject()) != null) {
-                if (obj instanceof Sct2_IdCompact) {
-                    idList.add((Sct2_IdCompact) obj);
-                }
-            }
-        } catch (ClassNotFoundException ex) {
-            LOG.error(ex);
-        } catch (EOFException ex) {
-            // getLog().info(" relationship count = " + count + " @EOF\r\n");
-            ois.close();
-        }
-        if (enableUUIDtoSCTMap) {
-            UUIDtoSCTMap = new HashMap<UUID, Long>();
-        }
-        setupArrays(idList);
+        this.enableUUIDtoSCTMap = enableUUIDtoSCTMap;
+        setupArrays(Sct2_IdCacheFile.open(idCacheFile));
     }
 
     public Sct2_IdLookUp(ArrayList<Sct2_IdCompact> idList, boolean enableUUIDtoSCTMap) throws IOException {
-        if (enableUUIDtoSCTMap) {
-            UUIDtoSCTMap = new HashMap<UUID, Long>();
-        }
-        setupArrays(idList);
+        this.enableUUIDtoSCTMap = enableUUIDtoSCTMap;
+        setupArrays(Sct2_IdCacheFile.fromList(idList));
     }
     
     public Collection<Long> getAdditionalIDs() {
-        return additionalIDs.keySet();
+        return getAdditionalIDRecords().keySet();
     }
     
-    public HashMap<Long, HashSet<Sct2_IdCompact>> getAdditionalIDRecords() {
-        return additionalIDs;
-    }
-
-    private void setupArrays(ArrayList<Sct2_IdCompact> idList) throws IOException {
-        int countSctDuplicates = 0;
-        int countSctPairUuidChanged = 0;
-        StringBuilder sb = new StringBuilder();
-        ArrayList<Sct2_IdCompact> tempIdList = new ArrayList<>(idList);
-        Collections.sort(idList); // required for binarySearch
-        Collections.sort(tempIdList);
-        for (int i = 0; i < tempIdList.size() - 1; i++) {
-            if (tempIdList.get(i).getSctId() == tempIdList.get(i + 1).getSctId()) {
-                //remove and write to additional ids file
-                idList.remove(i);
-                Sct2_IdCompact sct = tempIdList.remove(i);
-                i--;
-                HashSet<Sct2_IdCompact> entries = additionalIDs.get(sct.getSctId());
-                if (entries == null) {
+    /**
+     * Built on first use from the additional records of the id cache, which
+     * are stored grouped by SCTID.
+     */
+    public synchronized HashMap<Long, HashSet<Sct2_IdCompact>> getAdditionalIDRecords() {
+        if (additionalIDs == null) {
+            additionalIDs = new HashMap<>();
+            HashSet<Sct2_IdCompact> entries = null;
+            long entriesSctId = 0;
+            for (int i = 0; i < ids.getAdditionalCount(); i++) {
+                Sct2_IdCompact sct = ids.getAdditional(i);
+                if (entries == null || sct.getSctId() != entriesSctId) {
                     entries = new HashSet<>();
-                    additionalIDs.put(sct.getSctId(), entries);
+                    entriesSctId = sct.getSctId();
+                    additionalIDs.put(entriesSctId, entries);
                 }
                 entries.add(sct);
             }
         }
+        return additionalIDs;
+    }
+
+    private void setupArrays(Sct2_IdCacheFile idCache) throws IOException {
+        int countSctPairUuidChanged = 0;
+        StringBuilder sb = new StringBuilder();
+        sb.append("\r\n::: countSctIds = ");
+        sb.append(idCache.size());
         sb.append("\r\n::: countSctDuplicates = ");
-        sb.append(countSctDuplicates);
+        sb.append(idCache.getAdditionalCount());
         sb.append("\r\n::: countSctPairUuidChanged = ");
         sb.append(countSctPairUuidChanged);
         sb.append("\r\n");
         LOG.info(sb.toString());
-        if (countSctDuplicates > 0) {
-            throw new UnsupportedOperationException("duplicate sctids not supported");
-        }
-        this.sctIdArray = new long[idList.size()];
-        this.uuidMsbArray = new long[idList.size()];
-        this.uuidLsbArray = new long[idList.size()];
-        for (int i = 0; i < idList.size(); i++) {
-            Sct2_IdCompact sct2_IdCompact = idList.get(i);
-            this.sctIdArray[i] = sct2_IdCompact.getSctId();
-            this.uuidMsbArray[i] = sct2_IdCompact.getUuidMsb();
-            this.uuidLsbArray[i] = sct2_IdCompact.getUuidLsb();
-            if (UUIDtoSCTMap != null) {
-                UUIDtoSCTMap.put(new UUID(sct2_IdCompact.getUuidMsb(), sct2_IdCompact.getUuidLsb()), sct2_IdCompact.getSctId());
-            }
+        this.ids = idCache;
+        if (enableUUIDtoSCTMap) {
+            UUIDtoSCTMap = new Sct2_UuidIndex(idCache);
         }
     }
 
@@ -131,11 +98,26 @@ public class Sct2_IdLookUp {
         return getUuid(Long.parseLong(sctIdString));
     }
 
+    /**
+     * @return index of the SCTID in the cache, -1 if it is not cached
+     */
+    public int indexOf(long sctId) {
+        return ids.indexOf(sctId);
+    }
+
+    public long getUuidMsb(int idx) {
+        return ids.getUuidMsb(idx);
+    }
+
+    public long getUuidLsb(int idx) {
+        return ids.getUuidLsb(idx);
+    }
+
     public UUID getUuid(long sctId) {
-        int idx = Arrays.binarySearch(sctIdArray, sctId);
+        int idx = ids.indexOf(sctId);
         if (idx >= 0) {
-            long msb = uuidMsbArray[idx];
-            long lsb = uuidLsbArray[idx];
+            long msb = ids.getUuidMsb(idx);
+            long lsb = ids.getUuidLsb(idx);
             return new UUID(msb, lsb);
         } else {
             return null;
@@ -144,6 +126,10 @@ public class Sct2_IdLookUp {
     
     public Long getSCTId(UUID uuid)
     {
-        return UUIDtoSCTMap == null ? null : UUIDtoSCTMap.get(uuid);
+        if (UUIDtoSCTMap == null) {
+            return null;
+        }
+        int idx = UUIDtoSCTMap.indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        return idx < 0 ? null : ids.getSctId(idx);
     }
 }
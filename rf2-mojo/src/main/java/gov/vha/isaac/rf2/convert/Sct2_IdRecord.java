@@ -86,6 +86,7 @@ public class Sct2_IdRecord {
             Set<Long> idSchemeSet = new HashSet<>();
             Set<Long> dateTimeSet = new HashSet<>();
             Set<Long> moduleIdSet = new HashSet<>();
+            Rf2LongBuffer idRecords = new Rf2LongBuffer();
             try (ObjectOutputStream oos = new ObjectOutputStream(
                     new BufferedOutputStream(new FileOutputStream(idCacheOutputPathFname)))) {
                         // open searchable text file
@@ -133,8 +134,9 @@ public class Sct2_IdRecord {
                                     countNonActiveL++;
                                 }
                                 // EFFECTIVE_TIME
-                                String eTimeStr = Rf2x.convertEffectiveTimeToDate(line[EFFECTIVE_TIME]);
-                                long eTime = Rf2x.convertDateToTime(eTimeStr);
+                                int eTimeInt = Rf2EffectiveTime.parseEffectiveTime(line[EFFECTIVE_TIME]);
+                                long eTime = (eTimeInt >= 0) ? Rf2x.convertEffectiveTimeToTime(eTimeInt)
+                                        : Rf2x.convertDateToTime(Rf2x.convertEffectiveTimeToDate(line[EFFECTIVE_TIME]));
                                 dateTimeSet.add(eTime);
 
                                 // MODULE_ID
@@ -160,6 +162,10 @@ public class Sct2_IdRecord {
                                         eTime);
                                 // Write to JBIN file
                                 oos.writeUnshared(tempIdCompact);
+                                idRecords.add(sctIdL);
+                                idRecords.add(aUuid.getMostSignificantBits());
+                                idRecords.add(aUuid.getLeastSignificantBits());
+                                idRecords.add(eTime);
 
                                 // Write to TEXT file
                                 StringBuilder sb = new StringBuilder();
@@ -213,6 +219,8 @@ public class Sct2_IdRecord {
                         bw.flush();
                         bw.close();
                     }
+            // Write sorted binary cache, after the serialized file so it is not older
+            Sct2_IdCacheFile.write(Sct2_IdCacheFile.getBinaryFile(idCacheOutputPathFname), idRecords.toArray());
         } catch (Exception ex) {
             throw new MojoFailureException(ex.getLocalizedMessage(), ex);
         }
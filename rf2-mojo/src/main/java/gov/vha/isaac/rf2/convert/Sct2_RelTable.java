@@ -0,0 +1,468 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.ihtsdo.otf.tcc.api.metadata.binding.TermAux;
+
+/**
+ * Relationships of an RF2 file held in columns, instead of one record object
+ * with its own strings per row. Module and path UUIDs are kept as codes of
+ * the {@link IdResolver#getUuidDictionary()}.
+ *
+ * Rows are addressed by index. Sorting yields a row order, status attachment
+ * appends the added status change rows at the end of the table, duplicates
+ * are skipped while the rows are handed out, and ARF lines are written
+ * straight from the columns. The ARF output is the same as that of the
+ * former per record relationship conversion.
+ */
+public class Sct2_RelTable {
+
+    private static final String uuidUserStr = "f7495b58-6630-3499-a44e-2052b5fcf06c";
+    private static final String uuidUserSnorocketStr = "7e87cc5b-e85f-3860-99eb-7a44f2b9e6f9";
+    private static final byte[] uuidUserBytes = ArfByteWriter.encode(uuidUserStr);
+    private static final byte[] uuidUserSnorocketBytes = ArfByteWriter.encode(uuidUserSnorocketStr);
+    // DATA COLUMNS
+    private static final int ID = 0; // id
+    private static final int EFFECTIVE_TIME = 1; // effectiveTime
+    private static final int ACTIVE = 2; // active
+    private static final int MODULE_ID = 3; // moduleId
+    private static final int SOURCE_ID = 4; // sourceId
+    private static final int DESTINATION_ID = 5; // destinationId
+    private static final int RELATIONSHIP_GROUP = 6; // relationshipGroup
+    private static final int TYPE_ID = 7; // typeId
+    private static final int CHARACTERISTIC_TYPE = 8; // characteristicTypeId
+
+    // Refinibility SCTID
+    // notRefinable    RF2==900000000000007000, RF1="0"
+    // optional     RF2==900000000000216007, RF1="1"
+    // mandatory    RF2==900000000000218008, RF1="2"
+    private static final long refinibilityNotRefinableId = Long.parseLong("900000000000007000");
+    private static final long refinibilityOptionalId = Long.parseLong("900000000000216007");
+    private static final long refinibilityMandatoryId = Long.parseLong("900000000000218008");
+
+    // Inferred relationship SCTID RF2==900000000000011006
+    private static final long inferredRelSctId = Long.parseLong("900000000000011006");
+
+    // ISA relationship SCTID RF2==116680003
+    private static final long isaRelSctId = Long.parseLong("116680003");
+
+    // Qualifier relationship SCTID RF2==900000000000225001
+    private static final long qualifierRelSctId = Long.parseLong("900000000000225001");
+
+    private int size;
+    // RELATIONSHIP COLUMNS
+    private long[] relSnoId; // SNOMED RELATIONSHIPID
+    private int[] effectiveTime; // yyyyMMdd of the RF2 row
+    private long[] time;
+    private long[] statusConcept; // extended from AttributeValue file
+    private long[] c1SnoId; // CONCEPTID1
+    private long[] roleTypeSnoId; // RELATIONSHIPTYPE .. SNOMED ID
+    private long[] c2SnoId; // CONCEPTID2
+    private int[] group; // RELATIONSHIPGROUP
+    private long[] characteristic; // CHARACTERISTICTYPE
+    private long[] refinability; // REFINABILITY
+    private final Rf2Dictionary uuids; // module and path UUIDs of the IdResolver
+    private int[] module; // uuids code
+    private int[] path; // uuids code
+    private final BitSet active = new BitSet();
+    private final BitSet inferred = new BitSet();
+
+    private final Rf2StatusMerge<Integer> statusMerge = new Rf2StatusMerge<Integer>() {
+        @Override
+        long getSctId(Integer row) {
+            return relSnoId[row];
+        }
+
+        @Override
+        long getTime(Integer row) {
+            return time[row];
+        }
+
+        @Override
+        void setStatus(Integer row, long status) {
+            statusConcept[row] = status;
+        }
+
+        @Override
+        Integer copy(Integer row, long time, long status) {
+            return copyRow(row, time, status);
+        }
+
+        @Override
+        boolean isDuplicate(Integer row, Integer next) {
+            return Sct2_RelTable.this.isDuplicate(row, next);
+        }
+    };
+
+    private Sct2_RelTable(int capacity, Rf2Dictionary uuids) {
+        this.uuids = uuids;
+        capacity = Math.max(16, capacity);
+        this.relSnoId = new long[capacity];
+        this.effectiveTime = new int[capacity];
+        this.time = new long[capacity];
+        this.statusConcept = new long[capacity];
+        this.c1SnoId = new long[capacity];
+        this.roleTypeSnoId = new long[capacity];
+        this.c2SnoId = new long[capacity];
+        this.group = new int[capacity];
+        this.characteristic = new long[capacity];
+        this.refinability = new long[capacity];
+        this.module = new int[capacity];
+        this.path = new int[capacity];
+    }
+
+    /**
+     * Set inferred to false for non-inferred relationships
+     */
+    private static boolean isInferredRel(boolean inferredFile, long characteristicId) {
+        if (inferredFile && characteristicId != inferredRelSctId) {
+            // If "Inferred" file contains a relationship which is not inferred
+            // ... for example, an "Additional" relationship ...
+            // then set the inferred flag to false so the author is not later set to classifier.
+            return false;
+        }
+        return inferredFile;
+    }
+
+    private static long getRefinabilityId(long characteristicId, long roleTypeSctId) {
+        // Set Historical relationships refinibility to 'not refinable'
+        long refinabilityId = refinibilityOptionalId;
+        // Historical have thisCharacteristicId of -1
+        if (characteristicId == -1L) {
+            refinabilityId = refinibilityNotRefinableId;
+        }
+
+        // Set ISA relationships refinibility to 'not refinable'
+        if (roleTypeSctId == isaRelSctId) {
+            refinabilityId = refinibilityNotRefinableId;
+        }
+
+        // Set Qualifier relationships refinibility to 'mandatory'
+        if (characteristicId == qualifierRelSctId) {
+            refinabilityId = refinibilityMandatoryId;
+        }
+        return refinabilityId;
+    }
+
+    public static Sct2_RelTable parseRelationships(Rf2File f, boolean inferredB, String pathUuid, final IdResolver ids)
+            throws IOException, ParseException {
+        final int pathCode = ids.getUuidDictionary().getCode(pathUuid);
+        final boolean inferredFile = inferredB;
+
+        List<Sct2_RelTable> chunks = Rf2ChunkedParser.parseChunks(f, new Rf2ChunkedParser.ChunkParser<Sct2_RelTable>() {
+            @Override
+            public Sct2_RelTable parseChunk(Rf2Reader r) throws IOException, ParseException {
+                Sct2_RelTable t = new Sct2_RelTable(1024, ids.getUuidDictionary());
+                while (r.next()) {
+                    long characteristicId = r.getLong(CHARACTERISTIC_TYPE);
+                    long roleTypeId = r.getLong(TYPE_ID);
+                    int row = t.addRow();
+                    t.relSnoId[row] = r.getLong(ID);
+                    t.effectiveTime[row] = r.getInt(EFFECTIVE_TIME);
+                    t.time[row] = Rf2x.convertEffectiveTimeToTime(t.effectiveTime[row]);
+                    t.active.set(row, r.getBoolean(ACTIVE));
+                    t.statusConcept[row] = Long.MAX_VALUE;
+                    t.c1SnoId[row] = r.getLong(SOURCE_ID);
+                    t.roleTypeSnoId[row] = roleTypeId;
+                    t.c2SnoId[row] = r.getLong(DESTINATION_ID);
+                    t.group[row] = r.getInt(RELATIONSHIP_GROUP);
+                    t.characteristic[row] = characteristicId;
+                    t.refinability[row] = getRefinabilityId(characteristicId, roleTypeId);
+                    t.inferred.set(row, isInferredRel(inferredFile, characteristicId));
+                    t.module[row] = ids.getModuleCode(r.getLong(MODULE_ID));
+                    t.path[row] = pathCode;
+                }
+                return t;
+            }
+        });
+        if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+
+        int total = 0;
+        for (Sct2_RelTable chunk : chunks) {
+            total += chunk.size;
+        }
+        Sct2_RelTable table = new Sct2_RelTable(total, ids.getUuidDictionary());
+        for (Sct2_RelTable chunk : chunks) {
+            table.append(chunk);
+        }
+        return table;
+    }
+
+    /**
+     * @return index of a new row at the end of the table
+     */
+    private int addRow() {
+        if (size == relSnoId.length) {
+            grow(size + (size >> 1));
+        }
+        return size++;
+    }
+
+    private void grow(int capacity) {
+        relSnoId = Arrays.copyOf(relSnoId, capacity);
+        effectiveTime = Arrays.copyOf(effectiveTime, capacity);
+        time = Arrays.copyOf(time, capacity);
+        statusConcept = Arrays.copyOf(statusConcept, capacity);
+        c1SnoId = Arrays.copyOf(c1SnoId, capacity);
+        roleTypeSnoId = Arrays.copyOf(roleTypeSnoId, capacity);
+        c2SnoId = Arrays.copyOf(c2SnoId, capacity);
+        group = Arrays.copyOf(group, capacity);
+        characteristic = Arrays.copyOf(characteristic, capacity);
+        refinability = Arrays.copyOf(refinability, capacity);
+        module = Arrays.copyOf(module, capacity);
+        path = Arrays.copyOf(path, capacity);
+    }
+
+    private void append(Sct2_RelTable t) {
+        if (size + t.size > relSnoId.length) {
+            grow(size + t.size);
+        }
+        System.arraycopy(t.relSnoId, 0, relSnoId, size, t.size);
+        System.arraycopy(t.effectiveTime, 0, effectiveTime, size, t.size);
+        System.arraycopy(t.time, 0, time, size, t.size);
+        System.arraycopy(t.statusConcept, 0, statusConcept, size, t.size);
+        System.arraycopy(t.c1SnoId, 0, c1SnoId, size, t.size);
+        System.arraycopy(t.roleTypeSnoId, 0, roleTypeSnoId, size, t.size);
+        System.arraycopy(t.c2SnoId, 0, c2SnoId, size, t.size);
+        System.arraycopy(t.group, 0, group, size, t.size);
+        System.arraycopy(t.characteristic, 0, characteristic, size, t.size);
+        System.arraycopy(t.refinability, 0, refinability, size, t.size);
+        System.arraycopy(t.module, 0, module, size, t.size);
+        System.arraycopy(t.path, 0, path, size, t.size);
+        for (int i = t.active.nextSetBit(0); i >= 0; i = t.active.nextSetBit(i + 1)) {
+            active.set(size + i);
+        }
+        for (int i = t.inferred.nextSetBit(0); i >= 0; i = t.inferred.nextSetBit(i + 1)) {
+            inferred.set(size + i);
+        }
+        size += t.size;
+    }
+
+    /**
+     * The row at another time with another status.
+     */
+    private int copyRow(int in, long newTime, long status) {
+        int row = addRow();
+        relSnoId[row] = relSnoId[in];
+        effectiveTime[row] = effectiveTime[in];
+        time[row] = newTime;
+        active.set(row, active.get(in));
+        statusConcept[row] = status;
+        c1SnoId[row] = c1SnoId[in];
+        roleTypeSnoId[row] = roleTypeSnoId[in];
+        c2SnoId[row] = c2SnoId[in];
+        group[row] = group[in];
+        characteristic[row] = characteristic[in];
+        refinability[row] = refinability[in];
+        inferred.set(row, inferred.get(in));
+        module[row] = module[in];
+        path[row] = path[in];
+        return row;
+    }
+
+    /**
+     * @return true if row next repeats row with the same status, next is
+     * dropped.
+     */
+    private boolean isDuplicate(int row, int next) {
+        if ((relSnoId[row] == relSnoId[next])
+                && (c1SnoId[row] == c1SnoId[next])
+                && (roleTypeSnoId[row] == roleTypeSnoId[next])
+                && (c2SnoId[row] == c2SnoId[next])
+                && (group[row] == group[next])
+                && (statusConcept[row] == statusConcept[next])
+                && (inferred.get(row) == inferred.get(next))
+                && (characteristic[row] == characteristic[next])
+                && (refinability[row] == refinability[next])
+                && (module[row] == module[next]
+                || getModuleUuidStr(row).equalsIgnoreCase(getModuleUuidStr(next)))) {
+            if (statusConcept[row] == Long.MAX_VALUE) {
+                return active.get(row) == active.get(next);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return rows in relationship id and time order, rows with the same id
+     * and time keep their file order
+     */
+    public int[] sortedRows() {
+        return Rf2IndexSort.sort(size, new Rf2IndexSort.RowComparator() {
+            @Override
+            public int compare(int x, int y) {
+                int c = Long.compare(relSnoId[x], relSnoId[y]);
+                return c != 0 ? c : Long.compare(time[x], time[y]);
+            }
+        });
+    }
+
+    /**
+     * Attaches the extended status, rows for status changes are appended to
+     * the table. The rows to write are handed to out in relationship id and
+     * time order, without duplicates.
+     *
+     * @return number of duplicate rows dropped
+     */
+    public long attachStatus(Rf2StatusIndex b, Rf2StatusMerge.Sink<Integer> out)
+            throws IOException, ParseException {
+        final int[] order = sortedRows();
+        return statusMerge.merge(new Iterator<Integer>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < order.length;
+            }
+
+            @Override
+            public Integer next() {
+                if (next >= order.length) {
+                    throw new NoSuchElementException();
+                }
+                return order[next++];
+            }
+        }, b, out);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getRelSnoId(int row) {
+        return relSnoId[row];
+    }
+
+    public String getEffDateStr(int row) {
+        return Rf2x.convertEffectiveTimeToDate(effectiveTime[row]);
+    }
+
+    public String getPathUuidStr(int row) {
+        return uuids.get(path[row]);
+    }
+
+    public void setPath(int row, String pathStr) {
+        path[row] = uuids.getCode(pathStr);
+    }
+
+    public String getModuleUuidStr(int row) {
+        return uuids.get(module[row]);
+    }
+
+    public void writeArf(int row, ArfByteWriter writer, IdResolver ids) throws IOException, ParseException {
+        // Relationship UUID
+        writer.appendSctId(relSnoId[row], ids).tab();
+
+        // Status UUID
+        if (statusConcept[row] < Long.MAX_VALUE) {
+            writer.appendSctId(statusConcept[row], ids).tab();
+        } else {
+            writer.appendStatus(active.get(row)).tab();
+        }
+
+        // Source Concept UUID
+        writer.appendSctId(c1SnoId[row], ids).tab();
+
+        // Relationship Type UUID
+        writer.appendSctId(roleTypeSnoId[row], ids).tab();
+
+        // Destination Concept UUID
+        writer.appendSctId(c2SnoId[row], ids).tab();
+
+        // Characteristic Type UUID
+        if (characteristic[row] >= 0) {
+            writer.appendSctId(characteristic[row], ids).tab();
+        } else { // -1 becomes  ==> (2) historical relationship
+            writer.appendUuid(TermAux.REL_HISTORIC.getPrimodialUuid()).tab();
+        }
+
+        // Refinibility UUID
+        writer.appendSctId(refinability[row], ids).tab();
+
+        // Relationship Group
+        writer.append(group[row]).tab();
+
+        // Effective Date
+        writer.appendDate(time[row]).tab();
+
+        // Path UUID String
+        writer.appendUuidCode(uuids, path[row]).tab();
+
+        // Author UUID String
+        if (inferred.get(row)) {
+            writer.append(uuidUserSnorocketBytes).tab();
+        } else {
+            writer.append(uuidUserBytes).tab();
+        }
+
+        // Module UUID String
+        writer.appendUuidCode(uuids, module[row]).endLine();
+    }
+
+    /**
+     * Writes the columns of {@link #writeArf(int, ArfByteWriter, IdResolver)}
+     * to a binary ARF file.
+     */
+    public void writeArfBinary(int row, ArfBinaryWriter writer, IdResolver ids) throws IOException {
+        writer.beginRecord();
+        // Relationship UUID
+        writer.writeSctId(relSnoId[row], ids);
+        // Status UUID
+        if (statusConcept[row] < Long.MAX_VALUE) {
+            writer.writeCodedSctId(statusConcept[row], ids);
+        } else {
+            writer.writeCoded(Rf2x.convertActiveToStatusUuid(active.get(row)));
+        }
+        // Source Concept UUID
+        writer.writeSctId(c1SnoId[row], ids);
+        // Relationship Type UUID
+        writer.writeCodedSctId(roleTypeSnoId[row], ids);
+        // Destination Concept UUID
+        writer.writeSctId(c2SnoId[row], ids);
+        // Characteristic Type UUID
+        if (characteristic[row] >= 0) {
+            writer.writeCodedSctId(characteristic[row], ids);
+        } else { // -1 becomes  ==> (2) historical relationship
+            writer.writeCoded(TermAux.REL_HISTORIC.getPrimodialUuid().toString());
+        }
+        // Refinibility UUID
+        writer.writeCodedSctId(refinability[row], ids);
+        // Relationship Group
+        writer.writeInt(group[row]);
+        // Effective Date
+        writer.writeTime(time[row]);
+        // Path UUID String
+        writer.writeCoded(getPathUuidStr(row));
+        // Author UUID String
+        if (inferred.get(row)) {
+            writer.writeCoded(uuidUserSnorocketStr);
+        } else {
+            writer.writeCoded(uuidUserStr);
+        }
+        // Module UUID String
+        writer.writeCoded(getModuleUuidStr(row));
+    }
+}
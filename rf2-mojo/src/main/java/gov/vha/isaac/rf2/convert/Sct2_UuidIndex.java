@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+/**
+ * UUID to SCTID reverse index over a {@link Sct2_IdCacheFile}.
+ *
+ * Open addressing table with linear probing. Slots hold the record index + 1
+ * (0 is empty); the UUID of a slot is read back from the cache records, so
+ * the table costs 4 bytes per slot and no objects per identifier. The table
+ * is at most half full. When a UUID is paired with more than one SCTID the
+ * last record wins, as the former HashMap did.
+ */
+class Sct2_UuidIndex {
+
+    private final Sct2_IdCacheFile ids;
+    private final int[] slots;
+    private final int mask;
+
+    Sct2_UuidIndex(Sct2_IdCacheFile ids) {
+        this.ids = ids;
+        int capacity = Integer.highestOneBit(Math.max(16, ids.size()) * 2 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < ids.size(); i++) {
+            long msb = ids.getUuidMsb(i);
+            long lsb = ids.getUuidLsb(i);
+            slots[find(msb, lsb)] = i + 1;
+        }
+    }
+
+    /**
+     * @return slot holding the UUID, or the empty slot where it belongs
+     */
+    private int find(long msb, long lsb) {
+        int slot = hash(msb, lsb) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return slot;
+            }
+            if (ids.getUuidMsb(entry - 1) == msb && ids.getUuidLsb(entry - 1) == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L + lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * @return record index of the UUID in the cache, -1 if not present
+     */
+    int indexOf(long msb, long lsb) {
+        return slots[find(msb, lsb)] - 1;
+    }
+}
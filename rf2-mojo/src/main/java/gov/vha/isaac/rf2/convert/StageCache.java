@@ -0,0 +1,317 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Manifest of the mojo stages which write into one build directory, used to
+ * skip a stage whose inputs did not change since it last completed.
+ *
+ * A stage is keyed by its name and parameters. Its fingerprint is a SHA-1
+ * digest of the parameters and of the content of every input file, the
+ * plugin code included. The manifest records the fingerprint of each
+ * completed stage with the length and modification time of the files the
+ * stage wrote. A stage is unchanged when the fingerprint matches and its
+ * output files are still as it left them, so a stage whose outputs were
+ * overwritten by another one runs again.
+ *
+ * Content hashes are kept in the manifest by path, length and modification
+ * time, so an input file is only read again after it changed.
+ */
+public class StageCache {
+
+    public static final String MANIFEST_NAME = "stage-manifest.properties";
+    private static final String HASH_PREFIX = "hash:";
+    private static final int BUFFER_SIZE = 1 << 16; // bytes
+    private final File manifestFile;
+    private final Properties manifest = new Properties();
+    private final String name;
+    private final StringBuilder parameters = new StringBuilder();
+    private final List<File> inputs = new ArrayList<File>();
+    private final List<File> outputDirs = new ArrayList<File>();
+    private Map<File, String> outputsBefore;
+    private String key;
+
+    /**
+     * @param manifestDir directory holding the manifest
+     * @param name stage name, the mojo goal
+     */
+    public StageCache(File manifestDir, String name) throws IOException {
+        this.manifestFile = new File(manifestDir, MANIFEST_NAME);
+        this.name = name;
+        if (manifestFile.isFile()) {
+            try (InputStream in = new FileInputStream(manifestFile)) {
+                manifest.load(in);
+            }
+        }
+    }
+
+    public File getManifestFile() {
+        return manifestFile;
+    }
+
+    /**
+     * Adds a parameter to the stage key. Arrays are compared by content.
+     */
+    public void addParameter(String parameterName, Object value) {
+        String s;
+        if (value instanceof Object[]) {
+            s = Arrays.deepToString((Object[]) value);
+        } else if (value != null && value.getClass().isArray()) {
+            s = Arrays.deepToString(new Object[]{value});
+        } else {
+            s = String.valueOf(value);
+        }
+        parameters.append(parameterName).append('=').append(s).append('\n');
+    }
+
+    /**
+     * Adds an input file, or all files under an input directory. A missing
+     * input is part of the fingerprint as missing.
+     */
+    public void addInput(File f) {
+        if (f != null) {
+            inputs.add(f.getAbsoluteFile());
+        }
+    }
+
+    /**
+     * Adds the jar or class directory <code>c</code> was loaded from, so a
+     * rebuilt plugin runs the stage again.
+     */
+    public void addCodeOf(Class<?> c) throws IOException {
+        CodeSource source = c.getProtectionDomain().getCodeSource();
+        if (source == null) {
+            throw new IOException("No code source for " + c.getName());
+        }
+        try {
+            addInput(new File(source.getLocation().toURI()));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IOException("Code source of " + c.getName() + " is not a file: " + source.getLocation(), e);
+        }
+    }
+
+    /**
+     * Adds a directory the stage writes its output files into. Files which are
+     * new or changed after the stage are recorded as its outputs.
+     */
+    public void addOutputDirectory(File dir) {
+        outputDirs.add(dir.getAbsoluteFile());
+    }
+
+    /**
+     * Compares the stage with its last completed run and starts tracking the
+     * files it writes.
+     *
+     * @return <code>true</code> when the inputs and parameters are unchanged
+     * and the outputs are still in place
+     */
+    public boolean isUnchanged() throws IOException {
+        outputsBefore = listOutputs();
+        String fingerprint = manifest.getProperty(getKey() + ".fingerprint");
+        if (fingerprint == null || !fingerprint.equals(fingerprint())) {
+            return false;
+        }
+        if (manifest.getProperty(getKey() + ".outputs") == null) {
+            return false;
+        }
+        for (Map.Entry<File, String> output : recordedOutputs().entrySet()) {
+            if (!output.getValue().equals(outputsBefore.get(output.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the output files of the last completed run with their length
+     * and modification time
+     */
+    private Map<File, String> recordedOutputs() {
+        HashMap<File, String> outputs = new HashMap<File, String>();
+        String count = manifest.getProperty(getKey() + ".outputs");
+        for (int i = 0; count != null && i < Integer.parseInt(count); i++) {
+            // length|modified|path
+            String[] output = manifest.getProperty(getKey() + ".output." + i).split("\\|", 3);
+            outputs.put(new File(output[2]), output[0] + "|" + output[1]);
+        }
+        return outputs;
+    }
+
+    /**
+     * Records the stage as completed with the current inputs and the files it
+     * wrote since {@link #isUnchanged()}.
+     */
+    public void completed() throws IOException {
+        if (outputsBefore == null) {
+            throw new IllegalStateException("isUnchanged() not called for " + name);
+        }
+        String fingerprint = fingerprint();
+        // files rewritten within the modification time resolution look
+        // unchanged, so the outputs of the last run are kept
+        Map<File, String> previous = recordedOutputs();
+        String prefix = getKey() + ".";
+        for (String k : manifest.stringPropertyNames()) {
+            if (k.startsWith(prefix)) {
+                manifest.remove(k);
+            }
+        }
+        int count = 0;
+        for (Map.Entry<File, String> output : new TreeMap<File, String>(listOutputs()).entrySet()) {
+            if (!output.getValue().equals(outputsBefore.get(output.getKey()))
+                    || previous.containsKey(output.getKey())) {
+                manifest.setProperty(prefix + "output." + count, output.getValue() + '|' + output.getKey().getPath());
+                count++;
+            }
+        }
+        manifest.setProperty(prefix + "outputs", Integer.toString(count));
+        manifest.setProperty(prefix + "fingerprint", fingerprint);
+        // forget the hashes of deleted files
+        for (String k : manifest.stringPropertyNames()) {
+            if (k.startsWith(HASH_PREFIX) && !new File(k.substring(HASH_PREFIX.length())).isFile()) {
+                manifest.remove(k);
+            }
+        }
+        save();
+    }
+
+    private void save() throws IOException {
+        manifestFile.getParentFile().mkdirs();
+        File tmp = new File(manifestFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            manifest.store(out, "Completed mojo stages, see " + StageCache.class.getName());
+        }
+        Files.move(tmp.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private String getKey() {
+        if (key == null) {
+            key = name + "." + hex(digest(parameters.toString().getBytes(StandardCharsets.UTF_8))).substring(0, 12);
+        }
+        return key;
+    }
+
+    private String fingerprint() throws IOException {
+        MessageDigest md = newDigest();
+        md.update(parameters.toString().getBytes(StandardCharsets.UTF_8));
+        for (File input : inputs) {
+            TreeMap<String, File> files = new TreeMap<String, File>();
+            listFiles(input, files);
+            if (files.isEmpty()) {
+                md.update((input.getPath() + "|missing\n").getBytes(StandardCharsets.UTF_8));
+            }
+            for (Map.Entry<String, File> f : files.entrySet()) {
+                md.update((f.getKey() + '|' + contentHash(f.getValue()) + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return hex(md.digest());
+    }
+
+    private static void listFiles(File f, TreeMap<String, File> files) {
+        if (f.isFile()) {
+            files.put(f.getPath(), f);
+            return;
+        }
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                listFiles(child, files);
+            }
+        }
+    }
+
+    /**
+     * @return the SHA-1 of the file, computed again only if its length or
+     * modification time changed
+     */
+    private String contentHash(File f) throws IOException {
+        String stamp = f.length() + "|" + f.lastModified();
+        String cached = manifest.getProperty(HASH_PREFIX + f.getPath());
+        if (cached != null && cached.startsWith(stamp + "|")) {
+            return cached.substring(stamp.length() + 1);
+        }
+        MessageDigest md = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(f)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                md.update(buffer, 0, n);
+            }
+        }
+        String hash = hex(md.digest());
+        manifest.setProperty(HASH_PREFIX + f.getPath(), stamp + "|" + hash);
+        return hash;
+    }
+
+    /**
+     * @return length and modification time of the files in the output
+     * directories
+     */
+    private Map<File, String> listOutputs() {
+        HashMap<File, String> outputs = new HashMap<File, String>();
+        for (File dir : outputDirs) {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    if (f.isFile() && !f.equals(manifestFile)) {
+                        outputs.put(f, f.length() + "|" + f.lastModified());
+                    }
+                }
+            }
+        }
+        return outputs;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        return newDigest().digest(bytes);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2011 International Health Terminology Standards Development Organisation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert;
+
+import gov.vha.isaac.ochre.util.UuidT3Generator;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded memo of type 3 UUIDs computed from SCTIDs, so the MD5 digest of
+ * UuidT3Generator.fromSNOMED is done once per SCTID rather than once per
+ * reference.
+ *
+ * Open addressing on the SCTID with a short probe sequence. Each slot is four
+ * consecutive longs, a version, the SCTID and the UUID msb and lsb, so the
+ * cache holds no objects. When every probed slot is taken the first one is
+ * replaced, so memory stays bounded by the capacity. Slots are read and
+ * written without locks: a writer claims the slot by moving its even version
+ * to the following odd one, writes the SCTID and UUID, and publishes the next
+ * even version. A reader accepts the bits only if the version was even and is
+ * unchanged after reading them, so it never combines halves of different
+ * writes. Two threads missing on the same SCTID at once may both compute it.
+ */
+class UuidT3Cache {
+
+    private static final int MAX_PROBES = 8;
+    private static final int SLOT_LONGS = 4;
+    private static final int VERSION = 0;
+    private static final int SCTID = 1;
+    private static final int MSB = 2;
+    private static final int LSB = 3;
+    // SCTIDs are positive
+    private static final long EMPTY = 0;
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity maximum number of cached UUIDs, rounded up to a power
+     * of two
+     */
+    UuidT3Cache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        this.slots = new AtomicLongArray(size * SLOT_LONGS);
+        this.mask = size - 1;
+    }
+
+    UUID get(long sctId) {
+        int first = hash(sctId) & mask;
+        int slot = first;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int base = slot * SLOT_LONGS;
+            long version = slots.get(base + VERSION);
+            if ((version & 1) != 0) {
+                // being written, do not wait for it
+                return compute(base, version, sctId);
+            }
+            long key = slots.get(base + SCTID);
+            if (key == EMPTY) {
+                return compute(base, version, sctId);
+            }
+            if (key == sctId) {
+                long msb = slots.get(base + MSB);
+                long lsb = slots.get(base + LSB);
+                if (slots.get(base + VERSION) == version) {
+                    hits.increment();
+                    return new UUID(msb, lsb);
+                }
+                // replaced while reading
+                return compute(base, version | 1, sctId);
+            }
+            slot = (slot + 1) & mask;
+        }
+        int base = first * SLOT_LONGS;
+        return compute(base, slots.get(base + VERSION), sctId);
+    }
+
+    /**
+     * @param version version of the slot when it was read, the result is
+     * only stored if the slot is still at that version and it is even
+     */
+    private UUID compute(int base, long version, long sctId) {
+        misses.increment();
+        UUID uuid = UuidT3Generator.fromSNOMED(sctId);
+        if ((version & 1) == 0 && slots.compareAndSet(base + VERSION, version, version + 1)) {
+            slots.set(base + SCTID, sctId);
+            slots.set(base + MSB, uuid.getMostSignificantBits());
+            slots.set(base + LSB, uuid.getLeastSignificantBits());
+            slots.set(base + VERSION, version + 2);
+        }
+        return uuid;
+    }
+
+    private static int hash(long sctId) {
+        long h = sctId;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+}
@@ -1,12 +1,27 @@
 package gov.vha.isaac.rf2.convert.mojo;
 
 import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
 import gov.vha.isaac.metadata.source.IsaacMetadataAuxiliaryBinding;
+import gov.vha.isaac.rf2.convert.ArfBinaryWriter;
+import gov.vha.isaac.rf2.convert.ArfComponentWriter;
+import gov.vha.isaac.rf2.convert.IdResolver;
+import gov.vha.isaac.rf2.convert.Rf2File;
+import gov.vha.isaac.rf2.convert.Rf2StatusIndex;
+import gov.vha.isaac.rf2.convert.StageCache;
 
 public abstract class BaseRF2Mojo extends AbstractMojo
 {
@@ -68,8 +83,34 @@ public abstract class BaseRF2Mojo extends AbstractMojo
 		uuidAuthor = UUID.fromString(uuidStr);
 	}
 
+	/**
+	 * Number of worker threads used to convert independent RF2 components (concepts, descriptions, 
+	 * relationships) concurrently. Default 1 converts them one after another.
+	 */
+	@Parameter(required = false, defaultValue = "1") 
+	protected int threads = 1;
+
+	/**
+	 * Write concepts, descriptions and relationships as binary ARF files (.arfb) instead of ARF text. 
+	 * sct1-arf-to-econcepts reads them straight into its records, without parsing UUIDs and dates from text.
+	 */
+	@Parameter(required = false, defaultValue = "false") 
+	protected boolean binaryArf = false;
+
+	/**
+	 * Skip a goal whose inputSctDir files, id cache, parameters and plugin code are unchanged since it last completed, 
+	 * and whose output files are still in place. The stage manifest is kept next to the outputArfDir directory.
+	 */
+	@Parameter(required = false, defaultValue = "true") 
+	protected boolean skipUnchangedStages = true;
+
 	protected File idCacheFile;
 	protected File arfOutPath;
+	/**
+	 * SCTID/UUID lookups of this execution, set by {@link #openIdResolver()}
+	 */
+	protected IdResolver idResolver;
+	private StageCache stageCache;
 	/**
 	 * Line terminator is deliberately set to CR-LF which is DOS style
 	 */
@@ -101,4 +142,155 @@ public abstract class BaseRF2Mojo extends AbstractMojo
 		}
 		getLog().info("::: Output Arf Path: " + arfOutPath);
 	}
+
+	/**
+	 * Check whether this stage can be skipped, see {@link #skipUnchangedStages}. Call after {@link #execute()} has set 
+	 * up the directories, and call {@link #stageCompleted()} once the outputs are written.
+	 * 
+	 * @return true when the stage last completed with the same inputs and its outputs are still in place
+	 */
+	protected boolean isStageUnchanged()
+	{
+		if (!skipUnchangedStages)
+		{
+			return false;
+		}
+		try
+		{
+			stageCache = new StageCache(arfOutPath.getParentFile(), getClass().getSimpleName());
+			addStageParameters(stageCache);
+			stageCache.addInput(inputSctDir);
+			stageCache.addInput(idCacheFile);
+			stageCache.addCodeOf(getClass());
+			stageCache.addOutputDirectory(arfOutPath);
+			stageCache.addOutputDirectory(idCacheFile.getParentFile());
+			if (stageCache.isUnchanged())
+			{
+				getLog().info("::: Inputs unchanged since the last run, outputs reused (" + stageCache.getManifestFile() + ")");
+				stageCache = null;
+				return true;
+			}
+		}
+		catch (IOException e)
+		{
+			getLog().warn("::: Stage manifest not usable, running the stage", e);
+			stageCache = null;
+		}
+		return false;
+	}
+
+	/**
+	 * Record this stage as completed in the stage manifest, see {@link #isStageUnchanged()}.
+	 */
+	protected void stageCompleted()
+	{
+		if (stageCache != null)
+		{
+			try
+			{
+				stageCache.completed();
+			}
+			catch (IOException e)
+			{
+				getLog().warn("::: Stage manifest not written", e);
+			}
+			stageCache = null;
+		}
+	}
+
+	/**
+	 * Add the parameters which change the output of this goal to its stage, see {@link #isStageUnchanged()}. Goals 
+	 * with parameters of their own override this and add them after calling it. Settings which do not change the 
+	 * output, such as {@link #threads}, are left out so changing them does not run the stage again.
+	 */
+	protected void addStageParameters(StageCache stage)
+	{
+		stage.addParameter("targetDirectory", targetDirectory);
+		stage.addParameter("inputSctDir", inputSctDir);
+		stage.addParameter("idCacheDir", idCacheDir);
+		stage.addParameter("targetSubDir", targetSubDir);
+		stage.addParameter("outputArfDir", outputArfDir);
+		stage.addParameter("pathUUID", pathUUID);
+		stage.addParameter("uuidAuthor", uuidAuthor);
+		stage.addParameter("binaryArf", binaryArf);
+	}
+
+	/**
+	 * Open the SCTID/UUID cache for this execution. Call after {@link #execute()} has set up the cache location.
+	 */
+	protected IdResolver openIdResolver() throws IOException
+	{
+		idResolver = IdResolver.open(idCacheFile, enableUUIDToSCTIDMap);
+		return idResolver;
+	}
+
+	/**
+	 * Open an ARF concepts, descriptions or relationships output file under arfOutPath, as text or as binary ARF 
+	 * depending on {@link #binaryArf}.
+	 * 
+	 * @param baseName file name without extension
+	 * @param kind {@link ArfBinaryWriter#CONCEPTS}, {@link ArfBinaryWriter#DESCRIPTIONS} or 
+	 * {@link ArfBinaryWriter#RELATIONSHIPS}
+	 */
+	protected ArfComponentWriter openArfWriter(String baseName, byte kind) throws IOException
+	{
+		return new ArfComponentWriter(arfOutPath, baseName, kind, binaryArf, idResolver);
+	}
+
+	/**
+	 * Open the extended status index of the AttributeValue refset files under inputSctDir/Refset/Content. The index is
+	 * persisted next to the id cache and only rebuilt when the AttributeValue files change.
+	 */
+	protected Rf2StatusIndex openStatusIndex() throws IOException, ParseException
+	{
+		List<Rf2File> filesInStatus = Rf2File.getFiles(new File(new File(inputSctDir, "Refset"), "Content"), "AttributeValue", ".txt");
+		return Rf2StatusIndex.open(idCacheFile, filesInStatus);
+	}
+
+	/**
+	 * Run the tasks on a pool of {@link #threads} workers and wait for all of them to complete.
+	 * The first task failure is rethrown once every task has finished.
+	 */
+	protected void runTasks(List<Callable<Void>> tasks) throws MojoFailureException
+	{
+		int poolSize = Math.max(1, Math.min(threads, tasks.size()));
+		getLog().info("::: Running " + tasks.size() + " conversion tasks on " + poolSize + " thread(s)");
+		ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+		try
+		{
+			List<Future<Void>> futures = new ArrayList<>();
+			for (Callable<Void> task : tasks)
+			{
+				futures.add(pool.submit(task));
+			}
+			Throwable failure = null;
+			for (Future<Void> future : futures)
+			{
+				try
+				{
+					future.get();
+				}
+				catch (ExecutionException e)
+				{
+					if (failure == null)
+					{
+						failure = e.getCause();
+					}
+				}
+			}
+			if (failure != null)
+			{
+				throw new MojoFailureException("RF2/ARF conversion task failed", failure);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new MojoFailureException("RF2/ARF conversion interrupted", e);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
 }
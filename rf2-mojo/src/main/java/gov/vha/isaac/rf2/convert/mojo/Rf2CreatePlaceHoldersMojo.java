@@ -19,13 +19,12 @@ import gov.vha.isaac.metadata.source.IsaacMetadataAuxiliaryBinding;
 import gov.vha.isaac.ochre.util.UuidT3Generator;
 import gov.vha.isaac.rf2.convert.Rf2Dir;
 import gov.vha.isaac.rf2.convert.Rf2File;
-import java.io.BufferedReader;
+import gov.vha.isaac.rf2.convert.Rf2LongBuffer;
+import gov.vha.isaac.rf2.convert.Rf2Reader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.text.ParseException;
@@ -192,22 +191,16 @@ public class Rf2CreatePlaceHoldersMojo extends BaseRF2Mojo {
      */
     private long[] parseForConceptIds(Rf2File f, int column) throws MojoFailureException, IOException {
         long start = System.currentTimeMillis();
-        long[] a = new long[Rf2File.countFileLines(f)];
+        long[] a;
         
         try {
-            BufferedReader br = new BufferedReader(
-                    new InputStreamReader(
-                    new FileInputStream(f.getFile()), "UTF-8"));
-            int concepts = 0;
-
-            // Header row
-            br.readLine();
-            
-            while (br.ready()) {
-                String[] line = br.readLine().split(TAB_CHARACTER);
-                a[concepts] = Long.parseLong(line[column]);
-                concepts++;
+            Rf2LongBuffer ids = new Rf2LongBuffer();
+            try (Rf2Reader r = new Rf2Reader(f)) {
+                while (r.next()) {
+                    ids.add(r.getLong(column));
+                }
             }
+            a = ids.toArray();
             Arrays.sort(a);
 
             // REMOVE DUPLICATES
@@ -236,7 +229,6 @@ public class Rf2CreatePlaceHoldersMojo extends BaseRF2Mojo {
             getLog().info("    Parsed File: " + f.getFile().getName()
                     + " unique concept ids: " + a.length + " concepts, "
                     + (System.currentTimeMillis() - start) + " milliseconds");
-            br.close();
             
         } catch (Exception e) {
             throw new MojoFailureException("parseForConceptIds failed", e);
@@ -48,6 +48,10 @@ public class Rf2IdUuidCacheArfGenMojo extends BaseRF2Mojo
 			List<Rf2File> filesIn;
 			getLog().info("::: BEGIN Rf2UuidXmapGenMojo");
 			super.execute();
+			if (isStageUnchanged())
+			{
+				return;
+			}
 
 			// Parse IHTSDO Terminology Identifiers to Sct_CompactId cache file.
 			filesIn = Rf2File.getFiles(inputSctDir, "_Identifier", ".txt");
@@ -67,6 +71,7 @@ public class Rf2IdUuidCacheArfGenMojo extends BaseRF2Mojo
 				bwIdArf.flush();
 				bwIdArf.close();
 			}
+			stageCompleted();
 
 		}
 		catch (Exception ex)
@@ -13,10 +13,9 @@
  */
 package gov.vha.isaac.rf2.convert.mojo;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
@@ -26,8 +25,6 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.security.NoSuchAlgorithmException;
@@ -43,6 +40,9 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.maven.plugin.AbstractMojo;
@@ -78,9 +78,22 @@ import org.ihtsdo.otf.tcc.dto.component.relationship.TtkRelationshipRevision;
 import gov.vha.isaac.metadata.source.IsaacMetadataAuxiliaryBinding;
 import gov.vha.isaac.ochre.util.UuidT3Generator;
 import gov.vha.isaac.ochre.util.UuidT5Generator;
+import gov.vha.isaac.rf2.convert.ArfBinaryReader;
+import gov.vha.isaac.rf2.convert.ArfBinaryWriter;
+import gov.vha.isaac.rf2.convert.IdResolver;
+import gov.vha.isaac.rf2.convert.OrderedByteWriter;
+import gov.vha.isaac.rf2.convert.Rf2File;
+import gov.vha.isaac.rf2.convert.Rf2Reader;
 import gov.vha.isaac.rf2.convert.Sct2_IdCompact;
-import gov.vha.isaac.rf2.convert.Sct2_IdLookUp;
+import gov.vha.isaac.rf2.convert.StageCache;
+import gov.vha.isaac.rf2.convert.sct1.Sct1ConceptBatch;
+import gov.vha.isaac.rf2.convert.sct1.Sct1ConceptMerge;
+import gov.vha.isaac.rf2.convert.sct1.Sct1DeltaFilter;
 import gov.vha.isaac.rf2.convert.sct1.Sct1Dir;
+import gov.vha.isaac.rf2.convert.sct1.Sct1EConceptIndex;
+import gov.vha.isaac.rf2.convert.sct1.Sct1ScratchInput;
+import gov.vha.isaac.rf2.convert.sct1.Sct1ScratchOutput;
+import gov.vha.isaac.rf2.convert.sct1.Sct1ScratchSort;
 import gov.vha.isaac.rf2.convert.sct1.Sct1_ConRecord;
 import gov.vha.isaac.rf2.convert.sct1.Sct1_DesRecord;
 import gov.vha.isaac.rf2.convert.sct1.Sct1_IdRecord;
@@ -200,10 +213,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
     private int statRsFloatFromArf;
     private int statRsConFromArf;
     private int statRsStrFromArf;
-    private static final int IS_LESS = -1;
-    private static final int IS_EQUAL = 0;
     private static final String FILE_SEPARATOR = File.separator;
-    private static final int ooResetInterval = 100;
     // workaround to set stated relationship characteristic as STATED_RELATIONSHIP 
     // starts a integer 5 at beginning of import pipeline
     // integer 5 is replaced with STATED_RELATIONSHIP UUID at eConcept creation
@@ -273,6 +283,44 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
     @Parameter(required = true, defaultValue="false")
     private boolean reportRootConcepts;
 
+    /**
+     * Heap in megabytes one in memory sort run of steps 4 and 6 may use.
+     * Larger inputs are sorted in runs spilled to the scratch directory and merged.
+     */
+    @Parameter(defaultValue = "1024")
+    private int sortMemoryMb = 1024;
+
+    /**
+     * Number of worker threads assembling eConcepts in step 7. Concepts are
+     * written in concept order whatever the number of threads.
+     */
+    @Parameter(defaultValue = "1")
+    private int threads = 1;
+
+    /**
+     * eConcepts file of the previous release, built by this goal so that its
+     * concept index (the same file name + ".idx") sits next to it. Together
+     * with rf2DeltaDirectory, only the concepts touched by the delta are
+     * rebuilt and all other eConcepts are copied from this file.
+     */
+    @Parameter
+    private File previousEConcepts;
+
+    /**
+     * RF2 Delta release holding the changes since previousEConcepts.
+     */
+    @Parameter
+    private File rf2DeltaDirectory;
+    private boolean incremental;
+
+    /**
+     * Skip this goal when the ARF input, id cache, parameters and plugin code
+     * are unchanged since it last completed and its output files are still in
+     * place. Builds with sct1Dirs always run.
+     */
+    @Parameter(defaultValue = "true")
+    private boolean skipUnchangedStages = true;
+
     /**
      * Module - defaults to snomed core
      */
@@ -324,6 +372,8 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
     private String fNameStep1Ids;
     private String fNameStep2Refset;
     private String fNameStep3RelDest;
+    private String fNameStep4Ids;
+    private String fNameStep4Sorted;
     private String fNameStep4Con;
     private String fNameStep4Desc;
     private String fNameStep4Rel;
@@ -358,6 +408,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
     private SimpleDateFormat arfSimpleDateFormatDot;
     private SimpleDateFormat arfSimpleDateFormat;
     private HashMap<Long, HashSet<Sct2_IdCompact>> additionalIds;
+    private IdResolver idResolver;
 
     private class ARFFile {
 
@@ -801,7 +852,8 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         File idCacheFile = new File(new File(targetDirectory, idCacheDir), "idSctUuidCache.ser");
 
         try {
-        additionalIds = new Sct2_IdLookUp(idCacheFile, false).getAdditionalIDRecords();
+        idResolver = IdResolver.open(idCacheFile, true);
+        additionalIds = idResolver.getIdLookUp().getAdditionalIDRecords();
         LOG.info("Read " + additionalIds.size() + " additional IDs");
         } catch (Exception ex) {
             LOG.error("Error reading additional ids", ex);
@@ -818,11 +870,64 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             getLog().info("POM Output Directory: " + outputDirectory);
         }
 
+        StageCache stageCache = null;
+        if (skipUnchangedStages && sct1Dirs == null) {
+            try {
+                stageCache = newStageCache(idCacheFile);
+                if (stageCache.isUnchanged()) {
+                    getLog().info("::: Inputs unchanged since the last run, outputs reused ("
+                            + stageCache.getManifestFile() + ")");
+                    getLog().info("::: END Sct1ArfToEConcept");
+                    return;
+                }
+            } catch (IOException e) {
+                getLog().warn("::: Stage manifest not usable, running the stage", e);
+                stageCache = null;
+            }
+        }
+
         executeMojo(targetDir, targetSubDir, arfInputDir, sct1Dirs, outputDirectory,
                 includeCTV3ID, includeSNOMEDRTID);
+        if (stageCache != null) {
+            try {
+                stageCache.completed();
+            } catch (IOException e) {
+                getLog().warn("::: Stage manifest not written", e);
+            }
+        }
         getLog().info("::: END Sct1ArfToEConcept");
     }
 
+    /**
+     * Stage of this goal in the manifest it shares with the RF2 to ARF goals,
+     * next to the ARF input directory.
+     */
+    private StageCache newStageCache(File idCacheFile) throws IOException {
+        File inputDir = new File(targetDirectory, targetSubDir);
+        StageCache stage = new StageCache(inputDir, getClass().getSimpleName());
+        stage.addParameter("dateStart", dateStart);
+        stage.addParameter("dateStop", dateStop);
+        stage.addParameter("inputFilters", inputFilters);
+        stage.addParameter("useSctRelId", useSctRelId);
+        stage.addParameter("outputFileName", outputFileName);
+        stage.addParameter("reportRootConcepts", reportRootConcepts);
+        stage.addParameter("uuidModule", uuidModule);
+        stage.addParameter("uuidUser", uuidUser);
+        stage.addParameter("uuidUserSnorocket", uuidUserSnorocket);
+        stage.addParameter("previousEConcepts", previousEConcepts);
+        stage.addParameter("rf2DeltaDirectory", rf2DeltaDirectory);
+        stage.addInput(new File(inputDir, arfInputDir));
+        stage.addInput(idCacheFile);
+        if (previousEConcepts != null) {
+            stage.addInput(previousEConcepts);
+            stage.addInput(Sct1EConceptIndex.getIndexFile(previousEConcepts));
+        }
+        stage.addInput(rf2DeltaDirectory);
+        stage.addCodeOf(getClass());
+        stage.addOutputDirectory(new File(targetDirectory, outputDirectory));
+        return stage;
+    }
+
     void executeMojo(String tDir, String tSubDir, String arfDir, Sct1Dir[] sctDirs,
             String outDir, boolean ctv3idTF, boolean snomedrtTF) throws MojoFailureException {
 
@@ -881,6 +986,8 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
 
         fNameStep3RelDest = tDir + scratchDirectory + FILE_SEPARATOR + "step3_rel_dest.ser";
 
+        fNameStep4Ids = tDir + scratchDirectory + FILE_SEPARATOR + "step4_ids.ser";
+        fNameStep4Sorted = tDir + scratchDirectory + FILE_SEPARATOR + "step4_sorted.ser";
         fNameStep4Con = tDir + scratchDirectory + FILE_SEPARATOR + "step4_concepts.ser";
         fNameStep4Desc = tDir + scratchDirectory + FILE_SEPARATOR + "step4_descriptions.ser";
         fNameStep4Rel = tDir + scratchDirectory + FILE_SEPARATOR + "step4_relationships.ser";
@@ -895,6 +1002,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
 
         fNameStep7ECon = tDir + outDir + FILE_SEPARATOR + outputFileName;
         getLog().info("::: Output File:  " + outputFileName);
+        incremental = isIncrementalBuild(new File(fNameStep7ECon));
 
         zAuthorMap = new HashMap<String, Integer>();
         zAuthorList = new ArrayList<String>();
@@ -919,11 +1027,11 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         arfSimpleDateFormatDot = new SimpleDateFormat("yyyy.MM.dd HH:mm:ss");
         arfSimpleDateFormat = new SimpleDateFormat("yyyyMMdd HH:mm:ss");
 
-        ObjectOutputStream oosCon = null;
-        ObjectOutputStream oosDes = null;
-        ObjectOutputStream oosRel = null;
-        ObjectOutputStream oosIds = null;
-        ObjectOutputStream oosRefSet = null;
+        Sct1ScratchOutput oosCon = null;
+        Sct1ScratchOutput oosDes = null;
+        Sct1ScratchOutput oosRel = null;
+        Sct1ScratchOutput oosIds = null;
+        Sct1ScratchOutput oosRefSet = null;
         // SETUP OUTPUT directory
         try {
             // Create multiple directories
@@ -939,28 +1047,23 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             }
 
             // SETUP CONCEPTS OUTPUT FILE
-            oosCon = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep1Con)));
+            oosCon = new Sct1ScratchOutput(fNameStep1Con);
             getLog().info("Step 1 CONCEPTS OUTPUT: " + fNameStep1Con);
 
             // SETUP DESCRIPTIONS OUTPUT FILE
-            oosDes = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep1Desc)));
+            oosDes = new Sct1ScratchOutput(fNameStep1Desc);
             getLog().info("Step 1 DESCRIPTIONS OUTPUT: " + fNameStep1Desc);
 
             // SETUP RELATIONSHIPS OUTPUT FILE
-            oosRel = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep1Rel)));
+            oosRel = new Sct1ScratchOutput(fNameStep1Rel);
             getLog().info("RELATIONSHIPS Step 1 OUTPUT: " + fNameStep1Rel);
 
             // SETUP IDS OUTPUT FILE
-            oosIds = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep1Ids)));
+            oosIds = new Sct1ScratchOutput(fNameStep1Ids);
             getLog().info("IDS Step 1 OUTPUT: " + fNameStep1Ids);
 
             // SETUP REFSET OUTPUT FILE
-            oosRefSet = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep2Refset)));
+            oosRefSet = new Sct1ScratchOutput(fNameStep2Refset);
             getLog().info("REFSET Step 2 OUTPUT: " + fNameStep2Refset);
 
             setupLookupPartA();
@@ -985,6 +1088,12 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             oosIds.close();
             oosRefSet.close();
 
+            // STEP #2a. Keep only the concepts touched by the delta
+            if (incremental) {
+                executeMojoStep2a_Delta(tDir);
+                System.gc();
+            }
+
             // stateRestore(wDir);
             setupLookupPartB();
 
@@ -1011,9 +1120,36 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         }
     }
 
+    private boolean isIncrementalBuild(File eConceptFile) throws MojoFailureException {
+        if (previousEConcepts == null || rf2DeltaDirectory == null) {
+            if (previousEConcepts != null || rf2DeltaDirectory != null) {
+                getLog().warn("::: Incremental build needs both previousEConcepts and rf2DeltaDirectory, "
+                        + "building all concepts");
+            }
+            return false;
+        }
+        File index = Sct1EConceptIndex.getIndexFile(previousEConcepts);
+        if (!index.isFile()) {
+            getLog().warn("::: No concept index " + index + ", building all concepts");
+            return false;
+        }
+        if (idResolver == null) {
+            throw new MojoFailureException("Incremental build needs the id cache to resolve the delta SCTIDs");
+        }
+        try {
+            if (previousEConcepts.getCanonicalFile().equals(eConceptFile.getCanonicalFile())) {
+                throw new MojoFailureException("previousEConcepts must not be the output file " + eConceptFile);
+            }
+        } catch (IOException e) {
+            throw new MojoFailureException("Can not resolve " + previousEConcepts, e);
+        }
+        getLog().info("::: Incremental build from " + previousEConcepts + " and delta " + rf2DeltaDirectory);
+        return true;
+    }
+
     private void executeMojoStep1(String wDir, String subDir, Sct1Dir[] inDirs, boolean ctv3idTF,
-            boolean snomedrtTF, ObjectOutputStream oosCon, ObjectOutputStream oosDes,
-            ObjectOutputStream oosRel, ObjectOutputStream oosIds) throws MojoFailureException {
+            boolean snomedrtTF, Sct1ScratchOutput oosCon, Sct1ScratchOutput oosDes,
+            Sct1ScratchOutput oosRel, Sct1ScratchOutput oosIds) throws MojoFailureException {
         getLog().info("*** Sct1ArfToEConcept STEP #1 BEGIN SCT1 PROCESSING ***");
         long start = System.currentTimeMillis();
 
@@ -1083,29 +1219,30 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
     }
 
     private void executeMojoStep2(String wDir, String subDir, String arfDir,
-            ObjectOutputStream oosCon, ObjectOutputStream oosDes, ObjectOutputStream oosRel,
-            ObjectOutputStream oosIds, ObjectOutputStream oosRefSet) {
+            Sct1ScratchOutput oosCon, Sct1ScratchOutput oosDes, Sct1ScratchOutput oosRel,
+            Sct1ScratchOutput oosIds, Sct1ScratchOutput oosRefSet) {
         getLog().info("*** Sct1ArfToEConcept STEP #2 BEGINNING - INGEST ARF ***");
         long start = System.currentTimeMillis();
 
         try {
 
             // PROCESS CONCEPT ARF FILES
-            List<List<ARFFile>> listOfCDirs = getArfFiles(wDir, subDir, arfDir, "concepts", ".txt");
+            List<List<ARFFile>> listOfCDirs = getArfFiles(wDir, subDir, arfDir, "concepts", ".txt",
+                    ArfBinaryWriter.FILE_EXTENSION);
             processArfConFiles(wDir, listOfCDirs, oosCon);
             listOfCDirs = null;
             System.gc();
 
             // PROCESS DESCRIPTION ARF FILES
             List<List<ARFFile>> listOfDDirs = getArfFiles(wDir, subDir, arfDir, "descriptions",
-                    ".txt");
+                    ".txt", ArfBinaryWriter.FILE_EXTENSION);
             processArfDesFiles(wDir, listOfDDirs, oosDes);
             listOfDDirs = null;
             System.gc();
 
             // PROCESS RELATIONSHIP ARF FILES
             List<List<ARFFile>> listOfRDirs = getArfFiles(wDir, subDir, arfDir, "relationships",
-                    ".txt");
+                    ".txt", ArfBinaryWriter.FILE_EXTENSION);
             processArfRelFiles(wDir, listOfRDirs, oosRel);
             listOfRDirs = null;
             System.gc();
@@ -1178,15 +1315,19 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
     }
 
     private void processArfConFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos) throws IOException, MojoFailureException {
+            Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
-                parseArfConFile(f.file, oos);
+                if (ArfBinaryReader.isArfBinary(f.file)) {
+                    parseArfBinaryConFile(f.file, oos);
+                } else {
+                    parseArfConFile(f.file, oos);
+                }
             }
         }
     }
 
-    private void parseArfConFile(File f, ObjectOutputStream oos) throws IOException, MojoFailureException {
+    private void parseArfConFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
 
@@ -1227,24 +1368,73 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                 moduleIdx = lookupZModuleIdx(line[MODULE_UUID]);
             }
 
-            Sct1_ConRecord tmpConRec = new Sct1_ConRecord(uuidCon, conceptStatus, isPrimitive,
+            Sct1_ConRecord tmpConRec = new Sct1_ConRecord(idResolver, uuidCon, conceptStatus, isPrimitive,
                     revTime, pathIdx, authorIdx, moduleIdx);
 
-            oos.writeUnshared(tmpConRec);
+            oos.write(tmpConRec);
         }
         br.close();
     }
 
+    /**
+     * Binary ARF concepts file, see {@link ArfBinaryWriter}. The columns are
+     * those of the ARF text file read by parseArfConFile.
+     */
+    private void parseArfBinaryConFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
+        ArfBinaryReader in = openArfBinary(f, ArfBinaryWriter.CONCEPTS);
+        HashMap<String, Integer> statusIdx = new HashMap<>();
+        try {
+            while (in.next()) {
+                UUID uuidCon = in.readUuid();
+                int conceptStatus = lookupZStatusUuidIdx(in.readCoded(), statusIdx);
+                int isPrimitive = in.readBoolean() ? 1 : 0;
+                long revTime = in.readTime();
+                int pathIdx = lookupZPathIdx(in.readCoded());
+                int authorIdx = lookupZAuthorIdx(in.readCoded());
+                int moduleIdx = lookupZModuleIdx(in.readCoded());
+
+                Sct1_ConRecord tmpConRec = new Sct1_ConRecord(idResolver, uuidCon, conceptStatus, isPrimitive,
+                        revTime, pathIdx, authorIdx, moduleIdx);
+
+                oos.write(tmpConRec);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private ArfBinaryReader openArfBinary(File f, byte kind) throws IOException {
+        ArfBinaryReader in = new ArfBinaryReader(f);
+        if (in.getKind() != kind) {
+            in.close();
+            throw new IOException("Unexpected binary ARF file kind " + in.getKind() + ": " + f);
+        }
+        return in;
+    }
+
+    private int lookupZStatusUuidIdx(String statusUuidStr, HashMap<String, Integer> statusIdx) {
+        Integer tmp = statusIdx.get(statusUuidStr);
+        if (tmp == null) {
+            tmp = lookupZStatusUuidIdx(statusUuidStr);
+            statusIdx.put(statusUuidStr, tmp);
+        }
+        return tmp;
+    }
+
     private void processArfDesFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos) throws IOException, MojoFailureException {
+            Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
-                parseArfDesFile(f.file, oos);
+                if (ArfBinaryReader.isArfBinary(f.file)) {
+                    parseArfBinaryDesFile(f.file, oos);
+                } else {
+                    parseArfDesFile(f.file, oos);
+                }
             }
         }
     }
 
-    private void parseArfDesFile(File f, ObjectOutputStream oos) throws IOException, MojoFailureException {
+    private void parseArfDesFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
 
@@ -1303,7 +1493,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                 moduleIdx = lookupZModuleIdx(line[MODULE_UUID]);
             }
 
-            Sct1_DesRecord tmpDesRec = new Sct1_DesRecord(uuidDes, status, uuidCon, termStr,
+            Sct1_DesRecord tmpDesRec = new Sct1_DesRecord(idResolver, uuidDes, status, uuidCon, termStr,
                     capitalization, descriptionType, langCodeStr,
                     revTime, pathIdx, authorIdx, moduleIdx);
 
@@ -1320,7 +1510,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             // :DEBUG:END 
 
             try {
-                oos.writeUnshared(tmpDesRec);
+                oos.write(tmpDesRec);
             } catch (Exception e) {
                 getLog().info(e);
             }
@@ -1329,16 +1519,62 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         br.close();
     }
 
+    /**
+     * Binary ARF descriptions file, see {@link ArfBinaryWriter}. The columns
+     * are those of the ARF text file read by parseArfDesFile.
+     */
+    private void parseArfBinaryDesFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
+        ArfBinaryReader in = openArfBinary(f, ArfBinaryWriter.DESCRIPTIONS);
+        HashMap<String, Integer> statusIdx = new HashMap<>();
+        HashMap<String, Integer> desTypeIdx = new HashMap<>();
+        try {
+            while (in.next()) {
+                UUID uuidDes = in.readUuid();
+                int status = lookupZStatusUuidIdx(in.readCoded(), statusIdx);
+                UUID uuidCon = in.readUuid();
+                String termStr = in.readText();
+                int capitalization = in.readBoolean() ? 1 : 0;
+                String desTypeStr = in.readCoded();
+                Integer descriptionType = desTypeIdx.get(desTypeStr);
+                if (descriptionType == null) {
+                    descriptionType = lookupZDesTypeUuidIdx(desTypeStr);
+                    desTypeIdx.put(desTypeStr, descriptionType);
+                }
+                String langCodeStr = in.readCoded();
+                long revTime = in.readTime();
+                int pathIdx = lookupZPathIdx(in.readCoded());
+                int authorIdx = lookupZAuthorIdx(in.readCoded());
+                int moduleIdx = lookupZModuleIdx(in.readCoded());
+
+                Sct1_DesRecord tmpDesRec = new Sct1_DesRecord(idResolver, uuidDes, status, uuidCon, termStr,
+                        capitalization, descriptionType, langCodeStr,
+                        revTime, pathIdx, authorIdx, moduleIdx);
+
+                try {
+                    oos.write(tmpDesRec);
+                } catch (Exception e) {
+                    getLog().info(e);
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
     private void processArfRelFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos) throws IOException, MojoFailureException {
+            Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
-                parseArfRelFile(f.file, oos);
+                if (ArfBinaryReader.isArfBinary(f.file)) {
+                    parseArfBinaryRelFile(f.file, oos);
+                } else {
+                    parseArfRelFile(f.file, oos);
+                }
             }
         }
     }
 
-    private void parseArfRelFile(File f, ObjectOutputStream oos) throws IOException, MojoFailureException {
+    private void parseArfRelFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
 
@@ -1391,18 +1627,55 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                 moduleIdx = lookupZModuleIdx(line[MODULE_UUID]);
             }
 
-            Sct1_RelRecord tmpRelRec = new Sct1_RelRecord(uuidRelId, status, uuidC1, roleTypeIdx,
+            Sct1_RelRecord tmpRelRec = new Sct1_RelRecord(idResolver, uuidRelId, status, uuidC1, roleTypeIdx,
                     uuidC2, characteristic, refinability, group,
                     revTime, pathIdx, userIdx, moduleIdx);
 
-            oos.writeUnshared(tmpRelRec);
+            oos.write(tmpRelRec);
         }
 
         br.close();
     }
 
+    /**
+     * Binary ARF relationships file, see {@link ArfBinaryWriter}. The columns
+     * are those of the ARF text file read by parseArfRelFile.
+     */
+    private void parseArfBinaryRelFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
+        ArfBinaryReader in = openArfBinary(f, ArfBinaryWriter.RELATIONSHIPS);
+        HashMap<String, Integer> statusIdx = new HashMap<>();
+        String uuidUserSnorocketStr = uuidUserSnorocket.toString();
+        try {
+            while (in.next()) {
+                UUID uuidRelId = in.readUuid();
+                int status = lookupZStatusUuidIdx(in.readCoded(), statusIdx);
+                UUID uuidC1 = in.readUuid();
+                int roleTypeIdx = lookupRoleTypeIdx(in.readCoded());
+                UUID uuidC2 = in.readUuid();
+                int characteristic = lookupRelCharTypeIdx(in.readCoded());
+                int refinability = lookupRelRefTypeIdx(in.readCoded());
+                int group = in.readInt();
+                long revTime = in.readTime();
+                int pathIdx = lookupZPathIdx(in.readCoded());
+                int userIdx = USER_DEFAULT_IDX;
+                if (in.readCoded().equalsIgnoreCase(uuidUserSnorocketStr)) {
+                    userIdx = USER_SNOROCKET_IDX;
+                }
+                int moduleIdx = lookupZModuleIdx(in.readCoded());
+
+                Sct1_RelRecord tmpRelRec = new Sct1_RelRecord(idResolver, uuidRelId, status, uuidC1, roleTypeIdx,
+                        uuidC2, characteristic, refinability, group,
+                        revTime, pathIdx, userIdx, moduleIdx);
+
+                oos.write(tmpRelRec);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
     private void processArfIdsFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos) throws IOException, MojoFailureException {
+            Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
                 parseArfIdsFile(f.file, oos);
@@ -1410,7 +1683,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         }
     }
 
-    private void parseArfIdsFile(File f, ObjectOutputStream oos) throws IOException, MojoFailureException {
+    private void parseArfIdsFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
 
@@ -1453,14 +1726,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     idFromSourceSystem, status,
                     revTime, pathIdx, authorIdx, moduleIdx);
 
-            oos.writeUnshared(tmpIdRec);
+            oos.write(tmpIdRec);
         }
 
         br.close();
     }
 
     private void processArfRsBoolFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos) throws IOException, MojoFailureException {
+            Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
                 parseArfRsBoolFile(f.file, oos);
@@ -1468,7 +1741,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         }
     }
 
-    private void parseArfRsBoolFile(File f, ObjectOutputStream oos) throws IOException, MojoFailureException {
+    private void parseArfRsBoolFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
 
@@ -1523,14 +1796,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     vBool);
 
             statRsBoolFromArf++;
-            oos.writeUnshared(tmpRsRec);
+            oos.write(tmpRsRec);
         }
 
         br.close();
     }
 
     private void processArfRsConFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos) throws IOException, MojoFailureException {
+            Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
                 parseArfRsConFile(f.file, oos);
@@ -1538,7 +1811,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         }
     }
 
-    private void parseArfRsConFile(File f, ObjectOutputStream oos)
+    private void parseArfRsConFile(File f, Sct1ScratchOutput oos)
             throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
@@ -1587,14 +1860,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     uuidConExt);
 
             statRsConFromArf++;
-            oos.writeUnshared(tmpRsRec);
+            oos.write(tmpRsRec);
         }
 
         br.close();
     }
 
     private void processArfRsIntFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos)
+            Sct1ScratchOutput oos)
             throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
@@ -1603,7 +1876,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         }
     }
 
-    private void parseArfRsIntFile(File f, ObjectOutputStream oos) throws IOException, MojoFailureException {
+    private void parseArfRsIntFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
 
@@ -1651,13 +1924,13 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     vInt);
 
             statRsIntFromArf++;
-            oos.writeUnshared(tmpRsRec);
+            oos.write(tmpRsRec);
         }
 
         br.close();
     }
     private void processArfRsFloatFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos)
+            Sct1ScratchOutput oos)
             throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
@@ -1666,7 +1939,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         }
     }
 
-    private void parseArfRsFloatFile(File f, ObjectOutputStream oos) throws IOException, MojoFailureException {
+    private void parseArfRsFloatFile(File f, Sct1ScratchOutput oos) throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
 
@@ -1717,14 +1990,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     vConcept, vFloat);
 
             statRsFloatFromArf++;
-            oos.writeUnshared(tmpRsRec);
+            oos.write(tmpRsRec);
         }
 
         br.close();
     }
 
     private void processArfRsStrFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos)
+            Sct1ScratchOutput oos)
             throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
@@ -1733,7 +2006,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         }
     }
 
-    private void parseArfRsStrFile(File f, ObjectOutputStream oos)
+    private void parseArfRsStrFile(File f, Sct1ScratchOutput oos)
             throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
@@ -1782,14 +2055,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     vStr);
 
             statRsStrFromArf++;
-            oos.writeUnshared(tmpRsRec);
+            oos.write(tmpRsRec);
         }
 
         br.close();
     }
     
     private void processArfRsStrStrFiles(String wDir, List<List<ARFFile>> listOfDirs,
-            ObjectOutputStream oos)
+            Sct1ScratchOutput oos)
             throws IOException, MojoFailureException {
         for (List<ARFFile> laf : listOfDirs) {
             for (ARFFile f : laf) {
@@ -1798,7 +2071,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         }
     }
 
-    private void parseArfRsStrStrFile(File f, ObjectOutputStream oos)
+    private void parseArfRsStrStrFile(File f, Sct1ScratchOutput oos)
             throws IOException, MojoFailureException {
         BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),
                 "UTF-8"));
@@ -1849,12 +2122,62 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     revTime, pathIdx, authorIdx, moduleIdx,
                     vStr1,vStr2);
 
-            oos.writeUnshared(tmpRsRec);
+            oos.write(tmpRsRec);
         }
 
         br.close();
     }
 
+    /**
+     * Narrows the step 1 concept, description, relationship and refset files
+     * to the concepts touched by the RF2 delta, so steps 3 to 7 only handle
+     * those. The ids file is kept whole.
+     */
+    private void executeMojoStep2a_Delta(String tDir) throws IOException, ParseException {
+        getLog().info("*** Sct1ArfToEConcept Step #2a BEGINNING -- DELTA FILTER ***");
+        long start = System.currentTimeMillis();
+
+        // The first column of every RF2 file is the component id
+        HashSet<UUID> changed = new HashSet<UUID>();
+        for (Rf2File rf2File : Rf2File.getFiles(rf2DeltaDirectory, "Delta", ".txt")) {
+            Rf2Reader reader = new Rf2Reader(rf2File);
+            try {
+                while (reader.next()) {
+                    String id = reader.getString(0);
+                    if (id.indexOf('-') >= 0) {
+                        changed.add(UUID.fromString(id));
+                    } else {
+                        changed.add(idResolver.convertSctIdToUuid(Long.parseLong(id)));
+                    }
+                }
+                getLog().info(" delta " + rf2File.getFile().getName() + " rows = " + reader.getRecordCount());
+            } finally {
+                reader.close();
+            }
+        }
+        getLog().info(" changed components = " + changed.size());
+
+        Sct1DeltaFilter filter = new Sct1DeltaFilter(changed);
+        filter.findAffectedConcepts(fNameStep1Con, fNameStep1Desc, fNameStep1Rel, fNameStep2Refset);
+        getLog().info(" affected concepts = " + filter.getAffectedConcepts().size());
+
+        String fNameCon = tDir + scratchDirectory + FILE_SEPARATOR + "step2a_concepts.ser";
+        String fNameDesc = tDir + scratchDirectory + FILE_SEPARATOR + "step2a_descriptions.ser";
+        String fNameRel = tDir + scratchDirectory + FILE_SEPARATOR + "step2a_relationships.ser";
+        String fNameRefset = tDir + scratchDirectory + FILE_SEPARATOR + "step2a_refset.ser";
+        getLog().info(" concepts kept = " + filter.filterConcepts(fNameStep1Con, fNameCon));
+        getLog().info(" descriptions kept = " + filter.filterDescriptions(fNameStep1Desc, fNameDesc));
+        getLog().info(" relationships kept = " + filter.filterRelationships(fNameStep1Rel, fNameRel));
+        getLog().info(" refset members kept = " + filter.filterRefsetMembers(fNameStep2Refset, fNameRefset));
+        fNameStep1Con = fNameCon;
+        fNameStep1Desc = fNameDesc;
+        fNameStep1Rel = fNameRel;
+        fNameStep2Refset = fNameRefset;
+
+        getLog().info("*** DELTA FILTER TIME: " + ((System.currentTimeMillis() - start) / 1000) + " seconds");
+        getLog().info("*** Sct1ArfToEConcept Step #2a COMPLETED -- DELTA FILTER ***\r\n");
+    }
+
     private void executeMojoStep3()
             throws MojoFailureException {
         getLog().info("*** Sct1ArfToEConcept STEP #3 BEGINNING -- GATHER DESTINATION RELs ***");
@@ -1862,14 +2185,13 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
 
         try {
             // read in relationships, sort by C2-ROLETYPE
-            ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(
-                    new FileInputStream(fNameStep1Rel)));
-            ArrayList<Sct1_RelRecord> aRel = new ArrayList<Sct1_RelRecord>();
+            Sct1ScratchInput ois = new Sct1ScratchInput(fNameStep1Rel);
+            ArrayList<Sct1_RelRecord> aRel = new ArrayList<Sct1_RelRecord>(ois.getInitialCapacity());
 
             int count = 0;
             Object obj = null;
             try {
-                while ((obj = ois.readObject()) != null) {
+                while ((obj = ois.readRecord()) != null) {
                     if (obj instanceof Sct1_RelRecord) {
                         aRel.add((Sct1_RelRecord) obj);
                         count++;
@@ -1880,9 +2202,6 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                 }
             } catch (EOFException ex) {
                 getLog().info(" relationship count = " + count + " @EOF\r\n");
-            } catch (ClassNotFoundException e) {
-                getLog().info(e);
-                throw new MojoFailureException("ClassNotFoundException -- Step 2 reading file");
             }
             ois.close();
             getLog().info(" relationship count = " + count + "\r\n");
@@ -1924,13 +2243,12 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             };
             Collections.sort(aRel, compRelDest);
 
-            ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(
-                    new FileOutputStream(fNameStep3RelDest)));
+            Sct1ScratchOutput oos = new Sct1ScratchOutput(fNameStep3RelDest);
             long lastRelMsb = Long.MIN_VALUE;
             long lastRelLsb = Long.MIN_VALUE;
             for (Sct1_RelRecord r : aRel) {
                 if (r.getRelUuidMsb() != lastRelMsb || r.getRelUuidLsb() != lastRelLsb) {
-                    oos.writeUnshared(new Sct1_RelDestRecord(r.getRelUuidMsb(), r.getRelUuidLsb(),
+                    oos.write(new Sct1_RelDestRecord(r.getRelUuidMsb(), r.getRelUuidLsb(),
                             r.getC2UuidMsb(), r.getC2UuidLsb(), r.getRoleTypeIdx()));
                 }
                 lastRelMsb = r.getRelUuidMsb();
@@ -1957,264 +2275,143 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             throws MojoFailureException {
         getLog().info("*** Sct1ArfToEConcept STEP #4 BEGINNING -- MATCH IDs ***");
         long start = System.currentTimeMillis();
-        int nWrite = 0; // counter for memory optimization for object files writing
 
         try {
-            // Read in IDs. Sort by primary uuid
+            // Sort IDs by primary uuid
             // *** IDs ***
-            ObjectInputStream ois;
-            ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fNameStep1Ids)));
-            ArrayList<Sct1_IdRecord> aId = new ArrayList<Sct1_IdRecord>();
-
-            int count = 0;
-            Object obj = null;
-            try {
-                while ((obj = ois.readObject()) != null) {
-                    if (obj instanceof Sct1_IdRecord) {
-                        aId.add((Sct1_IdRecord) obj);
-                        count++;
-                        if (count % 100000 == 0) {
-                            getLog().info(" id count = " + count);
-                        }
-                    }
-                }
-            } catch (EOFException ex) {
-                getLog().info(" id count = " + count + "\r\n");
-            }
-            ois.close();
-
             // SORT BY [PRIMARYID, Path, Revision]
-            Collections.sort(aId);
+            sortScratch(new Sct1ScratchSort<Sct1_IdRecord>(Sct1_IdRecord.class, null, getSortMemoryBudget()),
+                    fNameStep1Ids, fNameStep4Ids, "id");
 
-            // Read in con.  Sort by con uuid.
+            // Sort con by con uuid.
             // *** CONCEPTS ***
-            ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fNameStep1Con)));
-            ArrayList<Sct1_ConRecord> aCon = new ArrayList<Sct1_ConRecord>();
-
-            count = 0;
-            obj = null;
-            try {
-                while ((obj = ois.readObject()) != null) {
-                    if (obj instanceof Sct1_ConRecord) {
-                        aCon.add((Sct1_ConRecord) obj);
-                        count++;
-                        if (count % 100000 == 0) {
-                            getLog().info(" concept count = " + count);
-                        }
-                    }
-                }
-            } catch (EOFException ex) {
-                getLog().info(" concept count = " + count + " @EOF\r\n");
-            }
-            ois.close();
-            getLog().info(" concept count = " + count + "\r\n");
-
             // SORT BY [CONCEPTID, Path, Revision]
-            Collections.sort(aCon);
+            sortScratch(new Sct1ScratchSort<Sct1_ConRecord>(Sct1_ConRecord.class, null, getSortMemoryBudget()),
+                    fNameStep1Con, fNameStep4Sorted, "concept");
 
             // MATCH & ADD ID TO CONCEPT
             // PLACE IDs ON FIRST UUID INSTANCE OF CONCEPT
-            ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(
-                    new FileOutputStream(fNameStep4Con)));
+            Sct1ScratchInput oisId = new Sct1ScratchInput(fNameStep4Ids);
+            Sct1ScratchInput ois = new Sct1ScratchInput(fNameStep4Sorted);
+            Sct1ScratchOutput oos = new Sct1ScratchOutput(fNameStep4Con);
 
-            int lastIdIdx = aId.size();
-            int lastConIdx = aCon.size();
-            int theIdIdx = 0;
-            int theConIdx = 0;
-            while (theIdIdx < lastIdIdx && theConIdx < lastConIdx) {
-                Sct1_ConRecord tmpCon = aCon.get(theConIdx);
-                int match = checkIdConMatched(aId.get(theIdIdx), tmpCon);
+            Sct1_IdRecord tmpId = (Sct1_IdRecord) oisId.nextRecord();
+            Sct1_ConRecord tmpCon = (Sct1_ConRecord) ois.nextRecord();
+            while (tmpId != null && tmpCon != null) {
+                int match = checkIdConMatched(tmpId, tmpCon);
 
                 if (match == 0) {
                     // MATCH
-                    if (aId.get(theIdIdx).getSrcSystemIdx() == 0) {
-                        tmpCon.setConSnoId(aId.get(theIdIdx).getDenotationLong());
+                    if (tmpId.getSrcSystemIdx() == 0) {
+                        tmpCon.setConSnoId(tmpId.getDenotationLong());
                     } else {
                         if (tmpCon.getAddedIds() == null) {
                             tmpCon.setAddedIds(new ArrayList<Sct1_IdRecord>());
                         }
-                        tmpCon.getAddedIds().add(aId.get(theIdIdx));
+                        tmpCon.getAddedIds().add(tmpId);
                     }
-                    theIdIdx++; // Get next id.
+                    tmpId = (Sct1_IdRecord) oisId.nextRecord(); // Get next id.
                 } else if (match == 1) {
                     // Ids are ahead of the concepts.
-                    oos.writeUnshared(tmpCon); // Save this concept.
-                    theConIdx++; // Get next concept.
-
-                    // PERIODIC RESET IMPROVES MEMORY USE
-                    nWrite++;
-                    if (nWrite % ooResetInterval == 0) {
-                        oos.reset();
-                    }
+                    oos.write(tmpCon); // Save this concept.
+                    tmpCon = (Sct1_ConRecord) ois.nextRecord(); // Get next concept.
                 } else {
                     // Concepts are ahead of the ids.
-                    theIdIdx++; // Get the next id.
+                    tmpId = (Sct1_IdRecord) oisId.nextRecord(); // Get the next id.
                 }
             }
-            while (theConIdx < lastConIdx) {
-                oos.writeUnshared(aCon.get(theConIdx)); // Save this concept.
-                theConIdx++;
-
-                // PERIODIC RESET IMPROVES MEMORY USE
-                nWrite++;
-                if (nWrite % ooResetInterval == 0) {
-                    oos.reset();
-                }
+            while (tmpCon != null) {
+                oos.write(tmpCon); // Save this concept.
+                tmpCon = (Sct1_ConRecord) ois.nextRecord();
             }
+            oisId.close();
+            ois.close();
             oos.flush();
             oos.close();
-            aCon = null;
 
-            // Read in des.  Sort by des uuid.
+            // Sort des by des uuid.
             // *** DESCRIPTIONS ***
-            ois = new ObjectInputStream(
-                    new BufferedInputStream(new FileInputStream(fNameStep1Desc)));
-            ArrayList<Sct1_DesRecord> aDes = new ArrayList<Sct1_DesRecord>();
-
-            count = 0;
-            obj = null;
-            try {
-                while ((obj = ois.readObject()) != null) {
-                    if (obj instanceof Sct1_DesRecord) {
-                        aDes.add((Sct1_DesRecord) obj);
-                        count++;
-
-                        if (count % 100000 == 0) {
-                            getLog().info(" description count = " + count);
-                        }
-                    }
-                }
-            } catch (EOFException ex) {
-                getLog().info(" description count = " + count + " @EOF\r\n");
-            }
-            ois.close();
-            getLog().info(" description count = " + count + "\r\n");
-
-            Collections.sort(aDes);
+            sortScratch(new Sct1ScratchSort<Sct1_DesRecord>(Sct1_DesRecord.class, null, getSortMemoryBudget()),
+                    fNameStep1Desc, fNameStep4Sorted, "description");
 
             // MATCH & ADD ID TO DESCRIPTION
             // PLACE IDs ON FIRST UUID INSTANCE OF DESCRIPTIONS
-            oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep4Desc)));
-
-            lastIdIdx = aId.size();
-            theIdIdx = 0;
-            int lastDesIdx = aDes.size();
-            int theDesIdx = 0;
-            while (theIdIdx < lastIdIdx && theDesIdx < lastDesIdx) {
-                Sct1_DesRecord tmpDes = aDes.get(theDesIdx);
-                int match = checkIdDesMatched(aId.get(theIdIdx), tmpDes);
+            oisId = new Sct1ScratchInput(fNameStep4Ids);
+            ois = new Sct1ScratchInput(fNameStep4Sorted);
+            oos = new Sct1ScratchOutput(fNameStep4Desc);
+
+            tmpId = (Sct1_IdRecord) oisId.nextRecord();
+            Sct1_DesRecord tmpDes = (Sct1_DesRecord) ois.nextRecord();
+            while (tmpId != null && tmpDes != null) {
+                int match = checkIdDesMatched(tmpId, tmpDes);
                 if (match == 0) { // MATCH
-                    if (aId.get(theIdIdx).getSrcSystemIdx() == 0) {
-                        tmpDes.setDesSnoId(aId.get(theIdIdx).getDenotationLong());
+                    if (tmpId.getSrcSystemIdx() == 0) {
+                        tmpDes.setDesSnoId(tmpId.getDenotationLong());
                     } else {
                         if (tmpDes.getAddedIds() == null) {
                             tmpDes.setAddedIds(new ArrayList<Sct1_IdRecord>());
                         }
-                        tmpDes.getAddedIds().add(aId.get(theIdIdx));
+                        tmpDes.getAddedIds().add(tmpId);
                     }
-                    theIdIdx++; // Get next id.
+                    tmpId = (Sct1_IdRecord) oisId.nextRecord(); // Get next id.
                 } else if (match == 1) { // Ids are ahead of the descriptions.
-                    oos.writeUnshared(tmpDes); // Save this description.
-                    theDesIdx++; // Get next description.
-
-                    // PERIODIC RESET IMPROVES MEMORY USE
-                    nWrite++;
-                    if (nWrite % ooResetInterval == 0) {
-                        oos.reset();
-                    }
+                    oos.write(tmpDes); // Save this description.
+                    tmpDes = (Sct1_DesRecord) ois.nextRecord(); // Get next description.
                 } else { // Descriptions are ahead of the ids.
-                    theIdIdx++; // Get the next id.
+                    tmpId = (Sct1_IdRecord) oisId.nextRecord(); // Get the next id.
                 }
             }
-            while (theDesIdx < lastDesIdx) {
-                oos.writeUnshared(aDes.get(theDesIdx)); // Save this concept.
-                theDesIdx++;
-
-                // PERIODIC RESET IMPROVES MEMORY USE
-                nWrite++;
-                if (nWrite % ooResetInterval == 0) {
-                    oos.reset();
-                }
+            while (tmpDes != null) {
+                oos.write(tmpDes); // Save this description.
+                tmpDes = (Sct1_DesRecord) ois.nextRecord();
             }
+            oisId.close();
+            ois.close();
             oos.flush();
             oos.close();
-            aDes = null;
 
-            // Read in rel. Sort by rel uuid.
+            // Sort rel by rel uuid.
             // *** RELATIONSHIPS ***
-            ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fNameStep1Rel)));
-            ArrayList<Sct1_RelRecord> aRel = new ArrayList<Sct1_RelRecord>();
-
-            count = 0;
-            obj = null;
-            try {
-                while ((obj = ois.readObject()) != null) {
-                    if (obj instanceof Sct1_RelRecord) {
-                        aRel.add((Sct1_RelRecord) obj);
-                        count++;
-                        if (count % 100000 == 0) {
-                            getLog().info(" relationships count = " + count);
-                        }
-                    }
-                }
-            } catch (EOFException ex) {
-                getLog().info(" relationships count = " + count + " @EOF\r\n");
-            }
-            ois.close();
-            getLog().info(" relationships count = " + count + "\r\n");
-
-            Collections.sort(aRel);
+            sortScratch(new Sct1ScratchSort<Sct1_RelRecord>(Sct1_RelRecord.class, null, getSortMemoryBudget()),
+                    fNameStep1Rel, fNameStep4Sorted, "relationships");
 
             // MATCH & ADD ID TO RELATIONSHIP
             // PLACE IDs ON FIRST UUID INSTANCE OF RELATIONSHIP
-            oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep4Rel)));
+            oisId = new Sct1ScratchInput(fNameStep4Ids);
+            ois = new Sct1ScratchInput(fNameStep4Sorted);
+            oos = new Sct1ScratchOutput(fNameStep4Rel);
 
-            theIdIdx = 0;
-            lastIdIdx = aId.size();
-            int lastRelIdx = aRel.size();
-            int theRelIdx = 0;
-            while (theIdIdx < lastIdIdx && theRelIdx < lastRelIdx) {
-                Sct1_RelRecord tmpRel = aRel.get(theRelIdx);
-                int match = checkIdRelMatched(aId.get(theIdIdx), tmpRel);
+            tmpId = (Sct1_IdRecord) oisId.nextRecord();
+            Sct1_RelRecord tmpRel = (Sct1_RelRecord) ois.nextRecord();
+            while (tmpId != null && tmpRel != null) {
+                int match = checkIdRelMatched(tmpId, tmpRel);
 
                 if (match == 0) { // MATCH
-                    if (aId.get(theIdIdx).getSrcSystemIdx() == 0) {
-                        tmpRel.setRelSnoId(aId.get(theIdIdx).getDenotationLong());
+                    if (tmpId.getSrcSystemIdx() == 0) {
+                        tmpRel.setRelSnoId(tmpId.getDenotationLong());
                     } else {
                         if (tmpRel.getAddedIds() == null) {
                             tmpRel.setAddedIds(new ArrayList<Sct1_IdRecord>(1));
                         }
-                        tmpRel.getAddedIds().add(aId.get(theIdIdx));
+                        tmpRel.getAddedIds().add(tmpId);
                     }
-                    theIdIdx++; // Get next id.
+                    tmpId = (Sct1_IdRecord) oisId.nextRecord(); // Get next id.
                 } else if (match == 1) { // Ids are ahead of the relationships.
-                    oos.writeUnshared(tmpRel); // Save this relationship.
-                    theRelIdx++; // Get next relationship.
-
-                    // PERIODIC RESET IMPROVES MEMORY USE
-                    nWrite++;
-                    if (nWrite % ooResetInterval == 0) {
-                        oos.reset();
-                    }
+                    oos.write(tmpRel); // Save this relationship.
+                    tmpRel = (Sct1_RelRecord) ois.nextRecord(); // Get next relationship.
                 } else { // Relationships are ahead of the ids.
-                    theIdIdx++; // Get the next id.
+                    tmpId = (Sct1_IdRecord) oisId.nextRecord(); // Get the next id.
                 }
             }
-            while (theRelIdx < lastRelIdx) {
-                oos.writeUnshared(aRel.get(theRelIdx)); // Save this concept.
-                theRelIdx++;
-
-                // PERIODIC RESET IMPROVES MEMORY USE
-                nWrite++;
-                if (nWrite % ooResetInterval == 0) {
-                    oos.reset();
-                }
+            while (tmpRel != null) {
+                oos.write(tmpRel); // Save this relationship.
+                tmpRel = (Sct1_RelRecord) ois.nextRecord();
             }
+            oisId.close();
+            ois.close();
             oos.flush();
             oos.close();
-            aRel = null;
+            new File(fNameStep4Sorted).delete();
 
         } catch (FileNotFoundException e) {
             getLog().info(e);
@@ -2222,9 +2419,6 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         } catch (IOException e) {
             getLog().info(e);
             throw new MojoFailureException("IOException");
-        } catch (ClassNotFoundException e) {
-            getLog().info(e);
-            throw new MojoFailureException("ClassNotFoundException");
         }
 
         getLog().info(
@@ -2369,17 +2563,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
 
         try {
             // *** READ IN REFSET ***
-            int numObj = countFileObjects(fNameStep2Refset);
-
-            ObjectInputStream ois;
-            ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(
-                    fNameStep2Refset)));
-            ArrayList<Sct1_RefSetRecord> aRs = new ArrayList<Sct1_RefSetRecord>(numObj);
+            Sct1ScratchInput ois;
+            ois = new Sct1ScratchInput(fNameStep2Refset);
+            ArrayList<Sct1_RefSetRecord> aRs = new ArrayList<Sct1_RefSetRecord>(ois.getInitialCapacity());
 
             int count = 0;
             Object obj = null;
             try {
-                while ((obj = ois.readObject()) != null) {
+                while ((obj = ois.readRecord()) != null) {
                     if (obj instanceof Sct1_RefSetRecord) {
                         aRs.add((Sct1_RefSetRecord) obj);
                         count++;
@@ -2401,10 +2592,10 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             // ATTACH ENVELOPE CONCEPTS (3 PASS)
             // *** CONCEPTS ***
             int idxRsA = 0;
-            ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fNameStep4Con)));
+            ois = new Sct1ScratchInput(fNameStep4Con);
             try {
                 count = 0;
-                obj = ois.readUnshared();
+                obj = ois.readRecord();
                 while (obj != null && idxRsA < aRsMax) {
                     Sct1_RefSetRecord rsRec = aRs.get(idxRsA);
                     Sct1_ConRecord conRec = (Sct1_ConRecord) obj;
@@ -2417,7 +2608,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                         rsRec.setComponentType(Sct1_RefSetRecord.ComponentType.CONCEPT);
                         idxRsA++;
                     } else if (rsVin > 0) {
-                        obj = ois.readUnshared();
+                        obj = ois.readRecord();
                         count++;
                         if (count % 100000 == 0) {
                             getLog().info(" concept count = " + count);
@@ -2433,12 +2624,11 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             getLog().info(" concept count = " + count + "\r\n");
 
             // *** DESCRIPTIONS ***
-            ois = new ObjectInputStream(
-                    new BufferedInputStream(new FileInputStream(fNameStep4Desc)));
+            ois = new Sct1ScratchInput(fNameStep4Desc);
             try {
                 count = 0;
                 idxRsA = 0;
-                obj = ois.readUnshared();
+                obj = ois.readRecord();
                 while (obj != null && idxRsA < aRsMax) {
                     Sct1_RefSetRecord rsRec = aRs.get(idxRsA);
                     Sct1_DesRecord desRec = (Sct1_DesRecord) obj;
@@ -2461,7 +2651,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                         rsRec.setComponentType(Sct1_RefSetRecord.ComponentType.DESCRIPTION);
                         idxRsA++;
                     } else if (rsVin > 0) {
-                        obj = ois.readUnshared();
+                        obj = ois.readRecord();
                         count++;
                         if (count % 100000 == 0) {
                             getLog().info(" description count = " + count);
@@ -2477,11 +2667,11 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             getLog().info(" description count = " + count + "\r\n");
 
             // *** RELATIONSHIPS ***
-            ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fNameStep4Rel)));
+            ois = new Sct1ScratchInput(fNameStep4Rel);
             try {
                 count = 0;
                 idxRsA = 0;
-                obj = ois.readUnshared();
+                obj = ois.readRecord();
                 while (obj != null && idxRsA < aRsMax) {
                     Sct1_RefSetRecord rsRec = aRs.get(idxRsA);
                     Sct1_RelRecord relRec = (Sct1_RelRecord) obj;
@@ -2503,7 +2693,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                         rsRec.setComponentType(Sct1_RefSetRecord.ComponentType.RELATIONSHIP);
                         idxRsA++;
                     } else if (rsVin > 0) {
-                        obj = ois.readUnshared();
+                        obj = ois.readRecord();
                         count++;
                         if (count % 100000 == 0) {
                             getLog().info(" relationship count = " + count);
@@ -2629,20 +2819,18 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                 } // compare()
             };
             Collections.sort(aRs, compRsByCon);
-            ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(
-                    new FileOutputStream(fNameStep5RsByCon)));
+            Sct1ScratchOutput oos = new Sct1ScratchOutput(fNameStep5RsByCon);
             for (Sct1_RefSetRecord r : aRs) {
-                oos.writeUnshared(r);
+                oos.write(r);
             }
             oos.flush();
             oos.close();
 
             // SAVE FILE SORTED BY REFSET UUID
             Collections.sort(aRs, compRsByRs);
-            oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep5RsByRs)));
+            oos = new Sct1ScratchOutput(fNameStep5RsByRs);
             for (Sct1_RefSetRecord r : aRs) {
-                oos.writeUnshared(r);
+                oos.write(r);
             }
             oos.flush();
             oos.close();
@@ -2656,8 +2844,6 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             getLog().info(e);
         } catch (IOException e) {
             getLog().info(e);
-        } catch (ClassNotFoundException e) {
-            getLog().info(e);
         }
 
         getLog().info(
@@ -2692,28 +2878,6 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         try {
 
             // *** CONCEPTS ***
-            ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(
-                    new FileInputStream(fNameStep4Con)));
-            ArrayList<Sct1_ConRecord> aCon = new ArrayList<Sct1_ConRecord>();
-
-            int count = 0;
-            Object obj = null;
-            try {
-                while ((obj = ois.readObject()) != null) {
-                    if (obj instanceof Sct1_ConRecord) {
-                        aCon.add((Sct1_ConRecord) obj);
-                        count++;
-                        if (count % 100000 == 0) {
-                            getLog().info(" concept count = " + count);
-                        }
-                    }
-                }
-            } catch (EOFException ex) {
-                getLog().info(" concept count = " + count + " @EOF\r\n");
-            }
-            ois.close();
-            getLog().info(" concept count = " + count + "\r\n");
-
             // SORT BY [CONCEPTID, Path, Revision]
             Comparator<Sct1_ConRecord> compCon = new Comparator<Sct1_ConRecord>() {
                 @Override
@@ -2750,41 +2914,10 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     }
                 } // compare()
             };
-            Collections.sort(aCon, compCon);
-
-            ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(
-                    new FileOutputStream(fNameStep6Con)));
-            for (Sct1_ConRecord r : aCon) {
-                oos.writeUnshared(r);
-            }
-            oos.flush();
-            oos.close();
-            aCon = null;
-            System.gc();
+            sortScratch(new Sct1ScratchSort<Sct1_ConRecord>(Sct1_ConRecord.class, compCon, getSortMemoryBudget()),
+                    fNameStep4Con, fNameStep6Con, "concept");
 
             // *** DESCRIPTIONS ***
-            ois = new ObjectInputStream(
-                    new BufferedInputStream(new FileInputStream(fNameStep4Desc)));
-            ArrayList<Sct1_DesRecord> aDes = new ArrayList<Sct1_DesRecord>();
-
-            count = 0;
-            obj = null;
-            try {
-                while ((obj = ois.readObject()) != null) {
-                    if (obj instanceof Sct1_DesRecord) {
-                        aDes.add((Sct1_DesRecord) obj);
-                        count++;
-                        if (count % 100000 == 0) {
-                            getLog().info(" description count = " + count);
-                        }
-                    }
-                }
-            } catch (EOFException ex) {
-                getLog().info(" description count = " + count + " @EOF\r\n");
-            }
-            ois.close();
-            getLog().info(" description count = " + count + "\r\n");
-
             // SORT BY [CONCEPTID, DESCRIPTIONID, Path, Revision]
             Comparator<Sct1_DesRecord> compDes = new Comparator<Sct1_DesRecord>() {
                 @Override
@@ -2834,41 +2967,10 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     }
                 } // compare()
             };
-            Collections.sort(aDes, compDes);
-
-            oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep6Desc)));
-            for (Sct1_DesRecord r : aDes) {
-                oos.writeUnshared(r);
-            }
-
-            oos.flush();
-            oos.close();
-            aDes = null;
-            System.gc();
+            sortScratch(new Sct1ScratchSort<Sct1_DesRecord>(Sct1_DesRecord.class, compDes, getSortMemoryBudget()),
+                    fNameStep4Desc, fNameStep6Desc, "description");
 
             // *** RELATIONSHIPS ***
-            ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fNameStep4Rel)));
-            ArrayList<Sct1_RelRecord> aRel = new ArrayList<Sct1_RelRecord>();
-
-            count = 0;
-            obj = null;
-            try {
-                while ((obj = ois.readObject()) != null) {
-                    if (obj instanceof Sct1_RelRecord) {
-                        aRel.add((Sct1_RelRecord) obj);
-                        count++;
-                        if (count % 100000 == 0) {
-                            getLog().info(" relationships count = " + count);
-                        }
-                    }
-                }
-            } catch (EOFException ex) {
-                getLog().info(" relationships count = " + count + "\r\n");
-            }
-            ois.close();
-            getLog().info(" relationships count = " + count + " @EOF\r\n");
-
             // SORT BY [C1-Group-RoleType-Path-RevisionVersion]
             Comparator<Sct1_RelRecord> compRel = new Comparator<Sct1_RelRecord>() {
                 @Override
@@ -2932,40 +3034,10 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     }
                 } // compare()
             };
-            Collections.sort(aRel, compRel);
-
-            oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep6Rel)));
-            for (Sct1_RelRecord r : aRel) {
-                oos.writeUnshared(r);
-            }
-            oos.flush();
-            oos.close();
-            aRel = null;
+            sortScratch(new Sct1ScratchSort<Sct1_RelRecord>(Sct1_RelRecord.class, compRel, getSortMemoryBudget()),
+                    fNameStep4Rel, fNameStep6Rel, "relationships");
 
             // ** DESTINATION RELATIONSHIPS **
-            ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(
-                    fNameStep3RelDest)));
-            ArrayList<Sct1_RelDestRecord> aRelDest = new ArrayList<Sct1_RelDestRecord>();
-
-            count = 0;
-            obj = null;
-            try {
-                while ((obj = ois.readObject()) != null) {
-                    if (obj instanceof Sct1_RelDestRecord) {
-                        aRelDest.add((Sct1_RelDestRecord) obj);
-                        count++;
-                        if (count % 100000 == 0) {
-                            getLog().info(" destination relationships count = " + count);
-                        }
-                    }
-                }
-            } catch (EOFException ex) {
-                getLog().info(" destination relationships count = " + count + "\r\n");
-            }
-            ois.close();
-            getLog().info(" destination relationships count = " + count + " @EOF\r\n");
-
             // SORT BY [C2-RoleType]
             Comparator<Sct1_RelDestRecord> compRelDest = new Comparator<Sct1_RelDestRecord>() {
                 @Override
@@ -2995,18 +3067,8 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     }
                 } // compare()
             };
-            Collections.sort(aRelDest, compRelDest);
-
-            oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
-                    fNameStep6RelDest)));
-            for (Sct1_RelDestRecord r : aRelDest) {
-                oos.writeUnshared(r);
-            }
-            oos.flush();
-            oos.close();
-            aRelDest = null;
-
-            System.gc();
+            sortScratch(new Sct1ScratchSort<Sct1_RelDestRecord>(Sct1_RelDestRecord.class, compRelDest, getSortMemoryBudget()),
+                    fNameStep3RelDest, fNameStep6RelDest, "destination relationships");
 
         } catch (FileNotFoundException e) {
             getLog().info(e);
@@ -3014,9 +3076,6 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         } catch (IOException e) {
             getLog().info(e);
             throw new MojoFailureException("IO Exception -- Step 6 Sort");
-        } catch (ClassNotFoundException e) {
-            getLog().info(e);
-            throw new MojoFailureException("ClassNotFoundException -- Step 6 Sort");
         }
         getLog().info(
                 "*** MASTER SORT TIME: " + ((System.currentTimeMillis() - start) / 1000)
@@ -3042,313 +3101,116 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
 
         getLog().info("*** Sct1ArfToEConcept STEP #7 BEGINNING -- CREATE eCONCEPTS ***");
         long start = System.currentTimeMillis();
-        countEConWritten = 0;
-
-        // Lists hold records for the immediate operations 
-        ArrayList<Sct1_ConRecord> conList = new ArrayList<Sct1_ConRecord>();
-        ArrayList<Sct1_DesRecord> desList = new ArrayList<Sct1_DesRecord>();
-        ArrayList<Sct1_RelRecord> relList = new ArrayList<Sct1_RelRecord>();
-        ArrayList<Sct1_RelDestRecord> relDestList = new ArrayList<Sct1_RelDestRecord>();
-        ArrayList<Sct1_RefSetRecord> rsByConList = new ArrayList<Sct1_RefSetRecord>();
-        ArrayList<Sct1_RefSetRecord> rsByRsList = new ArrayList<Sct1_RefSetRecord>();
-
-        // Since readObject must look one record ahead,
-        // the look ahead record is stored as "Next"
-        Sct1_ConRecord conNext = null;
-        Sct1_DesRecord desNext = null;
-        Sct1_RelRecord relNext = null;
-        Sct1_RelDestRecord relDestNext = null;
-        Sct1_RefSetRecord rsByConNext = null;
-        Sct1_RefSetRecord rsByRsNext = null;
-
-        // Open Input and Output Streams
-        ObjectInputStream oisCon = null;
-        ObjectInputStream oisDes = null;
-        ObjectInputStream oisRel = null;
-        ObjectInputStream oisRelDest = null;
-        ObjectInputStream oisRsByCon = null;
-        ObjectInputStream oisRsByRs = null;
-        DataOutputStream dos = null;
-        try {
-            oisCon = new ObjectInputStream(new BufferedInputStream(new FileInputStream(
-                    fNameStep6Con)));
-            oisDes = new ObjectInputStream(new BufferedInputStream(new FileInputStream(
-                    fNameStep6Desc)));
-            oisRel = new ObjectInputStream(new BufferedInputStream(new FileInputStream(
-                    fNameStep6Rel)));
-            oisRelDest = new ObjectInputStream(new BufferedInputStream(new FileInputStream(
-                    fNameStep6RelDest)));
-            oisRsByCon = new ObjectInputStream(new BufferedInputStream(new FileInputStream(
-                    fNameStep5RsByCon)));
-            oisRsByRs = new ObjectInputStream(new BufferedInputStream(new FileInputStream(
-                    fNameStep5RsByRs)));
-            dos = new DataOutputStream(new BufferedOutputStream(
-                    new FileOutputStream(fNameStep7ECon)));
-        } catch (FileNotFoundException e) {
-            getLog().info(e);
-            throw new MojoFailureException("File Not Found -- Step #7");
-        } catch (IOException e) {
-            getLog().info(e);
-            throw new MojoFailureException("IO Exception -- Step #7");
-        }
-
-        // :DEBUG:
-        //        boolean readMoreBug = true;
-        //        boolean nextBug = false;
-        //        int bugCount = 0;
-        //        while (readMoreBug) {
-        //            Object bugO;
-        //            try {
-        //                bugO = oisDes.readUnshared()
-        //                if (bugO instanceof Sct1_DesRecord || nextBug == true) {
-        //                    Sct1_DesRecord bugDes = (Sct1_DesRecord) bugO;
-        //                    if (bugDes.conUuidMsb == -8120194779924901686L
-        //                            && bugDes.conUuidLsb == -6989461898667750587L) {
-        //                        getLog().info(":DEBUG: ...  ## count ## " + bugCount);
-        //                        getLog().info(":DEBUG: ... conSnoId   = " + bugDes.conSnoId);
-        //                        getLog().info(":DEBUG: ... conUuidLsb = " + bugDes.conUuidLsb);
-        //                        getLog().info(":DEBUG: ... conUuidMsb = " + bugDes.conUuidMsb);
-        //                        getLog().info(":DEBUG: ... termText   = " + bugDes.termText);
-        //                        nextBug = !nextBug;
-        //                    }
-        //                } else 
-        //                    readMoreBug = false;
-        //                    
-        //            } catch (IOException e) {
-        //                getLog().info(e);
-        //                readMoreBug = false;
-        //            } catch (ClassNotFoundException e) {
-        //                getLog().info(e);
-        //                readMoreBug = false;
-        //            }
-        //            bugCount++;
-        //        } 
-        // :DEBUG:END 
-
-        int countCon = 0;
-        int countDes = 0;
-        int countRel = 0;
-        int countRsByCon = 0;
-        int countRsByRs = 0;
-        boolean notDone = true;
-        UUID theCon;
-        UUID theDes = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
-        UUID theRel = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
-        UUID theRelDest = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
-        UUID theRsByCon = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
-        UUID theRsByRs = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
-        UUID prevCon = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
-        UUID prevDes = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
-        UUID prevRel = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
-        UUID prevRelDest = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
-        while (notDone) {
-            // Get next Concept record(s) for 1 id.
-            conNext = readNextCon(oisCon, conList, conNext);
-            Sct1_ConRecord tmpConRec = conList.get(0);
-            theCon = new UUID(tmpConRec.getConUuidMsb(), tmpConRec.getConUuidLsb());
-            countCon++;
-
-            while (theDes.compareTo(theCon) == IS_LESS) {
-                desNext = readNextDes(oisDes, desList, desNext);
-                if (desNext == null && desList.isEmpty()) {
-                    theDes = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
-                } else {
-                    Sct1_DesRecord tmpDes = desList.get(0);
-                    theDes = new UUID(tmpDes.getConUuidMsb(), tmpDes.getConUuidLsb());
-                    countDes++;
-                    if (theDes.compareTo(theCon) == IS_LESS) {
-                        getLog().info("ORPHAN DESCRIPTION :: " + desList.get(0).getTermText());
-                    }
-                }
-            }
-
-            while (theRel.compareTo(theCon) == IS_LESS) {
-                relNext = readNextRel(oisRel, relList, relNext);
-                if (relNext == null && relList.isEmpty()) {
-                    theRel = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
-                } else {
-                    // theRel = relList.get(0).c1SnoId;
-                    Sct1_RelRecord tmpRel = relList.get(0);
-                    theRel = new UUID(tmpRel.getC1UuidMsb(), tmpRel.getC1UuidLsb());
-                    countRel++;
-                    if (theRel.compareTo(theCon) == IS_LESS) {
-                        getLog().info(
-                                "ORPHAN RELATIONSHIP :: relid=" + relList.get(0).getRelSnoId() + " c1=="
-                                + relList.get(0).getC1SnoId());
-                    }
-                }
-            }
-
-            while (theRelDest.compareTo(theCon) == IS_LESS) {
-                relDestNext = readNextRelDest(oisRelDest, relDestList, relDestNext);
-                if (relDestNext == null && relDestList.isEmpty()) {
-                    theRelDest = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
-                } else {
-                    // theRelDest = relDestList.get(0).c2SnoId;
-                    Sct1_RelDestRecord tmpRelDest = relDestList.get(0);
-                    theRelDest = new UUID(tmpRelDest.getC2UuidMsb(), tmpRelDest.getC2UuidLsb());
-                    if (theRelDest.compareTo(theCon) == IS_LESS) {
-                        getLog().info(
-                                "ORPHAN DEST. RELATIONSHIP :: relid="
-                                + relList.get(0).getRelSnoId()
-                                + " c2=="
-                                + new UUID(relDestList.get(0).getC2UuidMsb(),
-                                relDestList.get(0).getC2UuidLsb()));
-                    }
-                }
-            }
-
-            while (theRsByCon.compareTo(theCon) == IS_LESS) {
-                rsByConNext = readNextRsByCon(oisRsByCon, rsByConList, rsByConNext);
-
-                if (rsByConNext == null && rsByConList.isEmpty()) {
-                    theRsByCon = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
-                } else {
-                    Sct1_RefSetRecord tmpRsByCon = rsByConList.get(0);
-                    theRsByCon = new UUID(tmpRsByCon.getConUuidMsb(), tmpRsByCon.getConUuidLsb());
-                    countRsByCon++;
-                    if (theRsByCon.compareTo(theCon) == IS_LESS) {
-                        getLog().info(
-                                "ORPHAN REFSET MEMBER RECORD_A :: "
-                                + new UUID(rsByConList.get(0).getRefsetMemberUuidMsb(),
-                                rsByConList.get(0).getRefsetMemberUuidLsb()));
-                    }
-                }
-            }
+        countEConWritten = 0;
 
-            while (theRsByRs.compareTo(theCon) == IS_LESS) {
-                rsByRsNext = readNextRsByRs(oisRsByRs, rsByRsList, rsByRsNext);
-                // :DEBUG:
-                //                UUID debugUuidRsByCon111 = UUID.fromString("ccbd4a65-9b1a-5df3-94d1-4a1085f3c758");
+        // Batches hold the records of one concept until its eConcept is built,
+        // then go back to the free list for reuse.
+        int batchCount = Math.max(1, threads) * 4;
+        BlockingQueue<Sct1ConceptBatch> freeBatches = new ArrayBlockingQueue<Sct1ConceptBatch>(batchCount);
+        for (int i = 0; i < batchCount; i++) {
+            freeBatches.add(new Sct1ConceptBatch());
+        }
 
-                if (rsByRsNext == null && rsByRsList.isEmpty()) {
-                    theRsByRs = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
-                } else {
-                    Sct1_RefSetRecord tmpRsByRs = rsByRsList.get(0);
-                    theRsByRs = new UUID(tmpRsByRs.getRefsetUuidMsb(), tmpRsByRs.getRefsetUuidLsb());
-                    countRsByRs++;
-                    if (theRsByRs.compareTo(theCon) == IS_LESS) {
-                        getLog().info(
-                                "ORPHAN REFSET MEMBER RECORD_B :: "
-                                + new UUID(rsByRsList.get(0).getRefsetMemberUuidMsb(),
-                                rsByRsList.get(0).getRefsetMemberUuidLsb()));
-                    }
+        // An incremental build keeps the records of other concepts which point
+        // to the affected ones, so orphans are expected and not reported.
+        Sct1ConceptMerge.OrphanListener orphanListener = null;
+        if (!incremental) {
+            orphanListener = new Sct1ConceptMerge.OrphanListener() {
+                @Override
+                public void orphan(Sct1ConceptMerge.Stream stream, Object first) {
+                    logOrphan(stream, first);
                 }
+            };
+        }
+
+        // Open Input and Output Streams
+        Sct1ConceptMerge merge = null;
+        OrderedByteWriter eConWriter = null;
+        Sct1EConceptIndex.Writer indexWriter = null;
+        Sct1EConceptIndex.Splicer splicer = null;
+        try {
+            merge = new Sct1ConceptMerge(fNameStep6Con, fNameStep6Desc, fNameStep6Rel, fNameStep6RelDest,
+                    fNameStep5RsByCon, fNameStep5RsByRs, orphanListener);
+            File eConFile = new File(fNameStep7ECon);
+            indexWriter = new Sct1EConceptIndex.Writer(Sct1EConceptIndex.getIndexFile(eConFile));
+            eConWriter = new OrderedByteWriter(eConFile, threads, indexWriter);
+            getLog().info("Step 7 eCONCEPTS ASSEMBLED ON " + Math.max(1, threads) + " thread(s)");
+            if (incremental) {
+                splicer = new Sct1EConceptIndex.Splicer(previousEConcepts);
+                getLog().info("Step 7 UNCHANGED eCONCEPTS COPIED FROM " + previousEConcepts);
             }
+        } catch (FileNotFoundException e) {
+            getLog().info(e);
+            throw new MojoFailureException("File Not Found -- Step #7");
+        } catch (IOException e) {
+            getLog().info(e);
+            throw new MojoFailureException("IO Exception -- Step #7");
+        }
+
+        int countCon = 0;
+        try {
+            while (true) {
+                // Get next Concept record(s) for 1 id, with the records of all components.
+                Sct1ConceptBatch batch = freeBatches.take();
+                if (!merge.next(batch)) {
+                    break;
+                }
+                countCon++;
+                if (splicer != null) {
+                    splicer.copyBefore(batch.getConUuid(), eConWriter);
+                }
+                boolean hasDes = !batch.getDescriptions().isEmpty();
+                boolean hasRel = !batch.getRelationships().isEmpty();
+                boolean hasRelDest = !batch.getRelDests().isEmpty();
 
-            // Check for next sync
-            if (theCon.compareTo(theDes) != IS_EQUAL
-                    || theCon.compareTo(theRel) != IS_EQUAL /*
-                     * || theCon != theRelDest
-                     */) {
-                if (reportRootConcepts) {
+                // Check for next sync
+                if ((!hasDes || !hasRel) && reportRootConcepts) {
                     getLog().info("CONFIRM: ROOT CONCEPT ");
-                    UUID uuid = new UUID(conList.get(0).getConUuidMsb(), conList.get(0).getConUuidLsb());
-                    getLog().info(" -is- concept SNOMED UUID =" + uuid.toString());
-                    getLog().info(" -is- concept SNOMED id =" + conList.get(0).getConSnoId());
+                    getLog().info(" -is- concept SNOMED UUID =" + batch.getConUuid());
+                    getLog().info(" -is- concept SNOMED id =" + batch.getConcepts().get(0).getConSnoId());
                     getLog().info(" -is- concept counter #" + countCon);
-                    getLog().info(" -is- description \"" + desList.get(0).getTermText() + "\"\r\n");
-                    getLog().info(
-                            " ...prev... " + prevCon + " " + prevDes + " " + prevRel + " "
-                            + prevRelDest);
-                    getLog().info(
-                            " ...-is-... " + theCon + " " + theDes + " " + theRel + " " + theRelDest);
-                    String cnStr = "*null*";
-                    if (conNext != null) {
-                        uuid = new UUID(conNext.getConUuidMsb(), conNext.getConUuidLsb());
-                        cnStr = uuid.toString();
-                    }
-                    String dnStr = "*null*";
-                    if (desNext != null) {
-                        uuid = new UUID(desNext.getConUuidMsb(), desNext.getConUuidLsb());
-                        dnStr = uuid.toString();
-                    }
-                    String rnStr = "*null*";
-                    if (relNext != null) {
-                        uuid = new UUID(relNext.getC1UuidMsb(), relNext.getC1UuidLsb());
-                        rnStr = uuid.toString();
-                    }
-                    String rdnStr = "*null*";
-                    if (relDestNext != null) {
-                        uuid = new UUID(relDestNext.getC2UuidMsb(), relDestNext.getC2UuidLsb());
-                        rdnStr = uuid.toString();
+                    if (hasDes) {
+                        getLog().info(" -is- description \"" + batch.getDescriptions().get(0).getTermText() + "\"");
                     }
-                    getLog().info(
-                            " ..\"next\".. " + cnStr + " " + dnStr + " " + rnStr + " " + rdnStr
-                            + "\r\n");
+                    getLog().info(" -has- descriptions " + hasDes + " relationships " + hasRel
+                            + " destination relationships " + hasRelDest + "\r\n");
                 }
-            }
-
-            ArrayList<Sct1_RefSetRecord> addRsByCon = null;
-            if (theCon.compareTo(theRsByCon) == IS_EQUAL) {
-                addRsByCon = rsByConList;
-            }
-            ArrayList<Sct1_RefSetRecord> addRsByRs = null;
-            if (theCon.compareTo(theRsByRs) == IS_EQUAL) {
-                addRsByRs = rsByRsList;
-            }
 
-            if (theCon.compareTo(theDes) != IS_EQUAL && theCon.compareTo(theRel) == IS_EQUAL && 
-                ((theCon.compareTo(theRelDest) != IS_EQUAL) || (theCon.compareTo(theRelDest) == IS_EQUAL))) {
                 // MISSING CASE(s)  theCon !=theDes ==theRel ==theRelDest/!=theRelDest
-                createEConcept(conList, null, relList, null, addRsByCon, addRsByRs, dos);
-            } else if (theCon.compareTo(theDes) == IS_EQUAL && theCon.compareTo(theRel) == IS_EQUAL
-                    && theCon.compareTo(theRelDest) == IS_EQUAL) {
+                //     destination relationships are not added without descriptions
                 // MIDDLE CASE theCon ==theDes ==theRel ==theRelDest
-                createEConcept(conList, desList, relList, relDestList, addRsByCon, addRsByRs, dos);
-            } else if (theCon.compareTo(theDes) == IS_EQUAL && theCon.compareTo(theRel) != IS_EQUAL
-                    && theCon.compareTo(theRelDest) == IS_EQUAL) {
                 // TOP CASE  theCon ==theDes !=theRel ==theRelDest
-                createEConcept(conList, desList, null, relDestList, addRsByCon, addRsByRs, dos);
-            } else if (theCon.compareTo(theDes) == IS_EQUAL && theCon.compareTo(theRel) == IS_EQUAL
-                    && theCon.compareTo(theRelDest) != IS_EQUAL) {
                 // BOTTOM CASE theCon ==theDes ==theRel !=theRelDest
-                createEConcept(conList, desList, relList, null, addRsByCon, addRsByRs, dos);
-            } else if (theCon.compareTo(theDes) == IS_EQUAL && theCon.compareTo(theRel) != IS_EQUAL
-                    && theCon.compareTo(theRelDest) != IS_EQUAL) {
                 // UNCONNECTED CONCEPT theCon ==theDes !=theRel !=theRelDest
-                createEConcept(conList, desList, null, null, addRsByCon, addRsByRs, dos);
-            } else if (theCon.compareTo(theDes) != IS_EQUAL && theCon.compareTo(theRel) != IS_EQUAL
-                    && theCon.compareTo(theRelDest) != IS_EQUAL) {
                 // UNCONNECTED REFSET CONCEPT theCon !=theDes !=theRel !=theRelDest
-                createEConcept(conList, null, null, null, addRsByCon, addRsByRs, dos);
-            }else {
-                getLog().info("!!! Note: the following can occur if the placeholder concepts mojo is used. "
-                        + "Placeholders are created for where the concept attach to existing data, potentially resulting in empty placeholders.");
-                getLog().info(
-                        "!!! Case what case is this??? -- Step 4" + " theCon=\t" + theCon
-                        + "\ttheDes=\t" + theDes + "\ttheRel=\t" + theRel
-                        + "\ttheRelDest\t" + theRelDest);
-                getLog().info("!!! --- concept UUID id   =" + theCon);
-                getLog().info("!!! --- concept SNOMED id =" + conList.get(0).getConSnoId());
-
-                getLog().info("!!! --- concept counter   #" + countCon);
-                if(!desList.isEmpty()){
-                    getLog().info("!!! --- description       \"" + desList.get(0).getTermText() + "\"");
-                }
-                getLog().info("!!! \r\n");
+                if (hasDes || hasRel || !hasRelDest) {
+                    createEConcept(batch, hasDes && hasRelDest, eConWriter, freeBatches);
+                } else {
+                    getLog().info("!!! Note: the following can occur if the placeholder concepts mojo is used. "
+                            + "Placeholders are created for where the concept attach to existing data, potentially resulting in empty placeholders.");
+                    getLog().info(
+                            "!!! Case what case is this??? -- Step 4" + " theCon=\t" + batch.getConUuid()
+                            + "\tonly destination relationships");
+                    getLog().info("!!! --- concept UUID id   =" + batch.getConUuid());
+                    getLog().info("!!! --- concept SNOMED id =" + batch.getConcepts().get(0).getConSnoId());
+
+                    getLog().info("!!! --- concept counter   #" + countCon);
+                    getLog().info("!!! \r\n");
+                    freeBatches.add(batch);
 //                throw new MojoFailureException("Case not implemented -- executeMojoStep7()");
+                }
             }
-
-            if (conNext == null && desNext == null && relNext == null) {
-                notDone = false;
-            }
-
-            prevCon = theCon;
-            prevDes = theDes;
-            prevRel = theRel;
-            prevRelDest = theRelDest;
-
-            if ((addRsByRs != null) && (addRsByRs.size() > 4096)) {
-                System.gc();
-            }
-            if (countCon % 500000 == 0) {
-                System.gc();
+            if (splicer != null) {
+                splicer.copyRest(eConWriter);
             }
-
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException("Interrupted -- Step #7", e);
         }
         getLog().info(
-                "RECORD COUNT = " + countCon + "(Con) " + countDes + "(Des) " + countRel + "(Rel)");
+                "RECORD COUNT = " + countCon + "(Con) "
+                + merge.getGroupCount(Sct1ConceptMerge.Stream.DESCRIPTIONS) + "(Des) "
+                + merge.getGroupCount(Sct1ConceptMerge.Stream.RELATIONSHIPS) + "(Rel)");
         getLog().info(
                 "COMPONENT COUNT = " + statCon + "(statCon) " + statDes + "(statDes) " + statRel
                 + "(statRel)");
@@ -3356,18 +3218,24 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                 "INDEX COUNT = " + statRelDest + "(statRelDest) " + statRsByCon + "(statRsByCon) "
                 + statRsByRs + "(statRsByRs)");
         getLog().info(
-                "REFSET COUNT = " + countRsByCon + "(countRsByCon) " + countRsByRs
-                + "(countRsByRs) ");
+                "REFSET COUNT = " + merge.getGroupCount(Sct1ConceptMerge.Stream.RS_BY_CON) + "(countRsByCon) "
+                + merge.getGroupCount(Sct1ConceptMerge.Stream.RS_BY_RS) + "(countRsByRs) ");
+
+        if (splicer != null) {
+            getLog().info(
+                    "SPLICE COUNT = " + splicer.getCopiedCount() + "(copied) " + splicer.getDroppedCount()
+                    + "(rebuilt) " + statCon + "(built)");
+        }
 
         // CLOSE FILES
         try {
-            oisCon.close();
-            oisDes.close();
-            oisRel.close();
-            oisRelDest.close();
-            oisRsByCon.close();
-            oisRsByRs.close();
-            dos.close();
+            merge.close();
+            if (splicer != null) {
+                splicer.close();
+            }
+            eConWriter.close();
+            indexWriter.close();
+            countEConWritten = (int) eConWriter.getWrittenCount();
         } catch (IOException e) {
             getLog().info(e);
             throw new MojoFailureException("IO Exception -- Step 4, closing files");
@@ -3379,19 +3247,56 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         getLog().info("*** Sct1ArfToEConcept STEP #7 COMPLETED -- CREATE eCONCEPTS ***\r\n");
     }
 
+    private void logOrphan(Sct1ConceptMerge.Stream stream, Object first) {
+        switch (stream) {
+            case DESCRIPTIONS:
+                getLog().info("ORPHAN DESCRIPTION :: " + ((Sct1_DesRecord) first).getTermText());
+                break;
+            case RELATIONSHIPS:
+                Sct1_RelRecord rel = (Sct1_RelRecord) first;
+                getLog().info(
+                        "ORPHAN RELATIONSHIP :: relid=" + rel.getRelSnoId() + " c1=="
+                        + rel.getC1SnoId());
+                break;
+            case REL_DESTS:
+                Sct1_RelDestRecord relDest = (Sct1_RelDestRecord) first;
+                getLog().info(
+                        "ORPHAN DEST. RELATIONSHIP :: c2=="
+                        + new UUID(relDest.getC2UuidMsb(), relDest.getC2UuidLsb()));
+                break;
+            case RS_BY_CON:
+            case RS_BY_RS:
+                Sct1_RefSetRecord rs = (Sct1_RefSetRecord) first;
+                getLog().info(
+                        "ORPHAN REFSET MEMBER RECORD_" + (stream == Sct1ConceptMerge.Stream.RS_BY_CON ? "A" : "B")
+                        + " :: " + new UUID(rs.getRefsetMemberUuidMsb(), rs.getRefsetMemberUuidLsb()));
+                break;
+            default:
+                break;
+        }
+    }
+
     // UUID OF INTEREST
     // ICD-0-3 == cff53f1a-1d11-5ae7-801e-d3301cfdbea0
 //    private static final UUID debugUuid01 = UUID.fromString("445d932f-f552-3b4b-a323-3a06f1d26d98");
     //private static final UUID debugUuid02 = UUID.fromString("daa9598a-2ddb-5527-beda-ee4303a7656c");
     //private static final UUID debugUuid03 = UUID.fromString("3ca0d065-06b8-596c-8ca0-e4d2a605701c");
-    private void createEConcept(ArrayList<Sct1_ConRecord> conList,
-            ArrayList<Sct1_DesRecord> desList, ArrayList<Sct1_RelRecord> relList,
-            ArrayList<Sct1_RelDestRecord> relDestList, ArrayList<Sct1_RefSetRecord> rsByConList,
-            ArrayList<Sct1_RefSetRecord> rsByRsList, DataOutputStream dos)
+    /**
+     * Queues the eConcept of the batch for a worker. The batch goes back to
+     * <code>freeBatches</code> once the eConcept is built.
+     */
+    private void createEConcept(final Sct1ConceptBatch batch, boolean withRelDests,
+            OrderedByteWriter eConWriter, final BlockingQueue<Sct1ConceptBatch> freeBatches)
             throws MojoFailureException {
-        if (conList.size() < 1) {
+        if (batch.getConcepts().size() < 1) {
             throw new MojoFailureException("createEConcept(), empty conList");
         }
+        // Empty component lists are passed on as null
+        final ArrayList<Sct1_DesRecord> desList = nullIfEmpty(batch.getDescriptions());
+        final ArrayList<Sct1_RelRecord> relList = nullIfEmpty(batch.getRelationships());
+        final ArrayList<Sct1_RelDestRecord> relDestList = withRelDests ? nullIfEmpty(batch.getRelDests()) : null;
+        final ArrayList<Sct1_RefSetRecord> rsByConList = nullIfEmpty(batch.getRsByCon());
+        final ArrayList<Sct1_RefSetRecord> rsByRsList = nullIfEmpty(batch.getRsByRs());
 
         statCon++;
         if (desList != null) {
@@ -3410,6 +3315,51 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             statRsByRs += rsByRsList.size();
         }
 
+        try {
+            eConWriter.submit(batch.getConUuid(), new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    TtkConceptChronicle ec;
+                    try {
+                        ec = buildEConcept(batch.getConcepts(), desList, relList, relDestList,
+                                rsByConList, rsByRsList);
+                    } finally {
+                        freeBatches.add(batch);
+                    }
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    try {
+                        DataOutputStream dos = new DataOutputStream(bytes);
+                        ec.writeExternal(dos);
+                        dos.flush();
+                    } catch (IOException e) {
+                        getLog().info(e);
+                        return null;
+                    }
+                    return bytes.toByteArray();
+                }
+            });
+        } catch (IOException e) {
+            freeBatches.add(batch);
+            throw new MojoFailureException("eConcept assembly failed", e);
+        }
+
+        if (statCon % 50000 == 0) {
+            getLog().info("  ... econcepts written " + eConWriter.getWrittenCount());
+        }
+    }
+
+    private static <T> ArrayList<T> nullIfEmpty(ArrayList<T> list) {
+        return list.isEmpty() ? null : list;
+    }
+
+    /**
+     * Builds the eConcept of one concept. Runs on an eConcept worker thread,
+     * so only reads the lookup tables set up before step 7.
+     */
+    private TtkConceptChronicle buildEConcept(ArrayList<Sct1_ConRecord> conList,
+            ArrayList<Sct1_DesRecord> desList, ArrayList<Sct1_RelRecord> relList,
+            ArrayList<Sct1_RelDestRecord> relDestList, ArrayList<Sct1_RefSetRecord> rsByConList,
+            ArrayList<Sct1_RefSetRecord> rsByRsList) {
         Collections.sort(conList);
         Sct1_ConRecord cRec0 = conList.get(0);
         UUID theConUUID = new UUID(cRec0.getConUuidMsb(), cRec0.getConUuidLsb());
@@ -4418,352 +4368,10 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
             //            }
         }
 
-        try {
-            ec.writeExternal(dos);
-//            if (theConUUID.compareTo(debugUuid01) == 0) {
-//                getLog().info(":DEBUG: "  + ec);
-//            }
-
-            countEConWritten++;
-            if (countEConWritten % 50000 == 0) {
-                getLog().info("  ... econcepts written " + countEConWritten);
-            }
-        } catch (IOException e) {
-            getLog().info(e);
-        }
-
-    }
-
-    private Sct1_ConRecord readNextCon(ObjectInputStream ois, ArrayList<Sct1_ConRecord> conList,
-            Sct1_ConRecord conNext)
-            throws MojoFailureException {
-        conList.clear();
-        if (conNext != null) {
-            conList.add(conNext);
-        } else {
-            try { // CHECK FOR FIRST RECORD SITUATION
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_ConRecord) {
-                    conNext = (Sct1_ConRecord) obj;
-                    conList.add(conNext);
-                } else {
-                    return null;
-                }
-            } catch (EOFException ex) {
-                return null;
-            } catch (IOException e) {
-                getLog().info(e);
-                throw new MojoFailureException("IO Exception - readNextCon()");
-            } catch (ClassNotFoundException e) {
-                getLog().info(e);
-                throw new MojoFailureException("ClassNotFoundException - readNextCon()");
-            }
-        }
-
-        try {
-            boolean notDone = true;
-            while (notDone) {
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_ConRecord) {
-                    Sct1_ConRecord rec = (Sct1_ConRecord) obj;
-                    if (rec.getConUuidMsb() == conNext.getConUuidMsb()
-                            && rec.getConUuidLsb() == conNext.getConUuidLsb()) {
-                        conList.add(rec);
-                    } else {
-                        conNext = rec;
-                        notDone = false;
-                    }
-                }
-            }
-        } catch (EOFException ex) {
-            conNext = null;
-            return null; // end reached, no more records
-        } catch (IOException e) {
-            getLog().info(e);
-            throw new MojoFailureException("IO Exception -- readNextCon()");
-        } catch (ClassNotFoundException e) {
-            getLog().info(e);
-            throw new MojoFailureException("ClassNotFoundException -- readNextCon()");
-        }
-
-        return conNext; // first record of next concept id
-    }
-
-    private Sct1_DesRecord readNextDes(ObjectInputStream ois,
-            ArrayList<Sct1_DesRecord> desList,
-            Sct1_DesRecord desNext)
-            throws MojoFailureException {
-        desList.clear();
-        if (desNext != null) {
-            desList.add(desNext);
-        } else {
-            try { // CHECK FOR FIRST RECORD SITUATION
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_DesRecord) {
-                    desNext = (Sct1_DesRecord) obj;
-                    desList.add(desNext);
-                } else {
-                    return null;
-                }
-            } catch (EOFException ex) {
-                return null;
-            } catch (IOException e) {
-                getLog().info(e);
-                throw new MojoFailureException("IO Exception - readNextDes()");
-            } catch (ClassNotFoundException e) {
-                getLog().info(e);
-                throw new MojoFailureException("ClassNotFoundException - readNextDes()");
-            }
-        }
-
-        try {
-            boolean notDone = true;
-            while (notDone) {
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_DesRecord) {
-                    Sct1_DesRecord rec = (Sct1_DesRecord) obj;
-                    // rec.conSnoId == desNext.conSnoId
-                    if (rec.getConUuidMsb() == desNext.getConUuidMsb()
-                            && rec.getConUuidLsb() == desNext.getConUuidLsb()) {
-                        desList.add(rec);
-                    } else {
-                        desNext = rec;
-                        notDone = false;
-                    }
-                }
-            }
-        } catch (EOFException ex) {
-            desNext = null;
-            return null; // end reached, no more records
-        } catch (IOException e) {
-            getLog().info(e);
-            throw new MojoFailureException("IO Exception -- readNextDes()");
-        } catch (ClassNotFoundException e) {
-            getLog().info(e);
-            throw new MojoFailureException("ClassNotFoundException -- readNextDes()");
-        }
-
-        return desNext; // first record of next concept id
-    }
-
-    private Sct1_RelRecord readNextRel(ObjectInputStream ois, ArrayList<Sct1_RelRecord> relList,
-            Sct1_RelRecord relNext)
-            throws MojoFailureException {
-        relList.clear();
-        if (relNext != null) {
-            relList.add(relNext);
-        } else {
-            try { // CHECK FOR FIRST RECORD SITUATION
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_RelRecord) {
-                    relNext = (Sct1_RelRecord) obj;
-                    relList.add(relNext);
-                } else {
-                    return null;
-                }
-            } catch (EOFException ex) {
-                return null;
-            } catch (IOException e) {
-                getLog().info(e);
-                throw new MojoFailureException("IO Exception - readNextRel()");
-            } catch (ClassNotFoundException e) {
-                getLog().info(e);
-                throw new MojoFailureException("ClassNotFoundException - readNextRel()");
-            }
-        }
-
-        try {
-            boolean notDone = true;
-            while (notDone) {
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_RelRecord) {
-                    Sct1_RelRecord rec = (Sct1_RelRecord) obj;
-                    if (rec.getC1UuidMsb() == relNext.getC1UuidMsb() && rec.getC1UuidLsb() == relNext.getC1UuidLsb()) {
-                        relList.add(rec);
-                    } else {
-                        relNext = rec;
-                        notDone = false;
-                    }
-                }
-            }
-        } catch (EOFException ex) {
-            relNext = null;
-            return null; // end reached, no more records
-        } catch (IOException e) {
-            getLog().info(e);
-            throw new MojoFailureException("IO Exception -- readNextRel()");
-        } catch (ClassNotFoundException e) {
-            getLog().info(e);
-            throw new MojoFailureException("ClassNotFoundException -- readNextRel()");
-        }
-
-        return relNext; // first record of next concept id
-    }
-
-    private Sct1_RelDestRecord readNextRelDest(ObjectInputStream ois,
-            ArrayList<Sct1_RelDestRecord> relDestList, Sct1_RelDestRecord relDestNext)
-            throws MojoFailureException {
-        relDestList.clear();
-        if (relDestNext != null) {
-            relDestList.add(relDestNext);
-        } else {
-            try { // CHECK FOR FIRST RECORD SITUATION
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_RelDestRecord) {
-                    relDestNext = (Sct1_RelDestRecord) obj;
-                    relDestList.add(relDestNext);
-                } else {
-                    return null;
-                }
-            } catch (EOFException ex) {
-                return null;
-            } catch (IOException e) {
-                getLog().info(e);
-                throw new MojoFailureException("IO Exception - readNextRelDest()");
-            } catch (ClassNotFoundException e) {
-                getLog().info(e);
-                throw new MojoFailureException("ClassNotFoundException - readNextRelDest()");
-            }
-        }
-
-        try {
-            boolean notDone = true;
-            while (notDone) {
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_RelDestRecord) {
-                    Sct1_RelDestRecord rec = (Sct1_RelDestRecord) obj;
-                    // rec.c2SnoId == relDestNext.c2SnoId
-                    if (rec.getC2UuidMsb() == relDestNext.getC2UuidMsb()
-                            && rec.getC2UuidLsb() == relDestNext.getC2UuidLsb()) {
-                        relDestList.add(rec);
-                    } else {
-                        relDestNext = rec;
-                        notDone = false;
-                    }
-                }
-            }
-        } catch (EOFException ex) {
-            relDestNext = null;
-            return null; // end reached, no more records
-        } catch (IOException e) {
-            getLog().info(e);
-            throw new MojoFailureException("IO Exception -- readNextRelDest()");
-        } catch (ClassNotFoundException e) {
-            getLog().info(e);
-            throw new MojoFailureException("ClassNotFoundException -- readNextRelDest()");
-        }
-
-        return relDestNext; // first record of next concept id
-    }
-
-    private Sct1_RefSetRecord readNextRsByCon(ObjectInputStream ois,
-            ArrayList<Sct1_RefSetRecord> rsByConList, Sct1_RefSetRecord rsByConNext)
-            throws MojoFailureException {
-        rsByConList.clear();
-        if (rsByConNext != null) {
-            rsByConList.add(rsByConNext);
-        } else {
-            try { // CHECK FOR FIRST RECORD SITUATION
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_RefSetRecord) {
-                    rsByConNext = (Sct1_RefSetRecord) obj;
-                    rsByConList.add(rsByConNext);
-                } else {
-                    return null;
-                }
-            } catch (EOFException ex) {
-                return null;
-            } catch (IOException e) {
-                getLog().info(e);
-                throw new MojoFailureException("IO Exception - readNextRsByCon()");
-            } catch (ClassNotFoundException e) {
-                getLog().info(e);
-                throw new MojoFailureException("ClassNotFoundException - readNextRsByCon()");
-            }
-        }
-
-        try {
-            boolean notDone = true;
-            while (notDone) {
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_RefSetRecord) {
-                    Sct1_RefSetRecord rec = (Sct1_RefSetRecord) obj;
-                    if (rec.getConUuidMsb() == rsByConNext.getConUuidMsb()
-                            && rec.getConUuidLsb() == rsByConNext.getConUuidLsb()) {
-                        rsByConList.add(rec);
-                    } else {
-                        rsByConNext = rec;
-                        notDone = false;
-                    }
-                }
-            }
-        } catch (EOFException ex) {
-            rsByConNext = null;
-            return null; // end reached, no more records
-        } catch (IOException e) {
-            getLog().info(e);
-            throw new MojoFailureException("IO Exception -- readNextRsByCon()");
-        } catch (ClassNotFoundException e) {
-            getLog().info(e);
-            throw new MojoFailureException("ClassNotFoundException -- readNextRsByCon()");
-        }
-
-        return rsByConNext; // first record of next concept id
-    }
-
-    private Sct1_RefSetRecord readNextRsByRs(ObjectInputStream ois,
-            ArrayList<Sct1_RefSetRecord> rsByRsList, Sct1_RefSetRecord rsByRsNext)
-            throws MojoFailureException {
-        rsByRsList.clear();
-        if (rsByRsNext != null) {
-            rsByRsList.add(rsByRsNext);
-        } else {
-            try { // CHECK FOR FIRST RECORD SITUATION
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_RefSetRecord) {
-                    rsByRsNext = (Sct1_RefSetRecord) obj;
-                    rsByRsList.add(rsByRsNext);
-                } else {
-                    return null;
-                }
-            } catch (EOFException ex) {
-                return null;
-            } catch (IOException e) {
-                getLog().info(e);
-                throw new MojoFailureException("IO Exception - readNextRsByRs()");
-            } catch (ClassNotFoundException e) {
-                getLog().info(e);
-                throw new MojoFailureException("ClassNotFoundException - readNextRsByRs()");
-            }
-        }
-
-        try {
-            boolean notDone = true;
-            while (notDone) {
-                Object obj = ois.readUnshared();
-                if (obj instanceof Sct1_RefSetRecord) {
-                    Sct1_RefSetRecord rec = (Sct1_RefSetRecord) obj;
-                    if (rec.getRefsetUuidMsb() == rsByRsNext.getRefsetUuidMsb()
-                            && rec.getRefsetUuidLsb() == rsByRsNext.getRefsetUuidLsb()) {
-                        rsByRsList.add(rec);
-                    } else {
-                        rsByRsNext = rec;
-                        notDone = false;
-                    }
-                }
-            }
-        } catch (EOFException ex) {
-            rsByRsNext = null;
-            return null; // end reached, no more records
-        } catch (IOException e) {
-            getLog().info(e);
-            throw new MojoFailureException("IO Exception -- readNextRsByRs()");
-        } catch (ClassNotFoundException e) {
-            getLog().info(e);
-            throw new MojoFailureException("ClassNotFoundException -- readNextRsByRs()");
-        }
-
-        return rsByRsNext; // first record of next concept id
+//        if (theConUUID.compareTo(debugUuid01) == 0) {
+//            getLog().info(":DEBUG: "  + ec);
+//        }
+        return ec;
     }
 
     private void setupUuids() throws MojoFailureException {
@@ -4822,7 +4430,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
     }
 
     private List<List<ARFFile>> getArfFiles(String wDir, String subDir, String arfDir,
-            String prefix, String postfix)
+            String prefix, String... postfixes)
             throws MojoFailureException {
 
         List<List<ARFFile>> listOfDirs = new ArrayList<List<ARFFile>>();
@@ -4836,7 +4444,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
 
         File f1 = new File(new File(wDir, subDir), arfDir);
         ArrayList<File> fv = new ArrayList<File>();
-        listFilesRecursive(fv, f1, prefix, postfix);
+        listFilesRecursive(fv, f1, prefix, postfixes);
 
         File[] files = new File[0];
         files = fv.toArray(files);
@@ -4995,7 +4603,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
      * IGNORE: FULLYSPECIFIEDNAME CTV3ID SNOMEDID
      */
     private void processConceptsFiles(String wDir, List<List<SCTFile>> sctv, boolean ctv3idTF,
-            boolean snomedrtTF, ObjectOutputStream oos)
+            boolean snomedrtTF, Sct1ScratchOutput oos)
             throws Exception {
         int count1, count2; // records in arrays 1 & 2
         String fName1, fName2; // file pathIdx name
@@ -5055,7 +4663,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                             // Write history
                             a2[r2].setPathIdx(pathID);
                             a2[r2].setRevTime(revTime);
-                            oos.writeUnshared(a2[r2]);
+                            oos.write(a2[r2]);
                             // Update master via pointer assignment
                             a1[r1] = a2[r2];
                             r1++;
@@ -5067,7 +4675,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                             // Write history
                             a2[r2].setPathIdx(pathID);
                             a2[r2].setRevTime(revTime);
-                            oos.writeUnshared(a2[r2]);
+                            oos.write(a2[r2]);
 
                             // Hold pointer to append to master
                             a3[r3] = a2[r2];
@@ -5082,7 +4690,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                                 a1[r1].setStatus(1); // set to RETIRED
                                 a1[r1].setPathIdx(pathID);
                                 a1[r1].setRevTime(revTime);
-                                oos.writeUnshared(a1[r1]);
+                                oos.write(a1[r1]);
                             }
                             r1++;
                             nDrop++;
@@ -5101,7 +4709,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                         // Write history
                         a2[r2].setPathIdx(pathID);
                         a2[r2].setRevTime(revTime);
-                        oos.writeUnshared(a2[r2]);
+                        oos.write(a2[r2]);
 
                         // Add to append array
                         a3[r3] = a2[r2];
@@ -5136,7 +4744,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
     }
 
     private void processDescriptionsFiles(String wDir, List<List<SCTFile>> sctv,
-            ObjectOutputStream oos)
+            Sct1ScratchOutput oos)
             throws Exception {
         int count1, count2; // records in arrays 1 & 2
         String fName1, fName2; // file pathIdx name
@@ -5196,7 +4804,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                             // Write history
                             a2[r2].setPathIdx(pathID);
                             a2[r2].setRevTime(revTime);
-                            oos.writeUnshared(a2[r2]);
+                            oos.write(a2[r2]);
 
                             // Update master via pointer assignment
                             a1[r1] = a2[r2];
@@ -5209,7 +4817,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                             // Write history
                             a2[r2].setPathIdx(pathID);
                             a2[r2].setRevTime(revTime);
-                            oos.writeUnshared(a2[r2]);
+                            oos.write(a2[r2]);
 
                             // Hold pointer to append to master
                             a3[r3] = a2[r2];
@@ -5224,7 +4832,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                                 a1[r1].setStatus(1); // set to RETIRED
                                 a1[r1].setPathIdx(pathID);
                                 a1[r1].setRevTime(revTime);
-                                oos.writeUnshared(a1[r1]);
+                                oos.write(a1[r1]);
                             }
                             r1++;
                             nDrop++;
@@ -5243,7 +4851,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                         // Write history
                         a2[r2].setPathIdx(pathID);
                         a2[r2].setRevTime(revTime);
-                        oos.writeUnshared(a2[r2]);
+                        oos.write(a2[r2]);
 
                         // Add to append array
                         a3[r3] = a2[r2];
@@ -5279,7 +4887,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
     }
 
     private void processRelationshipsFiles(String wDir, List<List<SCTFile>> sctI,
-            ObjectOutputStream oos, ObjectOutputStream oosIds, BufferedWriter er, int user)
+            Sct1ScratchOutput oos, Sct1ScratchOutput oosIds, BufferedWriter er, int user)
             throws Exception {
         int count1, count2; // records in arrays 1 & 2
         String fName1, fName2; // file pathIdx name
@@ -5329,8 +4937,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                 int r1 = 0, r2 = 0, r3 = 0; // reset record indices
                 int nSame = 0, nMod = 0, nAdd = 0, nDrop = 0; // counters
                 int nModSidChange = 0, nSidOnlyChange = 0; // counters related to SNOMED_ID change
-                int nWrite = 0; // counter for memory optimization for object files writing
-                a3 = new Sct1_RelRecord[count2];
+                        a3 = new Sct1_RelRecord[count2];
                 while ((r1 < count1) && (r2 < count2)) {
 
                     // :DEBUG:
@@ -5362,7 +4969,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                                 idOnlyChange = new Sct1_IdRecord(a1[r1].getRelUuidMsb(), a1[r1].getRelUuidLsb(),
                                         uuidSourceSnomedIdx, a1[r1].getRelSnoId(), 1, revTime,
                                         a1[r1].getPathIdx(), user);
-                                oosIds.writeUnshared(idOnlyChange);
+                                oosIds.write(idOnlyChange);
                             }
 
                             // WRITE CURRENT SNOMED_ID
@@ -5370,69 +4977,48 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                                 idOnlyChange = new Sct1_IdRecord(a2[r2].getRelUuidMsb(), a2[r2].getRelUuidLsb(),
                                         uuidSourceSnomedIdx, a2[r2].getRelSnoId(), 0, revTime,
                                         a2[r2].getPathIdx(), user);
-                                oosIds.writeUnshared(idOnlyChange);
+                                oosIds.write(idOnlyChange);
                             }
 
                             a1[r1] = a2[r2];
                             r1++;
                             r2++;
                             nSidOnlyChange++;
-
-                            // PERIODIC RESET IMPROVES MEMORY USE
-                            nWrite++;
-                            if (nWrite % ooResetInterval == 0) {
-                                oos.reset();
-                                oosIds.reset();
-                            }
                             break;
 
                         case 2: // SAME LOGICAL RELATIONSHIP, SAME SNOMED_ID, MODIFIED OTHER
                             // Write history
                             a2[r2].setRevTime(revTime);
-                            oos.writeUnshared(a2[r2]);
+                            oos.write(a2[r2]);
 
                             // Update master via pointer assignment
                             a1[r1] = a2[r2];
                             r1++;
                             r2++;
                             nMod++;
-
-                            // PERIODIC RESET IMPROVES MEMORY USE
-                            nWrite++;
-                            if (nWrite % ooResetInterval == 0) {
-                                oos.reset();
-                                oosIds.reset();
-                            }
                             break;
 
                         case 7: // SAME LOGICAL RELATIONSHIP, SAME SNOMED_ID, MODIFIED USER
                             // RETIRE PREVIOUS USER
                             a1[r1].setStatus(1); // RETIRE OLD USER
                             a1[r1].setRevTime(revTime);
-                            oos.writeUnshared(a1[r1]);
+                            oos.write(a1[r1]);
 
                             // MAKE CURRENT NEW USER
                             a2[r2].setRevTime(revTime);
-                            oos.writeUnshared(a2[r2]);
+                            oos.write(a2[r2]);
 
                             // Update master via pointer assignment
                             a1[r1] = a2[r2];
                             r1++;
                             r2++;
                             nMod++;
-
-                            // PERIODIC RESET IMPROVES MEMORY USE
-                            nWrite++;
-                            if (nWrite % ooResetInterval == 0) {
-                                oos.reset();
-                                oosIds.reset();
-                            }
                             break;
 
                         case 6: // SAME LOGICAL RELATIONSHIP, CHANGED SNOMED_ID, MODIFIED OTHER
                             // Write history
                             a2[r2].setRevTime(revTime);
-                            oos.writeUnshared(a2[r2]);
+                            oos.write(a2[r2]);
 
                             // RETIRE EXISTING SNOMED_ID
                             Sct1_IdRecord idMod = null;
@@ -5440,7 +5026,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                                 idMod = new Sct1_IdRecord(a1[r1].getRelUuidMsb(), a1[r1].getRelUuidLsb(),
                                         uuidSourceSnomedIdx, a1[r1].getRelSnoId(), 1, revTime,
                                         a1[r1].getPathIdx(), user);
-                                oosIds.writeUnshared(idMod);
+                                oosIds.write(idMod);
                             }
 
                             // WRITE CURRENT SNOMED_ID
@@ -5448,7 +5034,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                                 idMod = new Sct1_IdRecord(a2[r2].getRelUuidMsb(), a2[r2].getRelUuidLsb(),
                                         uuidSourceSnomedIdx, a2[r2].getRelSnoId(), 0, revTime,
                                         a2[r2].getPathIdx(), user);
-                                oosIds.writeUnshared(idMod);
+                                oosIds.write(idMod);
                             }
 
                             // Update master via pointer assignment
@@ -5456,24 +5042,17 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                             r1++;
                             r2++;
                             nModSidChange++;
-
-                            // PERIODIC RESET IMPROVES MEMORY USE
-                            nWrite++;
-                            if (nWrite % ooResetInterval == 0) {
-                                oos.reset();
-                                oosIds.reset();
-                            }
                             break;
 
                         case 8: // MODIFIED LOGICAL RELATIONSHIP, CHANGED SNOMED_ID, CHANGED USER
                             // RETIRE PREVIOUS USER
                             a1[r1].setStatus(1); // RETIRE OLD USER
                             a1[r1].setRevTime(revTime);
-                            oos.writeUnshared(a1[r1]);
+                            oos.write(a1[r1]);
 
                             // MAKE CURRENT NEW USER
                             a2[r2].setRevTime(revTime);
-                            oos.writeUnshared(a2[r2]);
+                            oos.write(a2[r2]);
 
                             // RETIRE EXISTING SNOMED_ID
                             Sct1_IdRecord idMod2 = null;
@@ -5481,7 +5060,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                                 idMod2 = new Sct1_IdRecord(a1[r1].getRelUuidMsb(), a1[r1].getRelUuidLsb(),
                                         uuidSourceSnomedIdx, a1[r1].getRelSnoId(), 1, revTime,
                                         a1[r1].getPathIdx(), user);
-                                oosIds.writeUnshared(idMod2);
+                                oosIds.write(idMod2);
                             }
 
                             // WRITE CURRENT SNOMED_ID
@@ -5489,7 +5068,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                                 idMod2 = new Sct1_IdRecord(a2[r2].getRelUuidMsb(), a2[r2].getRelUuidLsb(),
                                         uuidSourceSnomedIdx, a2[r2].getRelSnoId(), 0, revTime,
                                         a2[r2].getPathIdx(), user);
-                                oosIds.writeUnshared(idMod2);
+                                oosIds.write(idMod2);
                             }
 
                             // Update master via pointer assignment
@@ -5502,14 +5081,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                         case 3: // ADDED LOGICAL RELATIONSHIP
                             // Write history
                             a2[r2].setRevTime(revTime);
-                            oos.writeUnshared(a2[r2]);
+                            oos.write(a2[r2]);
 
                             // WRITE CURRENT SNOMED_ID
                             if (a2[r2].getRelSnoId() < Long.MAX_VALUE) {
                                 Sct1_IdRecord idAdded = new Sct1_IdRecord(a2[r2].getRelUuidMsb(),
                                         a2[r2].getRelUuidLsb(), uuidSourceSnomedIdx, a2[r2].getRelSnoId(),
                                         a2[r2].getStatus(), revTime, a2[r2].getPathIdx(), user);
-                                oosIds.writeUnshared(idAdded);
+                                oosIds.write(idAdded);
                             }
 
                             // hold pointer to append to master
@@ -5517,13 +5096,6 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                             r2++;
                             r3++;
                             nAdd++;
-
-                            // PERIODIC RESET IMPROVES MEMORY USE
-                            nWrite++;
-                            if (nWrite % ooResetInterval == 0) {
-                                oos.reset();
-                                oosIds.reset();
-                            }
                             break;
 
                         case 4: // DROPPED LOGICAL RELATIONSHIP
@@ -5531,21 +5103,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                             if (a1[r1].getStatus() != 1) { // if not RETIRED
                                 a1[r1].setStatus(1); // set to RETIRED
                                 a1[r1].setRevTime(revTime);
-                                oos.writeUnshared(a1[r1]);
+                                oos.write(a1[r1]);
 
                                 // RETIRE EXISTING SNOMED_ID
                                 if (a1[r1].getRelSnoId() < Long.MAX_VALUE) {
                                     Sct1_IdRecord idDropped = new Sct1_IdRecord(a1[r1].getRelUuidMsb(),
                                             a1[r1].getRelUuidLsb(), uuidSourceSnomedIdx, a1[r1].getRelSnoId(),
                                             a1[r1].getStatus(), revTime, a1[r1].getPathIdx(), user);
-                                    oosIds.writeUnshared(idDropped);
-                                }
-
-                                // PERIODIC RESET IMPROVES MEMORY USE
-                                nWrite++;
-                                if (nWrite % ooResetInterval == 0) {
-                                    oos.reset();
-                                    oosIds.reset();
+                                    oosIds.write(idDropped);
                                 }
                             }
                             r1++;
@@ -5562,14 +5127,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                         if (a1[r1].getStatus() != 1) { // if not RETIRED
                             a1[r1].setStatus(1); // set to RETIRED
                             a1[r1].setRevTime(revTime);
-                            oos.writeUnshared(a1[r1]);
+                            oos.write(a1[r1]);
 
                             // RETIRE EXISTING SNOMED_ID
                             if (a1[r1].getRelSnoId() < Long.MAX_VALUE) {
                                 Sct1_IdRecord idDropped = new Sct1_IdRecord(a1[r1].getRelUuidMsb(),
                                         a1[r1].getRelUuidLsb(), uuidSourceSnomedIdx, a1[r1].getRelSnoId(),
                                         a1[r1].getStatus(), revTime, a1[r1].getPathIdx(), user);
-                                oosIds.writeUnshared(idDropped);
+                                oosIds.write(idDropped);
                             }
                         }
                         r1++;
@@ -5581,14 +5146,14 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                     while (r2 < count2) { // ADD REMAINING RELATIONSHIP INPUT
                         // Write history
                         a2[r2].setRevTime(revTime);
-                        oos.writeUnshared(a2[r2]);
+                        oos.write(a2[r2]);
 
                         // WRITE CURRENT SNOMED_ID
                         if (a2[r2].getRelSnoId() < Long.MAX_VALUE) {
                             Sct1_IdRecord idAdded = new Sct1_IdRecord(a2[r2].getRelUuidMsb(),
                                     a2[r2].getRelUuidLsb(), uuidSourceSnomedIdx, a2[r2].getRelSnoId(),
                                     a2[r2].getStatus(), revTime, a2[r2].getPathIdx(), user);
-                            oosIds.writeUnshared(idAdded);
+                            oosIds.write(idAdded);
                         }
 
                         // Add to append array
@@ -6116,7 +5681,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         return sb.toString();
     }
 
-    private void writeConcepts(ObjectOutputStream oos, Sct1_ConRecord[] a, int count,
+    private void writeConcepts(Sct1ScratchOutput oos, Sct1_ConRecord[] a, int count,
             long releaseDateTime, int pathIdx)
             throws Exception {
 
@@ -6125,12 +5690,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         for (int i = 0; i < count; i++) {
             a[i].setPathIdx(pathIdx);
             a[i].setRevTime(releaseDateTime);
-            oos.writeUnshared(a[i]);
-
-            // PERIODIC RESET IMPROVES MEMORY USE
-            if (i % ooResetInterval == 0) {
-                oos.reset();
-            }
+            oos.write(a[i]);
         }
 
         getLog().info(
@@ -6138,7 +5698,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                 + " milliseconds");
     }
 
-    private void writeTtkDescriptionRevisions(ObjectOutputStream oos, Sct1_DesRecord[] a, int count,
+    private void writeTtkDescriptionRevisions(Sct1ScratchOutput oos, Sct1_DesRecord[] a, int count,
             long releaseDateTime, int pathIdx)
             throws Exception {
 
@@ -6147,12 +5707,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         for (int i = 0; i < count; i++) {
             a[i].setPathIdx(pathIdx);
             a[i].setRevTime(releaseDateTime);
-            oos.writeUnshared((Object) a[i]);
-
-            // PERIODIC RESET IMPROVES MEMORY USE
-            if (i % ooResetInterval == 0) {
-                oos.reset();
-            }
+            oos.write(a[i]);
         }
 
         getLog().info(
@@ -6160,7 +5715,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
                 + " milliseconds");
     }
 
-    private void writeRelationships(ObjectOutputStream oos, ObjectOutputStream oosIds,
+    private void writeRelationships(Sct1ScratchOutput oos, Sct1ScratchOutput oosIds,
             Sct1_RelRecord[] a, int count, long releaseDateTime, int user)
             throws Exception {
 
@@ -6168,19 +5723,13 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
 
         for (int i = 0; i < count; i++) {
             a[i].setRevTime(releaseDateTime);
-            oos.writeUnshared(a[i]);
+            oos.write(a[i]);
 
             if (a[i].getRelSnoId() < Long.MAX_VALUE) {
                 Sct1_IdRecord id = new Sct1_IdRecord(a[i].getRelUuidMsb(), a[i].getRelUuidLsb(),
                         uuidSourceSnomedIdx, a[i].getRelSnoId(), a[i].getStatus(), a[i].getRevTime(),
                         a[i].getPathIdx(), user);
-                oosIds.writeUnshared(id);
-            }
-
-            // PERIODIC RESET IMPROVES MEMORY USE
-            if (i % ooResetInterval == 0) {
-                oos.reset();
-                oosIds.reset();
+                oosIds.write(id);
             }
         }
 
@@ -6285,21 +5834,18 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         return lineCount - 1;
     }
 
-    private int countFileObjects(String fName) 
-            throws FileNotFoundException, IOException, ClassNotFoundException {
-        int objCount = 0;
+    private long getSortMemoryBudget() {
+        return sortMemoryMb * 1024L * 1024L;
+    }
 
-        ObjectInputStream ois;
-        ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fName)));
-        try {
-            while ((ois.readObject()) != null) {
-                objCount++;
-            }
-        } catch (EOFException ex) {
-            getLog().info(" object count = " + objCount + " @EOF " + fName + "\r\n");
+    private void sortScratch(Sct1ScratchSort<?> sort, String inName, String outName, String label)
+            throws IOException {
+        long count = sort.sort(inName, outName);
+        if (sort.getRunCount() > 0) {
+            getLog().info(" " + label + " count = " + count + " merged from " + sort.getRunCount() + " runs\r\n");
+        } else {
+            getLog().info(" " + label + " count = " + count + "\r\n");
         }
-
-        return objCount;
     }
 
     /**
@@ -6357,7 +5903,7 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
      * 1. build directory buildDir
      */
     private static void listFilesRecursive(ArrayList<File> list, File root, String prefix,
-            String postfix) {
+            String... postfixes) {
         if (root.isFile()) {
             list.add(root);
             return;
@@ -6367,14 +5913,23 @@ public class Sct1ArfToEConceptMojo extends AbstractMojo {
         for (int i = 0; i < files.length; i++) {
             String name = files[i].getName().toUpperCase();
 
-            if (files[i].isFile() && name.endsWith(postfix.toUpperCase())
+            if (files[i].isFile() && endsWithAny(name, postfixes)
                     && name.contains(prefix.toUpperCase())) {
                 list.add(files[i]);
             }
             if (files[i].isDirectory()) {
-                listFilesRecursive(list, files[i], prefix, postfix);
+                listFilesRecursive(list, files[i], prefix, postfixes);
+            }
+        }
+    }
+
+    private static boolean endsWithAny(String upperCaseName, String... postfixes) {
+        for (String postfix : postfixes) {
+            if (upperCaseName.endsWith(postfix.toUpperCase())) {
+                return true;
             }
         }
+        return false;
     }
     
     private Status getStatus(int sctStatusType) {
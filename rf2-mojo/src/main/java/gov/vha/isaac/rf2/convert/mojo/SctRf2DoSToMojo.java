@@ -15,11 +15,8 @@
  */
 package gov.vha.isaac.rf2.convert.mojo;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.util.ArrayList;
@@ -30,6 +27,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import gov.vha.isaac.rf2.convert.ArfByteWriter;
 import gov.vha.isaac.rf2.convert.Rf2File;
 import gov.vha.isaac.rf2.convert.Rf2_RefsetCRecord;
 import gov.vha.isaac.rf2.convert.Rf2_RefsetId;
@@ -48,21 +46,25 @@ public class SctRf2DoSToMojo extends BaseRF2Mojo {
         getLog().info("::: BEGIN Rf2_RefsetCreateConceptMojo");
 
         super.execute();
+        if (isStageUnchanged()) {
+            getLog().info("::: END Rf2_RefsetCreateConceptMojo");
+            return;
+        }
 
         try {
-  
+            openIdResolver();
+
             // CONCEPT REFSET FILES
-            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath,  "concept_refsetDoS_rf2.refset")), "UTF-8"));
+            ArfByteWriter bw = new ArfByteWriter(new File(arfOutPath, "concept_refsetDoS_rf2.refset"));
             getLog().info("::: DoS REFSET FILE: " + new File(arfOutPath, "concept_refsetDoS_rf2.refset"));
             filesIn = Rf2File.getFiles(inputSctDir, "AttributeValue", ".txt");
             for (Rf2File rf2File : filesIn) {
-                Rf2_RefsetCRecord[] members = Rf2_RefsetCRecord.parseRefset(rf2File, null);
+                Rf2_RefsetCRecord[] members = Rf2_RefsetCRecord.parseRefset(rf2File, null, idResolver);
                 for (Rf2_RefsetCRecord m : members) {
                     m.setPath(pathUUID.toString());
-                    m.writeArf(bw);
+                    m.writeArf(bw, idResolver);
                 }
             }
-            bw.flush();
             bw.close();
 
             // WRITE PARENT REFSET CONCEPT :!!!:INTERIM:
@@ -74,6 +76,7 @@ public class SctRf2DoSToMojo extends BaseRF2Mojo {
                     "Degree of Synonymy Refset (RF2)", /* refsetFsName */
                     "3e0cd740-2cc6-3d68-ace7-bad2eb2621da")); /* refsetParentUuid */
             Rf2_RefsetId.saveRefsetConcept(arfOutPath.getAbsolutePath(), refsetIdList);
+            stageCompleted();
 
             getLog().info("::: END Rf2_RefsetCreateConceptMojo");
         } catch (IOException | ParseException | NoSuchAlgorithmException ex) {
@@ -15,15 +15,13 @@
  */
 package gov.vha.isaac.rf2.convert.mojo;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
 import java.util.List;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import gov.vha.isaac.rf2.convert.ArfByteWriter;
 import gov.vha.isaac.rf2.convert.Rf2File;
 import gov.vha.isaac.rf2.convert.Rf2_RefsetCRecord;
 
@@ -41,25 +39,32 @@ public class SctRf2LrsToArfMojo extends BaseRF2Mojo
         getLog().info("::: BEGIN SctRf2LrsToArfMojo");
 
         super.execute();
+        if (isStageUnchanged())
+        {
+            getLog().info("::: END SctRf2LrsToArfMojo");
+            return;
+        }
 
         try
         {
+            openIdResolver();
+
             // LANGUAGE REFSET FILES "der2_cRefset_Language"
-            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "concept_language_rf2.refset")), "UTF-8"));
+            ArfByteWriter bw = new ArfByteWriter(new File(arfOutPath, "concept_language_rf2.refset"));
             getLog().info("::: LANGUAGE REFSET FILE: " + new File(arfOutPath, "concept_language_rf2.refset").getAbsolutePath());
             filesIn = Rf2File.getFiles(inputSctDir, "der2_cRefset_Language", ".txt");
             filesIn.addAll(Rf2File.getFiles(inputSctDir, "der2_cRefset_ExtensionLanguage", ".txt"));
             for (Rf2File rf2File : filesIn)
             {
-                Rf2_RefsetCRecord[] members = Rf2_RefsetCRecord.parseRefset(rf2File, null);
+                Rf2_RefsetCRecord[] members = Rf2_RefsetCRecord.parseRefset(rf2File, null, idResolver);
                 for (Rf2_RefsetCRecord m : members)
                 {
                     m.setPath(pathUUID.toString());
-                    m.writeArf(bw);
+                    m.writeArf(bw, idResolver);
                 }
             }
-            bw.flush();
             bw.close();
+            stageCompleted();
         }
         catch (Exception ex)
         {
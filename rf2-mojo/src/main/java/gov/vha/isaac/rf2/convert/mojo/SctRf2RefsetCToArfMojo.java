@@ -15,18 +15,17 @@
  */
 package gov.vha.isaac.rf2.convert.mojo;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
 import java.util.List;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import gov.vha.isaac.rf2.convert.ArfByteWriter;
 import gov.vha.isaac.rf2.convert.Rf2File;
 import gov.vha.isaac.rf2.convert.Rf2_RefsetCRecord;
+import gov.vha.isaac.rf2.convert.StageCache;
 /**
  * @author Marc E. Campbell
  */
@@ -45,28 +44,39 @@ public class SctRf2RefsetCToArfMojo extends BaseRF2Mojo {
     @Parameter(required = false) 
     private Long[] filters;
 
+    @Override
+    protected void addStageParameters(StageCache stage) {
+        super.addStageParameters(stage);
+        stage.addParameter("inputFile", inputFile);
+        stage.addParameter("filters", filters);
+    }
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         List<Rf2File> filesIn;
         getLog().info("::: BEGIN SctRf2RefsetCToArfMojo");
         super.execute();
+        if (isStageUnchanged()) {
+            getLog().info("::: END SctRf2RefsetCToArfMojo");
+            return;
+        }
 
          try {
+            openIdResolver();
 
             // CONCEPT REFSET FILES
-            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "concept_refsetc_rf2.refset")), "UTF-8"));
+            ArfByteWriter bw = new ArfByteWriter(new File(arfOutPath, "concept_refsetc_rf2.refset"));
             getLog().info("::: CONCEPT REFSET FILE: " + new File(arfOutPath, "concept_refsetc_rf2.refset").getAbsolutePath());
             filesIn = Rf2File.getFiles(inputSctDir, inputFile, ".txt");
             for (Rf2File rf2File : filesIn) {
-                Rf2_RefsetCRecord[] members = Rf2_RefsetCRecord.parseRefset(rf2File, filters);
+                Rf2_RefsetCRecord[] members = Rf2_RefsetCRecord.parseRefset(rf2File, filters, idResolver);
                 for (Rf2_RefsetCRecord m : members) {
                     m.setPath(pathUUID.toString());
-                    m.writeArf(bw);
+                    m.writeArf(bw, idResolver);
                 }
             }
-            bw.flush();
             bw.close();
+            stageCompleted();
 
         } catch (Exception ex) {
             throw new MojoFailureException("RF2/ARF SctRf2RefsetCToArfMojo file name parse error", ex);
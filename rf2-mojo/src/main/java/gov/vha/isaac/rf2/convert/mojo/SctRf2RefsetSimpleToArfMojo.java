@@ -39,24 +39,31 @@ public class SctRf2RefsetSimpleToArfMojo extends BaseRF2Mojo{
         getLog().info("::: BEGIN SctRf2RefsetSimpleToArfMojo");
 
         super.execute();
+        if (isStageUnchanged()) {
+            getLog().info("::: END SctRf2RefsetSimpleToArfMojo");
+            return;
+        }
         
         try {
+            openIdResolver();
+
             // SIMPLE REFSET FILES "der2_cRefset_Simple"
             BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "concept_simple_rf2.refset")), "UTF-8"));
             getLog().info("::: SIMPLE REFSET FILE: " + new File(arfOutPath, "concept_simple_rf2.refset").getAbsolutePath());
             filesIn = Rf2File.getFiles(inputSctDir, "der2_cRefset", ".txt");
             for (Rf2File rf2File : filesIn) {
                 if (rf2File.getFile().getName().toLowerCase().contains("simple")) {
-                    Rf2_RefsetSimpleRecord[] members = Rf2_RefsetSimpleRecord.parseRefset(rf2File, pathUUID.toString());
+                    Rf2_RefsetSimpleRecord[] members = Rf2_RefsetSimpleRecord.parseRefset(rf2File, pathUUID.toString(), idResolver);
                     for (Rf2_RefsetSimpleRecord m : members) {
                         m.setPath(pathUUID.toString());
-                        m.writeArf(bw);
+                        m.writeArf(bw, idResolver);
                         // writeSctSnomedLongId(bwIds, m.id, m.effDateStr, m.pathStr);
                     }
                 }
             }
             bw.flush();
             bw.close();
+            stageCompleted();
 
             // bwIds.flush();
             // bwIds.close();
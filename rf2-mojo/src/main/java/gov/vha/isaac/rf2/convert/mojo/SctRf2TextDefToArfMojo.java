@@ -20,14 +20,18 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.text.ParseException;
 import java.util.List;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import gov.vha.isaac.metadata.source.IsaacMetadataAuxiliaryBinding;
+import gov.vha.isaac.rf2.convert.ArfBinaryWriter;
+import gov.vha.isaac.rf2.convert.ArfComponentWriter;
 import gov.vha.isaac.rf2.convert.Rf2File;
-import gov.vha.isaac.rf2.convert.Rf2_RefsetCRecord;
+import gov.vha.isaac.rf2.convert.Rf2StatusIndex;
+import gov.vha.isaac.rf2.convert.Rf2StatusMerge;
 import gov.vha.isaac.rf2.convert.Rf2x;
 import gov.vha.isaac.rf2.convert.Sct2_DesRecord;
 
@@ -42,48 +46,53 @@ public class SctRf2TextDefToArfMojo extends BaseRF2Mojo
 	public void execute() throws MojoExecutionException, MojoFailureException
 	{
 		List<Rf2File> filesIn;
-		List<Rf2File> filesInStatus;
 		getLog().info("::: BEGIN SctRf2ToArf");
 		super.execute();
+		if (isStageUnchanged())
+		{
+			return;
+		}
 
 		try
 		{
-			Rf2x.setupIdCache(idCacheFile, enableUUIDToSCTIDMap);
+			openIdResolver();
 
 			// FILE & DIRECTORY SETUP
 			// Create multiple directories
 
-			BufferedWriter bwIds = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "ids_textdefinitions.txt")), "UTF-8"));
+			final BufferedWriter bwIds = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "ids_textdefinitions.txt")), "UTF-8"));
 			getLog().info("::: IDS OUTPUT: " + new File(arfOutPath, "ids_textdefinitions.txt").getAbsolutePath());
 
 			// :NYI: extended status implementation does not multiple version years
-			filesInStatus = Rf2File.getFiles(new File(new File(inputSctDir, "Refset"), "Content"), "AttributeValue", ".txt");
-			Rf2_RefsetCRecord[] statusRecords = Rf2_RefsetCRecord.parseRefset(filesInStatus.get(0), null); // hardcoded
+			Rf2StatusIndex statusRecords = openStatusIndex();
 
 			// TEXTDEFINITION FILES "sct2_TextDefinition"
-			BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "descriptions_textdefinitions_rf2.txt")),
-					"UTF-8"));
-			getLog().info("::: TEXTDEFINITIONS FILE: " + new File(arfOutPath, "descriptions_textdefinitions_rf2.txt").getAbsolutePath());
+			final ArfComponentWriter bw = openArfWriter("descriptions_textdefinitions_rf2", ArfBinaryWriter.DESCRIPTIONS);
+			getLog().info("::: TEXTDEFINITIONS FILE: " + bw.getFile().getAbsolutePath());
 			filesIn = Rf2File.getFiles(inputSctDir, "sct2_TextDefinition", ".txt");
 			for (Rf2File rf2File : filesIn)
 			{
-				Sct2_DesRecord[] textdefinitions = Sct2_DesRecord.parseDescriptions(rf2File, pathUUID.toString());
-				textdefinitions = Sct2_DesRecord.attachStatus(textdefinitions, statusRecords);
-				for (Sct2_DesRecord d : textdefinitions)
+				Sct2_DesRecord[] textdefinitions = Sct2_DesRecord.parseDescriptions(rf2File, pathUUID.toString(), idResolver);
+				long dropped = Sct2_DesRecord.attachStatus(textdefinitions, statusRecords, new Rf2StatusMerge.Sink<Sct2_DesRecord>()
 				{
-					d.writeArf(bw);
-					d.setPath(pathUUID.toString());
-					if (Rf2x.isSctIdInUuidCache(d.getDesSnoIdL()) == false)
+					@Override
+					public void write(Sct2_DesRecord d) throws IOException, ParseException
 					{
-						writeSctSnomedLongId(bwIds, d.getDesSnoIdL(), d.getEffDateStr(), d.getPathUuidStr());
+						bw.write(d);
+						d.setPath(pathUUID.toString());
+						if (idResolver.isSctIdInUuidCache(d.getDesSnoIdL()) == false)
+						{
+							writeSctSnomedLongId(bwIds, d.getDesSnoIdL(), d.getEffDateStr(), d.getPathUuidStr());
+						}
 					}
-				}
+				});
+				getLog().info("    ... " + rf2File.getFile().getName() + ": " + dropped + " duplicate records dropped");
 			}
-			bw.flush();
 			bw.close();
 
 			bwIds.flush();
 			bwIds.close();
+			stageCompleted();
 
 		}
 		catch (Exception ex)
@@ -95,7 +104,7 @@ public class SctRf2TextDefToArfMojo extends BaseRF2Mojo
 	private void writeSctSnomedLongId(BufferedWriter writer, long sctId, String date, String path) throws IOException
 	{
 		// PRIMARY_UUID = 0;
-		writer.append(Rf2x.convertSctIdToUuidStr(sctId) + TAB_CHARACTER);
+		writer.append(idResolver.convertSctIdToUuidStr(sctId) + TAB_CHARACTER);
 		// SOURCE_SYSTEM_UUID = 1;
 		writer.append(IsaacMetadataAuxiliaryBinding.SNOMED_INTEGER_ID.getPrimodialUuid() + TAB_CHARACTER);
 		// ID_FROM_SOURCE_SYSTEM = 2;
@@ -16,124 +16,209 @@
  */
 package gov.vha.isaac.rf2.convert.mojo;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import gov.vha.isaac.metadata.source.IsaacMetadataAuxiliaryBinding;
+import gov.vha.isaac.rf2.convert.ArfBatchWriter;
+import gov.vha.isaac.rf2.convert.ArfBinaryWriter;
+import gov.vha.isaac.rf2.convert.ArfComponentWriter;
 import gov.vha.isaac.rf2.convert.Rf2Defaults;
 import gov.vha.isaac.rf2.convert.Rf2File;
-import gov.vha.isaac.rf2.convert.Rf2_RefsetCRecord;
+import gov.vha.isaac.rf2.convert.Rf2StatusIndex;
+import gov.vha.isaac.rf2.convert.Rf2StatusMerge;
 import gov.vha.isaac.rf2.convert.Rf2x;
 import gov.vha.isaac.rf2.convert.Sct2_ConRecord;
 import gov.vha.isaac.rf2.convert.Sct2_DesRecord;
-import gov.vha.isaac.rf2.convert.Sct2_RelRecord;
+import gov.vha.isaac.rf2.convert.Sct2_RelTable;
+import gov.vha.isaac.rf2.convert.StageCache;
 /**
+ * Converts the RF2 concept, description and relationship files to ARF. Each
+ * file is parsed once; the ids.txt rows of components missing from the id
+ * cache are written in the same pass as their ARF records.
+ *
  * @author Marc E. Campbell
  */
 @Mojo(name = "sct-rf2-to-arf", defaultPhase = LifecyclePhase.PROCESS_SOURCES)
 public class SctRf2ToArfMojo extends BaseRF2Mojo {
 
+    /**
+     * Attach the extended status of the AttributeValue refset to concepts, descriptions and inferred relationships,
+     * dropping duplicate records. Without it components keep their RF2 status, and the ids.txt rows leave out the
+     * author and module columns.
+     */
+    @Parameter(required = false, defaultValue = "true")
+    protected boolean attachStatus = true;
+
+    /**
+     * @return whether this execution attaches the extended status, see {@link #attachStatus}
+     */
+    protected boolean isStatusAttached() {
+        return attachStatus;
+    }
+
+    @Override
+    protected void addStageParameters(StageCache stage) {
+        super.addStageParameters(stage);
+        stage.addParameter("attachStatus", isStatusAttached());
+    }
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        List<Rf2File> filesIn;
-        List<Rf2File> filesInStatus;
-        getLog().info("::: BEGIN SctRf2ToArf");
+        getLog().info("::: BEGIN SctRf2ToArf" + (isStatusAttached() ? "" : "NoStatus"));
 
         // SHOW DIRECTORIES
-      super.execute();
+        super.execute();
+        if (isStageUnchanged()) {
+            return;
+        }
 
         try {
-            Rf2x.setupIdCache(idCacheFile, enableUUIDToSCTIDMap);
-
-            BufferedWriter bwIds = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "ids.txt")), "UTF-8"));
-            getLog().info("::: IDS OUTPUT: " + new File(arfOutPath, "ids.txt").getAbsolutePath());
+            openIdResolver();
 
-            // :NYI: extended status implementation does not support multiple version years
-            filesInStatus = Rf2File.getFiles(new File(new File(inputSctDir, "Refset"), "Content"), "AttributeValue", ".txt");
-
-            ArrayList<Rf2_RefsetCRecord[]> rf2_RefsetCRecordArray = new ArrayList<>();
-            int arrayCont = 0;
-            for (Rf2File rf2File : filesInStatus) {
-                rf2_RefsetCRecordArray.add(Rf2_RefsetCRecord.parseRefset(rf2File, null));
-            }
-            for (Rf2_RefsetCRecord[] rf2_RefsetCRecordTmp : rf2_RefsetCRecordArray) {
-                arrayCont += rf2_RefsetCRecordTmp.length;
-            }
-
-            Rf2_RefsetCRecord[] statusRecords = new Rf2_RefsetCRecord[arrayCont];
-            int index = 0;
-            for (Rf2_RefsetCRecord[] rf2_RefsetCRecordTmp : rf2_RefsetCRecordArray) {
-                for (int i = 0; i < rf2_RefsetCRecordTmp.length; i++) {
-                    statusRecords[index] = rf2_RefsetCRecordTmp[i];
-                    index++;
+            File idsFile = new File(arfOutPath, "ids.txt");
+            getLog().info("::: IDS OUTPUT: " + idsFile.getAbsolutePath());
+            try (ArfBatchWriter ids = new ArfBatchWriter(idsFile)) {
+                // :NYI: extended status implementation does not support multiple version years
+                // Each component type writes its own ARF file and may run concurrently.
+                // The status index is only read by the tasks.
+                final Rf2StatusIndex statusRecords;
+                if (isStatusAttached()) {
+                    statusRecords = openStatusIndex();
+                } else {
+                    getLog().info("::: Extended status not attached");
+                    statusRecords = null;
                 }
+                List<Callable<Void>> tasks = new ArrayList<>();
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        convertConcepts(statusRecords, ids);
+                        return null;
+                    }
+                });
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        convertDescriptions(statusRecords, ids);
+                        return null;
+                    }
+                });
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        convertRelationships(statusRecords, ids);
+                        return null;
+                    }
+                });
+                runTasks(tasks);
             }
+            getLog().info("::: " + idResolver.getStatistics());
+            stageCompleted();
 
-            // Rf2_RefsetCRecord[] statusRecords = Rf2_RefsetCRecord.parseRefset(filesInStatus.get(0), null);
-            // hardcoded
-            // CONCEPT FILES: parse, write
-            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "concepts_rf2.txt")), "UTF-8"));
-            getLog().info("::: CONCEPTS FILE: " + new File(arfOutPath, "concepts_rf2.txt").getAbsolutePath());
-            filesIn = Rf2File.getFiles(inputSctDir, "sct2_Concept", ".txt");
-            for (Rf2File rf2File : filesIn) {
-                getLog().info("    ... " + rf2File.getFile().getName());
-                Sct2_ConRecord[] concepts = Sct2_ConRecord.parseConcepts(rf2File, pathUUID.toString());
-                concepts = Sct2_ConRecord.attachStatus(concepts, statusRecords);
-                for (Sct2_ConRecord c : concepts) {
+        } catch (MojoFailureException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new MojoFailureException("RF2/ARF file name parse error", ex);
+        }
+    }
+
+    // CONCEPT FILES: parse, write
+    private void convertConcepts(Rf2StatusIndex statusRecords, ArfBatchWriter ids) throws Exception {
+        final ArfBatchWriter.Batch bwIds = ids.newBatch();
+        try (ArfComponentWriter bw = openArfWriter("concepts_rf2", ArfBinaryWriter.CONCEPTS)) {
+            getLog().info("::: CONCEPTS FILE: " + bw.getFile().getAbsolutePath());
+            Rf2StatusMerge.Sink<Sct2_ConRecord> sink = new Rf2StatusMerge.Sink<Sct2_ConRecord>() {
+                @Override
+                public void write(Sct2_ConRecord c) throws IOException, ParseException {
                     c.setPath(pathUUID.toString());
-                    c.writeArf(bw);
-                    if (Rf2x.isSctIdInUuidCache(c.getConSnoIdL()) == false) {
+                    bw.write(c);
+                    if (idResolver.isSctIdInUuidCache(c.getConSnoIdL()) == false) {
                         writeSctSnomedLongId(bwIds, c.getConSnoIdL(), c.getEffDateStr(), c.getPathUuidStr(),
-                                Rf2Defaults.getAuthorUuidStr(), c.getModuleUuidStr());
+                                c.getModuleUuidStr());
                     }
                 }
-            }
-            bw.flush();
-            bw.close();
-
-            // DESCRIPTION FILES "sct2_Description"
-            bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "descriptions_rf2.txt")), "UTF-8"));
-            getLog().info("::: DESCRIPTIONS FILE: " + new File(arfOutPath, "descriptions_rf2.txt").getAbsolutePath());
-            filesIn = Rf2File.getFiles(inputSctDir, "sct2_Description", ".txt");
+            };
+            List<Rf2File> filesIn = Rf2File.getFiles(inputSctDir, "sct2_Concept", ".txt");
             for (Rf2File rf2File : filesIn) {
                 getLog().info("    ... " + rf2File.getFile().getName());
-                Sct2_DesRecord[] descriptions = Sct2_DesRecord.parseDescriptions(rf2File, pathUUID.toString());
-                descriptions = Sct2_DesRecord.attachStatus(descriptions, statusRecords);
-                for (Sct2_DesRecord d : descriptions) {
+                Sct2_ConRecord[] concepts = Sct2_ConRecord.parseConcepts(rf2File, pathUUID.toString(), idResolver);
+                if (statusRecords != null) {
+                    long dropped = Sct2_ConRecord.attachStatus(concepts, statusRecords, sink);
+                    getLog().info("    ... " + rf2File.getFile().getName() + ": " + dropped + " duplicate records dropped");
+                } else {
+                    for (Sct2_ConRecord c : concepts) {
+                        sink.write(c);
+                    }
+                }
+            }
+        }
+        bwIds.flush();
+    }
+
+    // DESCRIPTION FILES "sct2_Description"
+    private void convertDescriptions(Rf2StatusIndex statusRecords, ArfBatchWriter ids) throws Exception {
+        final ArfBatchWriter.Batch bwIds = ids.newBatch();
+        try (ArfComponentWriter bw = openArfWriter("descriptions_rf2", ArfBinaryWriter.DESCRIPTIONS)) {
+            getLog().info("::: DESCRIPTIONS FILE: " + bw.getFile().getAbsolutePath());
+            Rf2StatusMerge.Sink<Sct2_DesRecord> sink = new Rf2StatusMerge.Sink<Sct2_DesRecord>() {
+                @Override
+                public void write(Sct2_DesRecord d) throws IOException, ParseException {
                     d.setPath(pathUUID.toString());
-                    d.writeArf(bw);
-                    if (Rf2x.isSctIdInUuidCache(d.getDesSnoIdL()) == false) {
+                    bw.write(d);
+                    if (idResolver.isSctIdInUuidCache(d.getDesSnoIdL()) == false) {
                         writeSctSnomedLongId(bwIds, d.getDesSnoIdL(), d.getEffDateStr(), d.getPathUuidStr(),
-                                Rf2Defaults.getAuthorUuidStr(), d.getModuleUuidStr());
+                                d.getModuleUuidStr());
+                    }
+                }
+            };
+            List<Rf2File> filesIn = Rf2File.getFiles(inputSctDir, "sct2_Description", ".txt");
+            for (Rf2File rf2File : filesIn) {
+                getLog().info("    ... " + rf2File.getFile().getName());
+                Sct2_DesRecord[] descriptions = Sct2_DesRecord.parseDescriptions(rf2File, pathUUID.toString(), idResolver);
+                if (statusRecords != null) {
+                    long dropped = Sct2_DesRecord.attachStatus(descriptions, statusRecords, sink);
+                    getLog().info("    ... " + rf2File.getFile().getName() + ": " + dropped + " duplicate records dropped");
+                } else {
+                    for (Sct2_DesRecord d : descriptions) {
+                        sink.write(d);
                     }
                 }
             }
-            bw.flush();
-            bw.close();
+        }
+        bwIds.flush();
+    }
 
-            // RELATIONSHIP FILES "sct2_StatedRelationship" "sct2_Relationship"
-            bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(arfOutPath, "relationships_rf2.txt")), "UTF-8"));
-            getLog().info("::: RELATIONSHIPS FILE: " + new File(arfOutPath, "relationships_rf2.txt").getAbsolutePath());
-            filesIn = Rf2File.getFiles(inputSctDir, "sct2_Relationship", ".txt");
+    // RELATIONSHIP FILES "sct2_StatedRelationship" "sct2_Relationship"
+    private void convertRelationships(Rf2StatusIndex statusRecords, ArfBatchWriter ids) throws Exception {
+        final ArfBatchWriter.Batch bwIds = ids.newBatch();
+        try (ArfComponentWriter bw = openArfWriter("relationships_rf2", ArfBinaryWriter.RELATIONSHIPS)) {
+            getLog().info("::: RELATIONSHIPS FILE: " + bw.getFile().getAbsolutePath());
+            List<Rf2File> filesIn = Rf2File.getFiles(inputSctDir, "sct2_Relationship", ".txt");
             filesIn.addAll(Rf2File.getFiles(inputSctDir, "res2_RetiredIsaRelationship", ".txt"));
             for (Rf2File rf2File : filesIn) {
                 getLog().info("    ... " + rf2File.getFile().getName());
-                Sct2_RelRecord[] rels = Sct2_RelRecord.parseRelationships(rf2File, true, pathUUID.toString());
-                rels = Sct2_RelRecord.attachStatus(rels, statusRecords);
-                for (Sct2_RelRecord r : rels) {
-                    r.setPath(pathUUID.toString());
-                    r.writeArf(bw);
-                    if (Rf2x.isSctIdInUuidCache(r.getRelSnoId()) == false) {
-                        writeSctSnomedLongId(bwIds, r.getRelSnoId(), r.getEffDateStr(), r.getPathUuidStr(),
-                                Rf2Defaults.getAuthorUuidStr(), r.getModuleUuidStr());
+                final Sct2_RelTable rels = Sct2_RelTable.parseRelationships(rf2File, true, pathUUID.toString(), idResolver);
+                Rf2StatusMerge.Sink<Integer> sink = new Rf2StatusMerge.Sink<Integer>() {
+                    @Override
+                    public void write(Integer r) throws IOException, ParseException {
+                        writeRelationship(bw, bwIds, rels, r);
+                    }
+                };
+                if (statusRecords != null) {
+                    long dropped = rels.attachStatus(statusRecords, sink);
+                    getLog().info("    ... " + rf2File.getFile().getName() + ": " + dropped + " duplicate records dropped");
+                } else {
+                    for (int r = 0; r < rels.size(); r++) {
+                        writeRelationship(bw, bwIds, rels, r);
                     }
                 }
             }
@@ -142,30 +227,28 @@ public class SctRf2ToArfMojo extends BaseRF2Mojo {
             filesIn.addAll(Rf2File.getFiles(inputSctDir, "res2_RetiredStatedIsaRelationship", ".txt"));
             for (Rf2File rf2File : filesIn) {
                 getLog().info("    ... " + rf2File.getFile().getName());
-                Sct2_RelRecord[] rels = Sct2_RelRecord.parseRelationships(rf2File, false, pathUUID.toString());
-                for (Sct2_RelRecord r : rels) {
-                    r.setPath(pathUUID.toString());
-                    r.writeArf(bw);
-                    if (Rf2x.isSctIdInUuidCache(r.getRelSnoId()) == false) {
-                        writeSctSnomedLongId(bwIds, r.getRelSnoId(), r.getEffDateStr(), r.getPathUuidStr(),
-                                Rf2Defaults.getAuthorUuidStr(), r.getModuleUuidStr());
-                    }
+                Sct2_RelTable rels = Sct2_RelTable.parseRelationships(rf2File, false, pathUUID.toString(), idResolver);
+                for (int r = 0; r < rels.size(); r++) {
+                    writeRelationship(bw, bwIds, rels, r);
                 }
             }
-            bw.flush();
-            bw.close();
-
-            bwIds.flush();
-            bwIds.close();
+        }
+        bwIds.flush();
+    }
 
-        } catch (Exception ex) {
-            throw new MojoFailureException("RF2/ARF file name parse error", ex);
+    private void writeRelationship(ArfComponentWriter bw, Appendable bwIds, Sct2_RelTable rels, int r)
+            throws IOException, ParseException {
+        rels.setPath(r, pathUUID.toString());
+        bw.write(rels, r);
+        if (idResolver.isSctIdInUuidCache(rels.getRelSnoId(r)) == false) {
+            writeSctSnomedLongId(bwIds, rels.getRelSnoId(r), rels.getEffDateStr(r), rels.getPathUuidStr(r),
+                    rels.getModuleUuidStr(r));
         }
     }
 
-    private void writeSctSnomedLongId(BufferedWriter writer, long sctId, String date, String path, String author, String module) throws IOException {
+    private void writeSctSnomedLongId(Appendable writer, long sctId, String date, String path, String module) throws IOException {
         // PRIMARY_UUID = 0;
-        writer.append(Rf2x.convertSctIdToUuidStr(sctId) + TAB_CHARACTER);
+        writer.append(idResolver.convertSctIdToUuidStr(sctId) + TAB_CHARACTER);
         // SOURCE_SYSTEM_UUID = 1;
         writer.append(IsaacMetadataAuxiliaryBinding.SNOMED_INTEGER_ID.getPrimodialUuid().toString() + TAB_CHARACTER);
         // ID_FROM_SOURCE_SYSTEM = 2;
@@ -174,10 +257,15 @@ public class SctRf2ToArfMojo extends BaseRF2Mojo {
         writer.append(Rf2x.convertActiveToStatusUuid(true) + TAB_CHARACTER);
         // EFFECTIVE_DATE = 4; // yyyy-MM-dd HH:mm:ss
         writer.append(date + TAB_CHARACTER);
+        if (!isStatusAttached()) {
+            // PATH_UUID = 5;
+            writer.append(path + LINE_TERMINATOR);
+            return;
+        }
         // PATH_UUID = 5;
         writer.append(path + TAB_CHARACTER);
         // Author UUID String --> user
-        writer.append(author + TAB_CHARACTER);
+        writer.append(Rf2Defaults.getAuthorUuidStr() + TAB_CHARACTER);
         // Module UUID String
         writer.append(module + LINE_TERMINATOR);
 
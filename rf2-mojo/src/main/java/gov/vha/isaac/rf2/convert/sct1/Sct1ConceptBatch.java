@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2009 International Health Terminology Standards Development
+ * Organisation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert.sct1;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * The records of all component types for one concept, filled by
+ * {@link Sct1ConceptMerge}. The lists are cleared and refilled for each
+ * concept, so a batch can be reused once its records have been consumed.
+ */
+public class Sct1ConceptBatch {
+
+    long conUuidMsb;
+    long conUuidLsb;
+    final ArrayList<Sct1_ConRecord> concepts = new ArrayList<Sct1_ConRecord>(4);
+    final ArrayList<Sct1_DesRecord> descriptions = new ArrayList<Sct1_DesRecord>(16);
+    final ArrayList<Sct1_RelRecord> relationships = new ArrayList<Sct1_RelRecord>(32);
+    final ArrayList<Sct1_RelDestRecord> relDests = new ArrayList<Sct1_RelDestRecord>(32);
+    final ArrayList<Sct1_RefSetRecord> rsByCon = new ArrayList<Sct1_RefSetRecord>(16);
+    final ArrayList<Sct1_RefSetRecord> rsByRs = new ArrayList<Sct1_RefSetRecord>(16);
+
+    public UUID getConUuid() {
+        return new UUID(conUuidMsb, conUuidLsb);
+    }
+
+    /**
+     * @return the concept records, never empty
+     */
+    public ArrayList<Sct1_ConRecord> getConcepts() {
+        return concepts;
+    }
+
+    public ArrayList<Sct1_DesRecord> getDescriptions() {
+        return descriptions;
+    }
+
+    /**
+     * @return the relationships with this concept as source (C1)
+     */
+    public ArrayList<Sct1_RelRecord> getRelationships() {
+        return relationships;
+    }
+
+    /**
+     * @return the relationships with this concept as destination (C2)
+     */
+    public ArrayList<Sct1_RelDestRecord> getRelDests() {
+        return relDests;
+    }
+
+    /**
+     * @return the refset members whose referenced component is part of this concept
+     */
+    public ArrayList<Sct1_RefSetRecord> getRsByCon() {
+        return rsByCon;
+    }
+
+    /**
+     * @return the members of the refset this concept identifies
+     */
+    public ArrayList<Sct1_RefSetRecord> getRsByRs() {
+        return rsByRs;
+    }
+
+    void clear() {
+        concepts.clear();
+        descriptions.clear();
+        relationships.clear();
+        relDests.clear();
+        rsByCon.clear();
+        rsByRs.clear();
+    }
+}
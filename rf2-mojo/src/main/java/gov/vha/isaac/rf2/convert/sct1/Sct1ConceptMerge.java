@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2009 International Health Terminology Standards Development
+ * Organisation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert.sct1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Merges the concept ordered scratch files of sct1-arf-to-econcepts into one
+ * {@link Sct1ConceptBatch} per concept.
+ *
+ * Every file must be sorted on its concept key (msb, then lsb, as signed
+ * longs): concepts and descriptions on the concept, relationships on C1,
+ * destination relationships on C2, refset members by concept on the concept
+ * of the referenced component and by refset on the refset concept. The
+ * concepts file drives the merge. Records of the other files whose key
+ * matches no concept are skipped and reported to the {@link OrphanListener},
+ * once per key.
+ */
+public class Sct1ConceptMerge implements Closeable {
+
+    public enum Stream {
+
+        CONCEPTS, DESCRIPTIONS, RELATIONSHIPS, REL_DESTS, RS_BY_CON, RS_BY_RS
+    }
+
+    public interface OrphanListener {
+
+        /**
+         * @param first the first record of a key which matches no concept
+         */
+        void orphan(Stream stream, Object first);
+    }
+
+    private final OrphanListener listener;
+    private final GroupReader<Sct1_ConRecord> cons;
+    private final GroupReader<Sct1_DesRecord> dess;
+    private final GroupReader<Sct1_RelRecord> rels;
+    private final GroupReader<Sct1_RelDestRecord> relDests;
+    private final GroupReader<Sct1_RefSetRecord> rsByCons;
+    private final GroupReader<Sct1_RefSetRecord> rsByRss;
+
+    public Sct1ConceptMerge(String fNameCon, String fNameDes, String fNameRel, String fNameRelDest,
+            String fNameRsByCon, String fNameRsByRs, OrphanListener listener) throws IOException {
+        this.listener = listener;
+        ArrayList<Closeable> opened = new ArrayList<Closeable>();
+        try {
+            cons = open(opened, new GroupReader<Sct1_ConRecord>(Stream.CONCEPTS, fNameCon, Sct1_ConRecord.class) {
+                @Override
+                long msb(Sct1_ConRecord r) {
+                    return r.getConUuidMsb();
+                }
+
+                @Override
+                long lsb(Sct1_ConRecord r) {
+                    return r.getConUuidLsb();
+                }
+            });
+            dess = open(opened, new GroupReader<Sct1_DesRecord>(Stream.DESCRIPTIONS, fNameDes, Sct1_DesRecord.class) {
+                @Override
+                long msb(Sct1_DesRecord r) {
+                    return r.getConUuidMsb();
+                }
+
+                @Override
+                long lsb(Sct1_DesRecord r) {
+                    return r.getConUuidLsb();
+                }
+            });
+            rels = open(opened, new GroupReader<Sct1_RelRecord>(Stream.RELATIONSHIPS, fNameRel, Sct1_RelRecord.class) {
+                @Override
+                long msb(Sct1_RelRecord r) {
+                    return r.getC1UuidMsb();
+                }
+
+                @Override
+                long lsb(Sct1_RelRecord r) {
+                    return r.getC1UuidLsb();
+                }
+            });
+            relDests = open(opened, new GroupReader<Sct1_RelDestRecord>(Stream.REL_DESTS, fNameRelDest,
+                    Sct1_RelDestRecord.class) {
+                @Override
+                long msb(Sct1_RelDestRecord r) {
+                    return r.getC2UuidMsb();
+                }
+
+                @Override
+                long lsb(Sct1_RelDestRecord r) {
+                    return r.getC2UuidLsb();
+                }
+            });
+            rsByCons = open(opened, new GroupReader<Sct1_RefSetRecord>(Stream.RS_BY_CON, fNameRsByCon,
+                    Sct1_RefSetRecord.class) {
+                @Override
+                long msb(Sct1_RefSetRecord r) {
+                    return r.getConUuidMsb();
+                }
+
+                @Override
+                long lsb(Sct1_RefSetRecord r) {
+                    return r.getConUuidLsb();
+                }
+            });
+            rsByRss = open(opened, new GroupReader<Sct1_RefSetRecord>(Stream.RS_BY_RS, fNameRsByRs,
+                    Sct1_RefSetRecord.class) {
+                @Override
+                long msb(Sct1_RefSetRecord r) {
+                    return r.getRefsetUuidMsb();
+                }
+
+                @Override
+                long lsb(Sct1_RefSetRecord r) {
+                    return r.getRefsetUuidLsb();
+                }
+            });
+        } catch (IOException e) {
+            for (Closeable c : opened) {
+                try {
+                    c.close();
+                } catch (IOException ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static <R extends GroupReader<?>> R open(ArrayList<Closeable> opened, R reader) throws IOException {
+        opened.add(reader);
+        reader.start();
+        return reader;
+    }
+
+    /**
+     * Fills the batch with the records of the next concept.
+     *
+     * @return <code>false</code> after the last concept
+     */
+    public boolean next(Sct1ConceptBatch batch) throws IOException {
+        batch.clear();
+        if (cons.next == null) {
+            return false;
+        }
+        long msb = cons.msb(cons.next);
+        long lsb = cons.lsb(cons.next);
+        batch.conUuidMsb = msb;
+        batch.conUuidLsb = lsb;
+        cons.fill(msb, lsb, batch.concepts);
+        dess.fill(msb, lsb, batch.descriptions);
+        rels.fill(msb, lsb, batch.relationships);
+        relDests.fill(msb, lsb, batch.relDests);
+        rsByCons.fill(msb, lsb, batch.rsByCon);
+        rsByRss.fill(msb, lsb, batch.rsByRs);
+        return true;
+    }
+
+    /**
+     * @return the number of distinct keys read from the stream, orphans
+     * included
+     */
+    public long getGroupCount(Stream stream) {
+        switch (stream) {
+            case CONCEPTS:
+                return cons.groups;
+            case DESCRIPTIONS:
+                return dess.groups;
+            case RELATIONSHIPS:
+                return rels.groups;
+            case REL_DESTS:
+                return relDests.groups;
+            case RS_BY_CON:
+                return rsByCons.groups;
+            default:
+                return rsByRss.groups;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (GroupReader<?> reader : new GroupReader<?>[]{cons, dess, rels, relDests, rsByCons, rsByRss}) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static int compareKey(long msb1, long lsb1, long msb2, long lsb2) {
+        int c = Long.compare(msb1, msb2);
+        return c != 0 ? c : Long.compare(lsb1, lsb2);
+    }
+
+    /**
+     * Look ahead reader of one sorted scratch file.
+     */
+    private abstract class GroupReader<T> implements Closeable {
+
+        final Stream stream;
+        final Class<T> type;
+        final Sct1ScratchInput in;
+        T next;
+        long groups;
+
+        GroupReader(Stream stream, String fName, Class<T> type) throws IOException {
+            this.stream = stream;
+            this.type = type;
+            this.in = new Sct1ScratchInput(fName);
+        }
+
+        abstract long msb(T r);
+
+        abstract long lsb(T r);
+
+        void start() throws IOException {
+            next = read();
+        }
+
+        private T read() throws IOException {
+            Object obj;
+            while ((obj = in.nextRecord()) != null) {
+                if (type.isInstance(obj)) {
+                    return type.cast(obj);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Skips the keys before (msb, lsb) and adds the records of key
+         * (msb, lsb) to the group.
+         */
+        void fill(long msb, long lsb, ArrayList<T> group) throws IOException {
+            while (next != null) {
+                long nextMsb = msb(next);
+                long nextLsb = lsb(next);
+                int c = compareKey(nextMsb, nextLsb, msb, lsb);
+                if (c > 0) {
+                    return;
+                }
+                groups++;
+                if (c < 0 && listener != null) {
+                    listener.orphan(stream, next);
+                }
+                do {
+                    if (c == 0) {
+                        group.add(next);
+                    }
+                    next = read();
+                } while (next != null && msb(next) == nextMsb && lsb(next) == nextLsb);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2009 International Health Terminology Standards Development
+ * Organisation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert.sct1;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Narrows the step 1 scratch files of sct1-arf-to-econcepts to the concepts
+ * touched by a release delta, for an incremental eConcepts build.
+ *
+ * The changed components are the concepts, descriptions, relationships and
+ * refset members listed in the delta. A concept is affected when it or one of
+ * its descriptions changed, when a changed relationship starts or ends at it,
+ * when it identifies the refset of a changed member, or when a changed member
+ * refers to it or to one of its components. The filtered files keep every
+ * version of the components of the affected concepts, the relationships
+ * ending at them and the refset members attached to them, so their eConcepts
+ * come out as in a full build. Records kept only for another concept show up
+ * as orphans in step 7.
+ */
+public class Sct1DeltaFilter {
+
+    private final Set<UUID> changed;
+    private final HashSet<UUID> affected = new HashSet<UUID>();
+    private final HashSet<UUID> kept = new HashSet<UUID>(); // components of the affected concepts
+
+    /**
+     * @param changedComponents UUIDs of the components listed in the delta
+     */
+    public Sct1DeltaFilter(Set<UUID> changedComponents) {
+        this.changed = changedComponents;
+    }
+
+    /**
+     * Reads the step 1 files to find the affected concepts. Must be called
+     * before the files are filtered.
+     */
+    public void findAffectedConcepts(String fNameCon, String fNameDes, String fNameRel, String fNameRefset)
+            throws IOException {
+        // a changed member changes the component it refers to
+        final HashSet<UUID> referenced = new HashSet<UUID>();
+        scan(fNameRefset, Sct1_RefSetRecord.class, new Visitor<Sct1_RefSetRecord>() {
+            @Override
+            void visit(Sct1_RefSetRecord r) {
+                if (changed.contains(new UUID(r.getRefsetMemberUuidMsb(), r.getRefsetMemberUuidLsb()))) {
+                    affected.add(new UUID(r.getRefsetUuidMsb(), r.getRefsetUuidLsb()));
+                    referenced.add(new UUID(r.getReferencedComponentUuidMsb(), r.getReferencedComponentUuidLsb()));
+                }
+            }
+        });
+        scan(fNameCon, Sct1_ConRecord.class, new Visitor<Sct1_ConRecord>() {
+            @Override
+            void visit(Sct1_ConRecord r) {
+                UUID con = new UUID(r.getConUuidMsb(), r.getConUuidLsb());
+                if (changed.contains(con) || referenced.contains(con)) {
+                    affected.add(con);
+                }
+            }
+        });
+        scan(fNameDes, Sct1_DesRecord.class, new Visitor<Sct1_DesRecord>() {
+            @Override
+            void visit(Sct1_DesRecord r) {
+                UUID des = new UUID(r.getDesUuidMsb(), r.getDesUuidLsb());
+                if (changed.contains(des) || referenced.contains(des)) {
+                    affected.add(new UUID(r.getConUuidMsb(), r.getConUuidLsb()));
+                }
+            }
+        });
+        scan(fNameRel, Sct1_RelRecord.class, new Visitor<Sct1_RelRecord>() {
+            @Override
+            void visit(Sct1_RelRecord r) {
+                UUID rel = new UUID(r.getRelUuidMsb(), r.getRelUuidLsb());
+                if (changed.contains(rel) || referenced.contains(rel)) {
+                    // the destination lists the relationship too
+                    affected.add(new UUID(r.getC1UuidMsb(), r.getC1UuidLsb()));
+                    affected.add(new UUID(r.getC2UuidMsb(), r.getC2UuidLsb()));
+                }
+            }
+        });
+    }
+
+    public Set<UUID> getAffectedConcepts() {
+        return affected;
+    }
+
+    /**
+     * @return the number of concept records kept
+     */
+    public long filterConcepts(String inName, String outName) throws IOException {
+        return filter(inName, outName, Sct1_ConRecord.class, new Selector<Sct1_ConRecord>() {
+            @Override
+            boolean keep(Sct1_ConRecord r) {
+                UUID con = new UUID(r.getConUuidMsb(), r.getConUuidLsb());
+                if (affected.contains(con)) {
+                    kept.add(con);
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * @return the number of description records kept
+     */
+    public long filterDescriptions(String inName, String outName) throws IOException {
+        return filter(inName, outName, Sct1_DesRecord.class, new Selector<Sct1_DesRecord>() {
+            @Override
+            boolean keep(Sct1_DesRecord r) {
+                if (affected.contains(new UUID(r.getConUuidMsb(), r.getConUuidLsb()))) {
+                    kept.add(new UUID(r.getDesUuidMsb(), r.getDesUuidLsb()));
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * @return the number of relationship records kept
+     */
+    public long filterRelationships(String inName, String outName) throws IOException {
+        return filter(inName, outName, Sct1_RelRecord.class, new Selector<Sct1_RelRecord>() {
+            @Override
+            boolean keep(Sct1_RelRecord r) {
+                if (affected.contains(new UUID(r.getC1UuidMsb(), r.getC1UuidLsb()))) {
+                    kept.add(new UUID(r.getRelUuidMsb(), r.getRelUuidLsb()));
+                    return true;
+                }
+                return affected.contains(new UUID(r.getC2UuidMsb(), r.getC2UuidLsb()));
+            }
+        });
+    }
+
+    /**
+     * Keeps the members of the refsets of affected concepts and the members
+     * referring to the kept components, so it must run after the component
+     * files are filtered.
+     *
+     * @return the number of refset member records kept
+     */
+    public long filterRefsetMembers(String inName, String outName) throws IOException {
+        return filter(inName, outName, Sct1_RefSetRecord.class, new Selector<Sct1_RefSetRecord>() {
+            @Override
+            boolean keep(Sct1_RefSetRecord r) {
+                return affected.contains(new UUID(r.getRefsetUuidMsb(), r.getRefsetUuidLsb()))
+                        || kept.contains(new UUID(r.getReferencedComponentUuidMsb(),
+                                r.getReferencedComponentUuidLsb()));
+            }
+        });
+    }
+
+    private static <T> void scan(String fName, Class<T> type, Visitor<T> visitor) throws IOException {
+        Sct1ScratchInput in = new Sct1ScratchInput(fName);
+        try {
+            Object obj;
+            while ((obj = in.nextRecord()) != null) {
+                if (type.isInstance(obj)) {
+                    visitor.visit(type.cast(obj));
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static <T> long filter(String inName, String outName, Class<T> type, Selector<T> selector)
+            throws IOException {
+        long count = 0;
+        Sct1ScratchInput in = new Sct1ScratchInput(inName);
+        try {
+            Sct1ScratchOutput out = new Sct1ScratchOutput(outName);
+            try {
+                Object obj;
+                while ((obj = in.nextRecord()) != null) {
+                    if (type.isInstance(obj) && selector.keep(type.cast(obj))) {
+                        out.writeRecord(obj);
+                        count++;
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+        return count;
+    }
+
+    private abstract static class Visitor<T> {
+
+        abstract void visit(T r);
+    }
+
+    private abstract static class Selector<T> {
+
+        abstract boolean keep(T r);
+    }
+}
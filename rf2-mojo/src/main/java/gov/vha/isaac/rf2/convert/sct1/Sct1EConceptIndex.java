@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2009 International Health Terminology Standards Development
+ * Organisation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert.sct1;
+
+import gov.vha.isaac.rf2.convert.OrderedByteWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Concept index of an eConcepts file, kept next to it as
+ * <code>&lt;file&gt;.idx</code>.
+ *
+ * The index holds one entry per eConcept, in file order: the concept UUID
+ * (msb, lsb), the file offset and the byte length of the serialized
+ * eConcept. sct1-arf-to-econcepts writes the eConcepts in concept order, so
+ * the index of its output is sorted on (msb, lsb) as signed longs. The
+ * {@link Splicer} relies on this order to copy the unchanged eConcepts of a
+ * previous file byte for byte around the rebuilt ones.
+ */
+public class Sct1EConceptIndex {
+
+    public static final String SUFFIX = ".idx";
+    private static final long MAGIC = 0x5343543149445831L; // "SCT1IDX1"
+    private static final int BUFFER_SIZE = 1 << 16; // bytes
+
+    private Sct1EConceptIndex() {
+    }
+
+    public static File getIndexFile(File eConceptFile) {
+        return new File(eConceptFile.getPath() + SUFFIX);
+    }
+
+    /**
+     * Writes the index of an eConcepts file as its records are written. The
+     * records must be tagged with the {@link UUID} of their concept.
+     */
+    public static class Writer implements OrderedByteWriter.RecordListener, Closeable {
+
+        private final DataOutputStream out;
+
+        public Writer(File indexFile) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile), BUFFER_SIZE));
+            out.writeLong(MAGIC);
+        }
+
+        @Override
+        public void recordWritten(Object tag, long offset, int length) throws IOException {
+            if (!(tag instanceof UUID)) {
+                throw new IOException("eConcept record without concept UUID at offset " + offset);
+            }
+            UUID uuid = (UUID) tag;
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            out.writeLong(offset);
+            out.writeInt(length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a previous eConcepts file with its index in concept order and
+     * copies the eConcepts which are not rebuilt to a new file.
+     *
+     * For each rebuilt concept, in concept order, {@link #copyBefore} copies
+     * the previous eConcepts of the lower concepts and drops the previous
+     * eConcept of the rebuilt concept. {@link #copyRest} copies the
+     * eConcepts after the last rebuilt concept.
+     */
+    public static class Splicer implements Closeable {
+
+        private final File eConceptFile;
+        private final DataInputStream index;
+        private final InputStream in;
+        private long position;
+        private boolean hasEntry;
+        private long entryMsb;
+        private long entryLsb;
+        private long entryOffset;
+        private int entryLength;
+        private long copiedCount;
+        private long droppedCount;
+
+        public Splicer(File eConceptFile) throws IOException {
+            this.eConceptFile = eConceptFile;
+            File indexFile = getIndexFile(eConceptFile);
+            index = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE));
+            try {
+                if (index.readLong() != MAGIC) {
+                    throw new IOException("Not an eConcept index: " + indexFile);
+                }
+                in = new BufferedInputStream(new FileInputStream(eConceptFile), BUFFER_SIZE);
+            } catch (IOException e) {
+                index.close();
+                throw e;
+            }
+            nextEntry();
+        }
+
+        private void nextEntry() throws IOException {
+            try {
+                entryMsb = index.readLong();
+            } catch (EOFException e) {
+                hasEntry = false;
+                return;
+            }
+            entryLsb = index.readLong();
+            entryOffset = index.readLong();
+            entryLength = index.readInt();
+            hasEntry = true;
+        }
+
+        /**
+         * Copies the previous eConcepts of the concepts before
+         * <code>uuid</code> and drops the previous eConcept of
+         * <code>uuid</code>.
+         *
+         * @return the number of eConcepts copied
+         */
+        public int copyBefore(UUID uuid, OrderedByteWriter out) throws IOException {
+            long msb = uuid.getMostSignificantBits();
+            long lsb = uuid.getLeastSignificantBits();
+            int copied = 0;
+            while (hasEntry) {
+                int c = Long.compare(entryMsb, msb);
+                if (c == 0) {
+                    c = Long.compare(entryLsb, lsb);
+                }
+                if (c > 0) {
+                    break;
+                }
+                if (c < 0) {
+                    out.write(new UUID(entryMsb, entryLsb), readEntry());
+                    copied++;
+                } else {
+                    droppedCount++;
+                }
+                nextEntry();
+            }
+            copiedCount += copied;
+            return copied;
+        }
+
+        /**
+         * Copies the previous eConcepts after the last rebuilt concept.
+         *
+         * @return the number of eConcepts copied
+         */
+        public int copyRest(OrderedByteWriter out) throws IOException {
+            int copied = 0;
+            while (hasEntry) {
+                out.write(new UUID(entryMsb, entryLsb), readEntry());
+                copied++;
+                nextEntry();
+            }
+            copiedCount += copied;
+            return copied;
+        }
+
+        private byte[] readEntry() throws IOException {
+            if (entryOffset < position) {
+                throw new IOException("eConcept index out of file order at offset " + entryOffset + ": "
+                        + eConceptFile);
+            }
+            while (position < entryOffset) {
+                long skipped = in.skip(entryOffset - position);
+                if (skipped <= 0) {
+                    throw new EOFException("eConcept index past end of " + eConceptFile);
+                }
+                position += skipped;
+            }
+            byte[] record = new byte[entryLength];
+            int n = 0;
+            while (n < entryLength) {
+                int r = in.read(record, n, entryLength - n);
+                if (r < 0) {
+                    throw new EOFException("eConcept index past end of " + eConceptFile);
+                }
+                n += r;
+            }
+            position += entryLength;
+            return record;
+        }
+
+        /**
+         * @return the number of previous eConcepts copied so far
+         */
+        public long getCopiedCount() {
+            return copiedCount;
+        }
+
+        /**
+         * @return the number of previous eConcepts replaced by rebuilt ones
+         */
+        public long getDroppedCount() {
+            return droppedCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                index.close();
+            } finally {
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2009 International Health Terminology Standards Development
+ * Organisation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert.sct1;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a scratch file written by {@link Sct1ScratchOutput}.
+ */
+public class Sct1ScratchInput implements Closeable {
+
+    private final String fName;
+    private final FileInputStream in;
+    private final byte[] buf = new byte[Sct1ScratchOutput.BUFFER_SIZE];
+    private final long recordCount;
+    private final long dataSize;
+    private int pos;
+    private int limit;
+
+    public Sct1ScratchInput(String fName) throws IOException {
+        this.fName = fName;
+        this.in = new FileInputStream(fName);
+        try {
+            if (readLong() != Sct1ScratchOutput.MAGIC) {
+                throw new IOException("Not a scratch file: " + fName);
+            }
+            this.recordCount = readLong();
+            this.dataSize = readLong();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of records in the file, or -1 if the writer was not
+     * closed
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return the size in bytes of the records in the file, or -1 if the
+     * writer was not closed
+     */
+    public long getDataSize() {
+        return dataSize;
+    }
+
+    /**
+     * @return the record count as an initial capacity for a list of the
+     * records, 0 if unknown
+     */
+    public int getInitialCapacity() {
+        return (int) Math.min(Math.max(recordCount, 0), Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * @return the next record
+     * @throws EOFException after the last record
+     */
+    public Object readRecord() throws IOException {
+        Object r = nextRecord();
+        if (r == null) {
+            throw new EOFException(fName);
+        }
+        return r;
+    }
+
+    /**
+     * @return the next record, or <code>null</code> after the last record
+     */
+    public Object nextRecord() throws IOException {
+        if (pos == limit) {
+            pos = 0;
+            limit = Math.max(in.read(buf, 0, buf.length), 0);
+            if (limit == 0) {
+                return null;
+            }
+        }
+        byte tag = buf[pos++];
+        try {
+            return readRecord(tag);
+        } catch (EOFException e) {
+            throw new IOException("Truncated scratch file: " + fName, e);
+        }
+    }
+
+    private Object readRecord(byte tag) throws IOException {
+        switch (tag) {
+            case Sct1ScratchOutput.CONCEPT:
+                return Sct1_ConRecord.readScratch(this);
+            case Sct1ScratchOutput.DESCRIPTION:
+                return Sct1_DesRecord.readScratch(this);
+            case Sct1ScratchOutput.RELATIONSHIP:
+                return Sct1_RelRecord.readScratch(this);
+            case Sct1ScratchOutput.ID:
+                return Sct1_IdRecord.readScratch(this);
+            case Sct1ScratchOutput.REL_DEST:
+                return Sct1_RelDestRecord.readScratch(this);
+            case Sct1ScratchOutput.REFSET:
+                return Sct1_RefSetRecord.readScratch(this);
+            default:
+                throw new IOException("Unknown record type " + tag + " in " + fName);
+        }
+    }
+
+    /**
+     * Makes at least n bytes available in the buffer.
+     */
+    private void require(int n) throws IOException {
+        if (limit - pos >= n) {
+            return;
+        }
+        System.arraycopy(buf, pos, buf, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        while (limit < n) {
+            int count = in.read(buf, limit, buf.length - limit);
+            if (count < 0) {
+                throw new EOFException(fName);
+            }
+            limit += count;
+        }
+    }
+
+    byte readByte() throws IOException {
+        require(1);
+        return buf[pos++];
+    }
+
+    boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    int readInt() throws IOException {
+        require(4);
+        int v = readIntAt(pos);
+        pos += 4;
+        return v;
+    }
+
+    long readLong() throws IOException {
+        require(8);
+        long v = ((long) readIntAt(pos) << 32) | (readIntAt(pos + 4) & 0xffffffffL);
+        pos += 8;
+        return v;
+    }
+
+    private int readIntAt(int i) {
+        return (buf[i] & 0xff) << 24 | (buf[i + 1] & 0xff) << 16
+                | (buf[i + 2] & 0xff) << 8 | (buf[i + 3] & 0xff);
+    }
+
+    float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length <= buf.length) {
+            require(length);
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+        byte[] b = new byte[length];
+        int n = limit - pos;
+        System.arraycopy(buf, pos, b, 0, n);
+        pos = limit;
+        while (n < length) {
+            int count = in.read(b, n, length - n);
+            if (count < 0) {
+                throw new EOFException(fName);
+            }
+            n += count;
+        }
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    <E extends Enum<E>> E readEnum(E[] values) throws IOException {
+        int ordinal = readByte();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
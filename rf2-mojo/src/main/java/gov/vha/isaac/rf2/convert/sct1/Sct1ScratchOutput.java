@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2009 International Health Terminology Standards Development
+ * Organisation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert.sct1;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Scratch file of Sct1_* records written between the steps of
+ * sct1-arf-to-econcepts, read back with {@link Sct1ScratchInput}.
+ *
+ * Each record is a type tag followed by the fields written by the record's
+ * <code>writeScratch</code> method in a fixed order: big-endian numbers and
+ * length prefixed UTF-8 strings. No class descriptors or object handles are
+ * written, so no reset is needed to release written records. Fields are
+ * encoded straight into one reusable byte buffer. Not thread safe.
+ *
+ * The header holds the number of records and the size in bytes of the data
+ * which follows it, filled in by {@link #close()}, so a reader can size its
+ * buffers before reading the records.
+ */
+public class Sct1ScratchOutput implements Closeable {
+
+    static final long MAGIC = 0x5343543153435231L; // "SCT1SCR1"
+    static final byte CONCEPT = 1;
+    static final byte DESCRIPTION = 2;
+    static final byte RELATIONSHIP = 3;
+    static final byte ID = 4;
+    static final byte REL_DEST = 5;
+    static final byte REFSET = 6;
+    static final int BUFFER_SIZE = 1 << 16; // bytes
+    static final int HEADER_SIZE = 24; // magic, record count, data size
+    static final long UNKNOWN = -1; // header count and size until closed
+    private final FileOutputStream out;
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private int pos;
+    private long written; // bytes flushed to out
+    private long recordCount;
+
+    public Sct1ScratchOutput(String fName) throws IOException {
+        this.out = new FileOutputStream(fName);
+        writeLong(MAGIC);
+        writeLong(UNKNOWN);
+        writeLong(UNKNOWN);
+    }
+
+    public void write(Sct1_ConRecord r) throws IOException {
+        recordCount++;
+        writeByte(CONCEPT);
+        r.writeScratch(this);
+    }
+
+    public void write(Sct1_DesRecord r) throws IOException {
+        recordCount++;
+        writeByte(DESCRIPTION);
+        r.writeScratch(this);
+    }
+
+    public void write(Sct1_RelRecord r) throws IOException {
+        recordCount++;
+        writeByte(RELATIONSHIP);
+        r.writeScratch(this);
+    }
+
+    public void write(Sct1_IdRecord r) throws IOException {
+        recordCount++;
+        writeByte(ID);
+        r.writeScratch(this);
+    }
+
+    public void write(Sct1_RelDestRecord r) throws IOException {
+        recordCount++;
+        writeByte(REL_DEST);
+        r.writeScratch(this);
+    }
+
+    public void write(Sct1_RefSetRecord r) throws IOException {
+        recordCount++;
+        writeByte(REFSET);
+        r.writeScratch(this);
+    }
+
+    /**
+     * Writes any of the Sct1_* record types.
+     */
+    public void writeRecord(Object r) throws IOException {
+        if (r instanceof Sct1_ConRecord) {
+            write((Sct1_ConRecord) r);
+        } else if (r instanceof Sct1_DesRecord) {
+            write((Sct1_DesRecord) r);
+        } else if (r instanceof Sct1_RelRecord) {
+            write((Sct1_RelRecord) r);
+        } else if (r instanceof Sct1_IdRecord) {
+            write((Sct1_IdRecord) r);
+        } else if (r instanceof Sct1_RelDestRecord) {
+            write((Sct1_RelDestRecord) r);
+        } else if (r instanceof Sct1_RefSetRecord) {
+            write((Sct1_RefSetRecord) r);
+        } else {
+            throw new IllegalArgumentException("Not a scratch record: " + r);
+        }
+    }
+
+    void writeByte(int v) throws IOException {
+        if (pos == buf.length) {
+            flushBuffer();
+        }
+        buf[pos++] = (byte) v;
+    }
+
+    void writeBoolean(boolean v) throws IOException {
+        writeByte(v ? 1 : 0);
+    }
+
+    void writeInt(int v) throws IOException {
+        if (buf.length - pos < 4) {
+            flushBuffer();
+        }
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+    }
+
+    void writeLong(long v) throws IOException {
+        if (buf.length - pos < 8) {
+            flushBuffer();
+        }
+        buf[pos++] = (byte) (v >>> 56);
+        buf[pos++] = (byte) (v >>> 48);
+        buf[pos++] = (byte) (v >>> 40);
+        buf[pos++] = (byte) (v >>> 32);
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+    }
+
+    void writeFloat(float v) throws IOException {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    /**
+     * Writes a length prefixed UTF-8 string, length -1 for <code>null</code>.
+     */
+    void writeString(String s) throws IOException {
+        if (s == null) {
+            writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        writeInt(b.length);
+        if (b.length > buf.length - pos) {
+            flushBuffer();
+            if (b.length > buf.length) {
+                out.write(b);
+                written += b.length;
+                return;
+            }
+        }
+        System.arraycopy(b, 0, buf, pos, b.length);
+        pos += b.length;
+    }
+
+    /**
+     * Writes an enum ordinal, -1 for <code>null</code>.
+     */
+    void writeEnum(Enum<?> e) throws IOException {
+        writeByte(e == null ? -1 : e.ordinal());
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buf, 0, pos);
+        written += pos;
+        pos = 0;
+    }
+
+    /**
+     * @return the number of records written so far
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes the records and fills in the header record count and data size.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+            ByteBuffer header = ByteBuffer.allocate(16);
+            header.putLong(recordCount);
+            header.putLong(written - HEADER_SIZE);
+            header.flip();
+            out.getChannel().write(header, 8);
+        } finally {
+            out.close();
+        }
+    }
+}
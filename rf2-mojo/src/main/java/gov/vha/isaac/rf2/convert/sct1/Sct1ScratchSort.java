@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2009 International Health Terminology Standards Development
+ * Organisation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package gov.vha.isaac.rf2.convert.sct1;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * External merge sort of the records of one type in a scratch file.
+ *
+ * Records are read in runs which fit the memory budget. Each run is sorted in
+ * memory and spilled to a scratch file next to the output, then the runs are
+ * merged with a heap. Ties go to the earlier run, so the output has the same
+ * order as a stable in memory sort. Input which fits in one run is sorted in
+ * memory and written straight to the output.
+ */
+public class Sct1ScratchSort<T> {
+
+    /**
+     * Estimated heap size of a record relative to its scratch file size.
+     */
+    private static final int HEAP_FACTOR = 4;
+    private static final int MIN_RUN_SIZE = 10000; // records
+    private final Class<T> type;
+    private final Comparator<? super T> comparator;
+    private final long memoryBudget;
+    private int runCount;
+
+    /**
+     * @param type records of other types in the input are dropped
+     * @param comparator sort order, <code>null</code> for the natural order
+     * @param memoryBudget bytes of heap the records of one run may use
+     */
+    public Sct1ScratchSort(Class<T> type, Comparator<? super T> comparator, long memoryBudget) {
+        this.type = type;
+        this.comparator = comparator;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * @return the number of runs spilled by the last sort, 0 if sorted in
+     * memory
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Sorts the records of this sort's type in <code>inName</code> into
+     * <code>outName</code>.
+     *
+     * @return the number of records written
+     */
+    public long sort(String inName, String outName) throws IOException {
+        runCount = 0;
+        List<String> runNames = new ArrayList<String>();
+        long count = 0;
+        Sct1ScratchInput in = new Sct1ScratchInput(inName);
+        try {
+            int runSize = getRunSize(in);
+            ArrayList<T> run = new ArrayList<T>(Math.min(runSize, in.getInitialCapacity()));
+            Object obj;
+            while ((obj = in.nextRecord()) != null) {
+                if (type.isInstance(obj)) {
+                    if (run.size() == runSize) {
+                        String runName = outName + ".run" + runNames.size();
+                        runNames.add(runName);
+                        writeRun(run, runName);
+                        run.clear();
+                    }
+                    run.add(type.cast(obj));
+                    count++;
+                }
+            }
+            in.close();
+            in = null;
+
+            if (runNames.isEmpty()) {
+                writeRun(run, outName);
+                return count;
+            }
+            String runName = outName + ".run" + runNames.size();
+            runNames.add(runName);
+            writeRun(run, runName);
+            run = null;
+            runCount = runNames.size();
+            merge(runNames, outName);
+            return count;
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+            for (String runName : runNames) {
+                new File(runName).delete();
+            }
+        }
+    }
+
+    private int getRunSize(Sct1ScratchInput in) {
+        long recordSize = 64;
+        if (in.getRecordCount() > 0) {
+            recordSize = Math.max(recordSize, in.getDataSize() / in.getRecordCount());
+        }
+        long runSize = memoryBudget / (recordSize * HEAP_FACTOR);
+        return (int) Math.max(MIN_RUN_SIZE, Math.min(runSize, Integer.MAX_VALUE - 8));
+    }
+
+    private void writeRun(ArrayList<T> run, String fName) throws IOException {
+        Collections.sort(run, comparator);
+        Sct1ScratchOutput out = new Sct1ScratchOutput(fName);
+        try {
+            for (T r : run) {
+                out.writeRecord(r);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void merge(List<String> runNames, String outName) throws IOException {
+        PriorityQueue<RunHead> heads = new PriorityQueue<RunHead>(runNames.size());
+        Sct1ScratchOutput out = null;
+        try {
+            for (int i = 0; i < runNames.size(); i++) {
+                RunHead head = new RunHead(i, new Sct1ScratchInput(runNames.get(i)));
+                if (head.advance()) {
+                    heads.add(head);
+                } else {
+                    head.in.close();
+                }
+            }
+            out = new Sct1ScratchOutput(outName);
+            while (!heads.isEmpty()) {
+                RunHead head = heads.poll();
+                out.writeRecord(head.record);
+                if (head.advance()) {
+                    heads.add(head);
+                } else {
+                    head.in.close();
+                }
+            }
+        } finally {
+            for (RunHead head : heads) {
+                head.in.close();
+            }
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(T o1, T o2) {
+        if (comparator == null) {
+            return ((Comparable<Object>) o1).compareTo(o2);
+        }
+        return comparator.compare(o1, o2);
+    }
+
+    /**
+     * Next record of one sorted run.
+     */
+    private class RunHead implements Comparable<RunHead> {
+
+        final int run;
+        final Sct1ScratchInput in;
+        T record;
+
+        RunHead(int run, Sct1ScratchInput in) {
+            this.run = run;
+            this.in = in;
+        }
+
+        boolean advance() throws IOException {
+            record = type.cast(in.nextRecord());
+            return record != null;
+        }
+
+        @Override
+        public int compareTo(RunHead o) {
+            int c = compare(record, o.record);
+            return c != 0 ? c : run - o.run;
+        }
+    }
+}
@@ -16,11 +16,12 @@
  */
 package gov.vha.isaac.rf2.convert.sct1;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.UUID;
 import gov.vha.isaac.ochre.util.UuidT3Generator;
-import gov.vha.isaac.rf2.convert.Rf2x;
+import gov.vha.isaac.rf2.convert.IdResolver;
 
 public class Sct1_ConRecord implements Comparable<Object>, Serializable {
     private static final long serialVersionUID = 1L;
@@ -57,9 +58,9 @@ public class Sct1_ConRecord implements Comparable<Object>, Serializable {
         this.setModuleIdx(-1);
     }
     
-    public Sct1_ConRecord(UUID cUuid, int s, int p,
+    public Sct1_ConRecord(IdResolver ids, UUID cUuid, int s, int p,
             long revDate, int pathIdx, int authorIdx, int moduleIdx) {
-        Long temp = Rf2x.getSCTIDforUUID(cUuid);
+        Long temp = ids.getSCTIDforUUID(cUuid);
         this.setConSnoId(temp == null ? Long.MAX_VALUE : temp);
         this.setConUuidMsb(cUuid.getMostSignificantBits());
         this.setConUuidLsb(cUuid.getLeastSignificantBits());
@@ -75,6 +76,44 @@ public class Sct1_ConRecord implements Comparable<Object>, Serializable {
         this.setModuleIdx(moduleIdx);
     }
 
+    private Sct1_ConRecord() {
+    }
+
+    /**
+     * Writes the record fields to a {@link Sct1ScratchOutput} file.
+     */
+    void writeScratch(Sct1ScratchOutput out) throws IOException {
+        out.writeLong(conSnoId);
+        out.writeLong(conUuidMsb);
+        out.writeLong(conUuidLsb);
+        out.writeInt(status);
+        Sct1_IdRecord.writeScratchIds(out, addedIds);
+        out.writeString(ctv3id);
+        out.writeString(snomedrtid);
+        out.writeInt(isprimitive);
+        out.writeInt(pathIdx);
+        out.writeInt(authorIdx);
+        out.writeInt(moduleIdx);
+        out.writeLong(revTime);
+    }
+
+    static Sct1_ConRecord readScratch(Sct1ScratchInput in) throws IOException {
+        Sct1_ConRecord r = new Sct1_ConRecord();
+        r.conSnoId = in.readLong();
+        r.conUuidMsb = in.readLong();
+        r.conUuidLsb = in.readLong();
+        r.status = in.readInt();
+        r.addedIds = Sct1_IdRecord.readScratchIds(in);
+        r.ctv3id = in.readString();
+        r.snomedrtid = in.readString();
+        r.isprimitive = in.readInt();
+        r.pathIdx = in.readInt();
+        r.authorIdx = in.readInt();
+        r.moduleIdx = in.readInt();
+        r.revTime = in.readLong();
+        return r;
+    }
+
     // method required for object to be sortable (comparable) in arrays
     @Override
     public int compareTo(Object obj) {
@@ -25,7 +25,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.UUID;
 import gov.vha.isaac.ochre.util.UuidT3Generator;
-import gov.vha.isaac.rf2.convert.Rf2x;
+import gov.vha.isaac.rf2.convert.IdResolver;
 
 public class Sct1_DesRecord implements Comparable<Object>, Serializable {
     private static final long serialVersionUID = 1L;
@@ -73,10 +73,10 @@ public class Sct1_DesRecord implements Comparable<Object>, Serializable {
         this.setModuleIdx(-1);
     }
 
-    public Sct1_DesRecord(UUID desUuid, int status, UUID uuidCon, String termStr,
+    public Sct1_DesRecord(IdResolver ids, UUID desUuid, int status, UUID uuidCon, String termStr,
             int capitalization, int desTypeIdx, String langCodeStr, long revTime,
             int pathIdx, int authorIdx, int moduleIdx) {
-        Long temp = Rf2x.getSCTIDforUUID(desUuid);
+        Long temp = ids.getSCTIDforUUID(desUuid);
         this.setDesSnoId(temp == null ? Long.MAX_VALUE : temp); // DESCRIPTIONID
         this.setDesUuidMsb(desUuid.getMostSignificantBits());
         this.setDesUuidLsb(desUuid.getLeastSignificantBits());
@@ -96,6 +96,52 @@ public class Sct1_DesRecord implements Comparable<Object>, Serializable {
         this.setModuleIdx(moduleIdx);
     }
 
+    private Sct1_DesRecord() {
+    }
+
+    /**
+     * Writes the record fields to a {@link Sct1ScratchOutput} file.
+     */
+    void writeScratch(Sct1ScratchOutput out) throws IOException {
+        out.writeLong(desSnoId);
+        out.writeLong(desUuidMsb);
+        out.writeLong(desUuidLsb);
+        out.writeInt(status);
+        Sct1_IdRecord.writeScratchIds(out, addedIds);
+        out.writeLong(conSnoId);
+        out.writeLong(conUuidMsb);
+        out.writeLong(conUuidLsb);
+        out.writeString(termText);
+        out.writeInt(capStatus);
+        out.writeInt(descriptionType);
+        out.writeString(languageCode);
+        out.writeLong(revTime);
+        out.writeInt(pathIdx);
+        out.writeInt(authorIdx);
+        out.writeInt(moduleIdx);
+    }
+
+    static Sct1_DesRecord readScratch(Sct1ScratchInput in) throws IOException {
+        Sct1_DesRecord r = new Sct1_DesRecord();
+        r.desSnoId = in.readLong();
+        r.desUuidMsb = in.readLong();
+        r.desUuidLsb = in.readLong();
+        r.status = in.readInt();
+        r.addedIds = Sct1_IdRecord.readScratchIds(in);
+        r.conSnoId = in.readLong();
+        r.conUuidMsb = in.readLong();
+        r.conUuidLsb = in.readLong();
+        r.termText = in.readString();
+        r.capStatus = in.readInt();
+        r.descriptionType = in.readInt();
+        r.languageCode = in.readString();
+        r.revTime = in.readLong();
+        r.pathIdx = in.readInt();
+        r.authorIdx = in.readInt();
+        r.moduleIdx = in.readInt();
+        return r;
+    }
+
     // method required for object to be sortable (comparable) in arrays
     @Override
     public int compareTo(Object obj) {
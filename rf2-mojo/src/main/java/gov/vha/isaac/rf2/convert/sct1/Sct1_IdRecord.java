@@ -16,7 +16,9 @@
  */
 package gov.vha.isaac.rf2.convert.sct1;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.UUID;
 
 public class Sct1_IdRecord implements Comparable<Sct1_IdRecord>, Serializable {
@@ -75,6 +77,67 @@ public class Sct1_IdRecord implements Comparable<Sct1_IdRecord>, Serializable {
         this.setModuleIdx(-1);
     }
 
+    private Sct1_IdRecord() {
+    }
+
+    /**
+     * Writes the record fields to a {@link Sct1ScratchOutput} file.
+     */
+    void writeScratch(Sct1ScratchOutput out) throws IOException {
+        out.writeLong(primaryUuidMsb);
+        out.writeLong(primaryUuidLsb);
+        out.writeInt(srcSystemIdx);
+        out.writeString(denotation);
+        out.writeLong(denotationLong);
+        out.writeInt(status);
+        out.writeLong(revTime);
+        out.writeInt(pathIdx);
+        out.writeInt(userIdx);
+        out.writeInt(moduleIdx);
+    }
+
+    static Sct1_IdRecord readScratch(Sct1ScratchInput in) throws IOException {
+        Sct1_IdRecord r = new Sct1_IdRecord();
+        r.primaryUuidMsb = in.readLong();
+        r.primaryUuidLsb = in.readLong();
+        r.srcSystemIdx = in.readInt();
+        r.denotation = in.readString();
+        r.denotationLong = in.readLong();
+        r.status = in.readInt();
+        r.revTime = in.readLong();
+        r.pathIdx = in.readInt();
+        r.userIdx = in.readInt();
+        r.moduleIdx = in.readInt();
+        return r;
+    }
+
+    /**
+     * Writes the additional ids of a component, count -1 for
+     * <code>null</code>.
+     */
+    static void writeScratchIds(Sct1ScratchOutput out, ArrayList<Sct1_IdRecord> ids) throws IOException {
+        if (ids == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(ids.size());
+        for (Sct1_IdRecord id : ids) {
+            id.writeScratch(out);
+        }
+    }
+
+    static ArrayList<Sct1_IdRecord> readScratchIds(Sct1ScratchInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        ArrayList<Sct1_IdRecord> ids = new ArrayList<Sct1_IdRecord>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(readScratch(in));
+        }
+        return ids;
+    }
+
     @Override
     public int compareTo(Sct1_IdRecord o) {
         int thisMore = 1;
@@ -1,5 +1,6 @@
 package gov.vha.isaac.rf2.convert.sct1;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -17,6 +18,8 @@ public class Sct1_RefSetRecord implements Comparable<Sct1_RefSetRecord>, Seriali
         BOOLEAN, CONCEPT, INTEGER, STRING, C_FLOAT, STRING_STRING
     };
     private static final long serialVersionUID = 1L;
+    private static final ComponentType[] COMPONENT_TYPES = ComponentType.values();
+    private static final ValueType[] VALUE_TYPES = ValueType.values();
     private long conUuidMsb; // ENVELOP CONCEPTID (eConcept to which this concept belongs)
     private long conUuidLsb; // ENVELOP CONCEPTID
     private long referencedComponentUuidMsb;
@@ -226,6 +229,64 @@ public class Sct1_RefSetRecord implements Comparable<Sct1_RefSetRecord>, Seriali
         this.setModuleIdx(zModuleIdx);
     }
 
+    private Sct1_RefSetRecord() {
+    }
+
+    /**
+     * Writes the record fields to a {@link Sct1ScratchOutput} file.
+     */
+    void writeScratch(Sct1ScratchOutput out) throws IOException {
+        out.writeLong(conUuidMsb);
+        out.writeLong(conUuidLsb);
+        out.writeLong(referencedComponentUuidMsb);
+        out.writeLong(referencedComponentUuidLsb);
+        out.writeEnum(componentType);
+        out.writeLong(refsetUuidMsb);
+        out.writeLong(refsetUuidLsb);
+        out.writeLong(refsetMemberUuidMsb);
+        out.writeLong(refsetMemberUuidLsb);
+        out.writeBoolean(valueBoolean);
+        out.writeLong(valueConUuidMsb);
+        out.writeLong(valueConUuidLsb);
+        out.writeInt(valueInt);
+        out.writeFloat(valueFloat);
+        out.writeString(valueString1);
+        out.writeString(valueString2);
+        out.writeEnum(valueType);
+        out.writeInt(status);
+        out.writeLong(revTime);
+        out.writeInt(pathIdx);
+        out.writeInt(authorIdx);
+        out.writeInt(moduleIdx);
+    }
+
+    static Sct1_RefSetRecord readScratch(Sct1ScratchInput in) throws IOException {
+        Sct1_RefSetRecord r = new Sct1_RefSetRecord();
+        r.conUuidMsb = in.readLong();
+        r.conUuidLsb = in.readLong();
+        r.referencedComponentUuidMsb = in.readLong();
+        r.referencedComponentUuidLsb = in.readLong();
+        r.componentType = in.readEnum(COMPONENT_TYPES);
+        r.refsetUuidMsb = in.readLong();
+        r.refsetUuidLsb = in.readLong();
+        r.refsetMemberUuidMsb = in.readLong();
+        r.refsetMemberUuidLsb = in.readLong();
+        r.valueBoolean = in.readBoolean();
+        r.valueConUuidMsb = in.readLong();
+        r.valueConUuidLsb = in.readLong();
+        r.valueInt = in.readInt();
+        r.valueFloat = in.readFloat();
+        r.valueString1 = in.readString();
+        r.valueString2 = in.readString();
+        r.valueType = in.readEnum(VALUE_TYPES);
+        r.status = in.readInt();
+        r.revTime = in.readLong();
+        r.pathIdx = in.readInt();
+        r.authorIdx = in.readInt();
+        r.moduleIdx = in.readInt();
+        return r;
+    }
+
     public void setEnvelopConUuid(UUID conUuid, ComponentType cType) {
         this.setConUuidMsb(conUuid.getMostSignificantBits());
         this.setConUuidLsb(conUuid.getLeastSignificantBits());
@@ -16,6 +16,7 @@
  */
 package gov.vha.isaac.rf2.convert.sct1;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 public class Sct1_RelDestRecord implements Comparable<Object>, Serializable {
@@ -38,6 +39,22 @@ public class Sct1_RelDestRecord implements Comparable<Object>, Serializable {
         this.setRoleTypeIdx(roleTypeIdx);
     }
 
+    /**
+     * Writes the record fields to a {@link Sct1ScratchOutput} file.
+     */
+    void writeScratch(Sct1ScratchOutput out) throws IOException {
+        out.writeLong(relUuidMsb);
+        out.writeLong(relUuidLsb);
+        out.writeLong(c2UuidMsb);
+        out.writeLong(c2UuidLsb);
+        out.writeInt(roleTypeIdx);
+    }
+
+    static Sct1_RelDestRecord readScratch(Sct1ScratchInput in) throws IOException {
+        return new Sct1_RelDestRecord(in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                in.readInt());
+    }
+
     // method required for object to be sortable (comparable) in arrays
     @Override
     public int compareTo(Object obj) {
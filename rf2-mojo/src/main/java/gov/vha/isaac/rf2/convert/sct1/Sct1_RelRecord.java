@@ -16,11 +16,12 @@
  */
 package gov.vha.isaac.rf2.convert.sct1;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.UUID;
 import gov.vha.isaac.ochre.util.UuidT3Generator;
-import gov.vha.isaac.rf2.convert.Rf2x;
+import gov.vha.isaac.rf2.convert.IdResolver;
 
 public class Sct1_RelRecord implements Comparable<Object>, Serializable {
     private static final long serialVersionUID = 1L;
@@ -120,12 +121,12 @@ public class Sct1_RelRecord implements Comparable<Object>, Serializable {
         this.setModuleIdx(-1);
     }
     
-    public Sct1_RelRecord(UUID uuidRelId, int status,
+    public Sct1_RelRecord(IdResolver ids, UUID uuidRelId, int status,
             UUID uuidC1, int roleTypeIdx, UUID uuidC2,
             int characteristic, int refinability, int group, long revTime,
             int pathIdx, int userIdx, int moduleIdx) {
         
-        Long temp = Rf2x.getSCTIDforUUID(uuidRelId);
+        Long temp = ids.getSCTIDforUUID(uuidRelId);
         this.setRelSnoId(temp == null ? Long.MAX_VALUE : temp); // SNOMED RELATIONSHIPID, if applicable
         this.setRelUuidMsb(uuidRelId.getMostSignificantBits());
         this.setRelUuidLsb(uuidRelId.getLeastSignificantBits());
@@ -150,6 +151,62 @@ public class Sct1_RelRecord implements Comparable<Object>, Serializable {
         this.setModuleIdx(moduleIdx);
     }
 
+    private Sct1_RelRecord() {
+    }
+
+    /**
+     * Writes the record fields to a {@link Sct1ScratchOutput} file.
+     */
+    void writeScratch(Sct1ScratchOutput out) throws IOException {
+        out.writeLong(relSnoId);
+        out.writeLong(relUuidMsb);
+        out.writeLong(relUuidLsb);
+        Sct1_IdRecord.writeScratchIds(out, addedIds);
+        out.writeInt(status);
+        out.writeLong(c1SnoId);
+        out.writeLong(c1UuidMsb);
+        out.writeLong(c1UuidLsb);
+        out.writeLong(roleTypeSnoId);
+        out.writeInt(roleTypeIdx);
+        out.writeLong(c2SnoId);
+        out.writeLong(c2UuidMsb);
+        out.writeLong(c2UuidLsb);
+        out.writeInt(characteristic);
+        out.writeInt(refinability);
+        out.writeInt(group);
+        out.writeBoolean(exceptionFlag);
+        out.writeLong(revTime);
+        out.writeInt(pathIdx);
+        out.writeInt(userIdx);
+        out.writeInt(moduleIdx);
+    }
+
+    static Sct1_RelRecord readScratch(Sct1ScratchInput in) throws IOException {
+        Sct1_RelRecord r = new Sct1_RelRecord();
+        r.relSnoId = in.readLong();
+        r.relUuidMsb = in.readLong();
+        r.relUuidLsb = in.readLong();
+        r.addedIds = Sct1_IdRecord.readScratchIds(in);
+        r.status = in.readInt();
+        r.c1SnoId = in.readLong();
+        r.c1UuidMsb = in.readLong();
+        r.c1UuidLsb = in.readLong();
+        r.roleTypeSnoId = in.readLong();
+        r.roleTypeIdx = in.readInt();
+        r.c2SnoId = in.readLong();
+        r.c2UuidMsb = in.readLong();
+        r.c2UuidLsb = in.readLong();
+        r.characteristic = in.readInt();
+        r.refinability = in.readInt();
+        r.group = in.readInt();
+        r.exceptionFlag = in.readBoolean();
+        r.revTime = in.readLong();
+        r.pathIdx = in.readInt();
+        r.userIdx = in.readInt();
+        r.moduleIdx = in.readInt();
+        return r;
+    }
+
     // method required for object to be sortable (comparable) in arrays
     // SORT ORDER MATTERS WHEN ATTACHING IDS
     // THIS SORT MUST RETAIN UUID AT THE PRIMARY SORT ORDER